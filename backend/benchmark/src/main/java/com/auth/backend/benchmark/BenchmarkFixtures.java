@@ -0,0 +1,69 @@
+package com.auth.backend.benchmark;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.auth.backend.model.User;
+import com.auth.backend.service.JwtService;
+import com.auth.backend.service.SecurityVersionService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Builds backend services outside a Spring context, wired the way the application configures them.
+ */
+final class BenchmarkFixtures {
+
+    static final String USER_EMAIL = "user@example.com";
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * A JwtService signing with a fresh ES256 key pair and the default verification cache.
+     */
+    static JwtService jwtService() {
+        KeyPair keyPair;
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(256);
+            keyPair = generator.generateKeyPair();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        JwtService jwtService = new JwtService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jwtService, "privateKeyPem", Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded()));
+        ReflectionTestUtils.setField(jwtService, "publicKeyPem", Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()));
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtService, "refreshExpiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtService, "verificationCacheMaxSize", 10_000L);
+        ReflectionTestUtils.setField(jwtService, "algorithm", JwtService.SigningAlgorithm.ES256);
+        ReflectionTestUtils.setField(jwtService, "keyId", "");
+        ReflectionTestUtils.setField(jwtService, "previousAlgorithm", JwtService.SigningAlgorithm.RS256);
+        ReflectionTestUtils.setField(jwtService, "previousPublicKeyPem", "");
+        ReflectionTestUtils.setField(jwtService, "previousKeyId", "");
+        ReflectionTestUtils.invokeMethod(jwtService, "initVerificationCache");
+        return jwtService;
+    }
+
+    static String accessToken(JwtService jwtService) {
+        return jwtService.generateToken(User.builder().name("Benchmark").email(USER_EMAIL).build());
+    }
+
+    /**
+     * A SecurityVersionService that treats every token as current, so no repository is needed.
+     */
+    static SecurityVersionService securityVersionService() {
+        return new SecurityVersionService(null) {
+            @Override
+            public Integer getCurrentVersion(String email) {
+                return 0;
+            }
+        };
+    }
+}
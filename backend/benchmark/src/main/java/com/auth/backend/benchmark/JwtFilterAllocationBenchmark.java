@@ -0,0 +1,113 @@
+package com.auth.backend.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.auth.backend.service.JwtAuthenticationFilter;
+import com.auth.backend.service.JwtService;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+
+/**
+ * Per-request cost of the JWT filter before and after the hot-path rebuild, in stateless mode
+ * with a warm verification cache, so only the filter's own work is measured.
+ *
+ * Allocations per request are reported as gc.alloc.rate.norm (B/op):
+ * java -jar target/benchmarks.jar JwtFilterAllocationBenchmark -prof gc
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtFilterAllocationBenchmark {
+
+    @Param({"legacy", "current"})
+    public String filter;
+
+    private OncePerRequestFilter jwtFilter;
+    private MockHttpServletRequest headerRequest;
+    private MockHttpServletRequest cookieRequest;
+    private MockHttpServletRequest publicPathRequest;
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+    private final FilterChain chain = (request, response) -> { };
+
+    @Setup
+    public void setup() throws Exception {
+        JwtService jwtService = BenchmarkFixtures.jwtService();
+        UserDetailsService userDetailsService = username -> {
+            throw new UsernameNotFoundException("Stateless mode never loads users");
+        };
+
+        if ("legacy".equals(filter)) {
+            jwtFilter = new LegacyJwtAuthenticationFilter(
+                    jwtService, userDetailsService, BenchmarkFixtures.securityVersionService(), true);
+        } else {
+            jwtFilter = new JwtAuthenticationFilter(
+                    jwtService, userDetailsService, BenchmarkFixtures.securityVersionService());
+            ReflectionTestUtils.setField(jwtFilter, "statelessAuthentication", true);
+        }
+
+        String token = BenchmarkFixtures.accessToken(jwtService);
+
+        headerRequest = new MockHttpServletRequest("GET", "/api/v1/scans");
+        headerRequest.setServletPath("/api/v1/scans");
+        headerRequest.addHeader("Authorization", "Bearer " + token);
+
+        cookieRequest = new MockHttpServletRequest("GET", "/api/v1/scans");
+        cookieRequest.setServletPath("/api/v1/scans");
+        cookieRequest.setCookies(
+                new Cookie("theme", "dark"),
+                new Cookie("refresh_token", "opaque"),
+                new Cookie("access_token", token));
+
+        publicPathRequest = new MockHttpServletRequest("POST", "/api/v1/auth/authenticate");
+        publicPathRequest.setServletPath("/api/v1/auth/authenticate");
+
+        // Warm the verification cache so every measured call is a cache hit.
+        run(headerRequest);
+        run(cookieRequest);
+    }
+
+    @Benchmark
+    public void header() throws Exception {
+        run(headerRequest);
+    }
+
+    @Benchmark
+    public void cookie() throws Exception {
+        run(cookieRequest);
+    }
+
+    @Benchmark
+    public void publicPath() throws Exception {
+        run(publicPathRequest);
+    }
+
+    private void run(MockHttpServletRequest request) throws ServletException, IOException {
+        jwtFilter.doFilter(request, response, chain);
+        SecurityContextHolder.clearContext();
+    }
+}
@@ -0,0 +1,94 @@
+package com.auth.backend.benchmark;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+
+/**
+ * Sign and verify throughput for the algorithms JwtService can issue tokens with.
+ * Tokens are built the same way JwtService.buildToken builds access tokens.
+ *
+ * Run with: java -jar target/benchmarks.jar JwtSignatureBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtSignatureBenchmark {
+
+    @Param({"RS256", "ES256", "EdDSA"})
+    public String algorithm;
+
+    private SignatureAlgorithm jwa;
+    private PrivateKey privateKey;
+    private JwtParser parser;
+    private String token;
+
+    @Setup
+    public void setup() throws Exception {
+        KeyPair keyPair;
+        switch (algorithm) {
+            case "RS256" -> {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+                generator.initialize(2048);
+                keyPair = generator.generateKeyPair();
+                jwa = Jwts.SIG.RS256;
+            }
+            case "ES256" -> {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(256);
+                keyPair = generator.generateKeyPair();
+                jwa = Jwts.SIG.ES256;
+            }
+            case "EdDSA" -> {
+                keyPair = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+                jwa = Jwts.SIG.EdDSA;
+            }
+            default -> throw new IllegalArgumentException("Unknown algorithm: " + algorithm);
+        }
+        privateKey = keyPair.getPrivate();
+        parser = Jwts.parser().verifyWith(keyPair.getPublic()).build();
+        token = sign();
+    }
+
+    @Benchmark
+    public String sign() {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .header().keyId("benchmark").and()
+                .claims(Map.of("authorities", List.of("USER"), "ver", 0))
+                .subject("user@example.com")
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + 3_600_000))
+                .signWith(privateKey, jwa)
+                .compact();
+    }
+
+    @Benchmark
+    public Claims verify() {
+        return parser.parseSignedClaims(token).getPayload();
+    }
+}
@@ -0,0 +1,234 @@
+package com.auth.backend.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.auth.backend.model.User;
+import com.auth.backend.service.JwtService;
+import com.auth.backend.service.JwtService.ParsedToken;
+import com.auth.backend.service.SecurityVersionService;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie; 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Copy of JwtAuthenticationFilter as it was before the hot path was rebuilt, kept as the
+ * "before" side of JwtFilterAllocationBenchmark. Only the constructor and the conversion of
+ * the now pre-built authority list differ from the original.
+ */
+public class LegacyJwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LegacyJwtAuthenticationFilter.class);
+
+    private final JwtService jwtService;
+    private final UserDetailsService userDetailsService; 
+    private final SecurityVersionService securityVersionService;
+    private final String ACCESS_TOKEN_COOKIE_NAME = "access_token"; 
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private final boolean statelessAuthentication;
+
+    public LegacyJwtAuthenticationFilter(
+            JwtService jwtService,
+            UserDetailsService userDetailsService,
+            SecurityVersionService securityVersionService,
+            boolean statelessAuthentication
+    ) {
+        this.jwtService = jwtService;
+        this.userDetailsService = userDetailsService;
+        this.securityVersionService = securityVersionService;
+        this.statelessAuthentication = statelessAuthentication;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain 
+    ) throws ServletException, IOException {
+
+        if (isPublicAuthPath(request)) {
+            logger.debug("Skipping JWT filter for public auth path: {}", request.getServletPath());
+            filterChain.doFilter(request, response); 
+            return; 
+        }
+        String jwt = extractTokenFromHeader(request);
+
+        if (jwt == null) {
+            jwt = extractTokenFromCookie(request);
+            if (jwt != null) {
+                logger.debug("Found JWT in 'access_token' cookie.");
+            }
+        } else {
+            logger.debug("Found JWT in 'Authorization' header.");
+        }
+        
+        final ParsedToken token;
+        final String userEmail;
+
+        if (jwt == null) {
+            logger.debug("No JWT found in header or cookie for secured path: {}", request.getServletPath());
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        try {
+            token = jwtService.validateAndParse(jwt);
+            userEmail = token.subject();
+            logger.debug("Extracted username '{}' from JWT.", userEmail);
+        } catch (Exception e) {
+            logger.warn("Could not extract username from JWT: {}", e.getMessage());
+            filterChain.doFilter(request, response); 
+            return;
+        }
+
+        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            if (statelessAuthentication) {
+                authenticateFromClaims(request, token, userEmail);
+            } else {
+                authenticateFromUserDetails(request, token, userEmail);
+            }
+        } else {
+            if (userEmail != null) {
+                logger.debug("User '{}' already authenticated, skipping JWT validation.", userEmail);
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Builds the Authentication from the loaded UserDetails (one database lookup per request).
+     */
+    private void authenticateFromUserDetails(HttpServletRequest request, ParsedToken token, String userEmail) {
+        UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+
+        // The signature and expiry were already verified by validateAndParse.
+        boolean isTokenValid = userDetails.getUsername().equals(token.subject()) && !token.isExpired();
+
+        if (isTokenValid && userDetails instanceof User user
+                && user.getSecurityVersion() != token.securityVersion()) {
+            logger.warn("JWT for user '{}' was issued before a security change and is revoked.", userEmail);
+            isTokenValid = false;
+        }
+
+        if (isTokenValid) {
+            setAuthentication(request, userDetails, userDetails.getAuthorities());
+            logger.debug("Successfully authenticated user '{}' via JWT.", userEmail);
+        } else {
+             logger.warn("JWT token was deemed invalid for user '{}'.", userEmail);
+        }
+    }
+
+    /**
+     * Builds the Authentication only from the verified claims. The principal is the user's email,
+     * and revocation is checked against the in-memory security version instead of the database.
+     */
+    private void authenticateFromClaims(HttpServletRequest request, ParsedToken token, String userEmail) {
+        if (!securityVersionService.isCurrent(userEmail, token.securityVersion())) {
+            logger.warn("JWT for user '{}' is revoked or the user no longer exists.", userEmail);
+            return;
+        }
+
+        List<GrantedAuthority> authorities = new ArrayList<>(token.authorities().size());
+        for (GrantedAuthority authority : token.authorities()) {
+            authorities.add(new SimpleGrantedAuthority(authority.getAuthority()));
+        }
+
+        setAuthentication(request, userEmail, authorities);
+        logger.debug("Successfully authenticated user '{}' from JWT claims.", userEmail);
+    }
+
+    private void setAuthentication(
+            HttpServletRequest request,
+            Object principal,
+            Collection<? extends GrantedAuthority> authorities
+    ) {
+        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                principal, 
+                null,        
+                authorities 
+        );
+        authToken.setDetails(
+                new WebAuthenticationDetailsSource().buildDetails(request)
+        );
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+    }
+
+    /**
+     * (NEW) Helper method to find and extract the JWT value from the Authorization header.
+     *
+     * @param request The incoming HttpServletRequest.
+     * @return The JWT string if the 'Authorization' header is found and formatted correctly, otherwise null.
+     */
+    private String extractTokenFromHeader(HttpServletRequest request) {
+        final String authHeader = request.getHeader("Authorization");
+
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            String token = authHeader.substring(7); // Extract token after "Bearer "
+            if (!token.isEmpty()) {
+                return token;
+            }
+        }
+        return null; 
+    }
+
+    /**
+     * (EXISTING) Helper method to find and extract the JWT value from the request's cookies.
+     *
+     * @param request The incoming HttpServletRequest.
+     * @return The JWT string if the 'access_token' cookie is found, otherwise null.
+     */
+    private String extractTokenFromCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            return Arrays.stream(cookies)
+                    .filter(cookie -> ACCESS_TOKEN_COOKIE_NAME.equals(cookie.getName()))
+                    .map(Cookie::getValue)
+                    .findFirst()
+                    .orElse(null);
+        }
+        return null; 
+    }
+
+    /**
+     * (EXISTING) Checks if the request path matches defined public authentication paths.
+     *
+     * @param request The incoming HttpServletRequest.
+     * @return true if the path matches a public pattern, false otherwise.
+     */
+    private boolean isPublicAuthPath(HttpServletRequest request) {
+        String[] publicPaths = {
+            "/hello",
+            "/api/v1/auth/register",
+            "/api/v1/auth/authenticate",
+            "/api/v1/auth/verify",
+            "/api/v1/auth/forgot-password",
+            "/api/v1/auth/reset-password",
+            "/api/v1/auth/refresh-token"
+        };
+        String requestPath = request.getServletPath();
+
+        return Arrays.stream(publicPaths)
+                .anyMatch(path -> pathMatcher.match(path, requestPath));
+    }
+}
\ No newline at end of file
@@ -1,15 +1,27 @@
 package com.auth.backend;
 
+import java.util.Map;
+
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableAsync
+@EnableScheduling
 public class BackendApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(BackendApplication.class, args);
+		create().run(args);
+	}
+
+	static SpringApplication create() {
+		SpringApplication application = new SpringApplication(BackendApplication.class);
+		// Requests, @Async work and scheduled tasks run on virtual threads unless configured otherwise;
+		// AdmissionControlFilter bounds the concurrent requests instead of the thread pool.
+		application.setDefaultProperties(Map.of("spring.threads.virtual.enabled", "true"));
+		return application;
 	}
 
 }
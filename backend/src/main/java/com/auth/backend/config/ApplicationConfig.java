@@ -11,7 +11,8 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
-import com.auth.backend.repository.UserRepository;
+import com.auth.backend.dto.UserSnapshot;
+import com.auth.backend.service.UserCacheService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -20,11 +21,12 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class ApplicationConfig {
 
-    private final UserRepository userRepository;
+    private final UserCacheService userCacheService;
 
     @Bean
     public UserDetailsService userDetailsService() {
-        return username -> userRepository.findByEmail(username) // Use email as username
+        return username -> userCacheService.findByEmail(username) // Use email as username
+                .map(UserSnapshot::toUser)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + username));
     }
 
@@ -0,0 +1,79 @@
+package com.auth.backend.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the JDBC statements the current thread executes while the scope is open.
+ * Scopes nest: a statement counts towards every open scope of the thread.
+ *
+ * Statements run on other threads (async work, the scan history writer) are not seen.
+ */
+public final class JdbcStatementScope implements AutoCloseable {
+
+    private static final ThreadLocal<JdbcStatementScope> CURRENT = new ThreadLocal<>();
+
+    private final JdbcStatementScope parent;
+    private final List<String> statements;
+    private int statementCount;
+    private long elapsedNanos;
+
+    private JdbcStatementScope(JdbcStatementScope parent, boolean captureSql) {
+        this.parent = parent;
+        this.statements = captureSql ? new ArrayList<>() : null;
+    }
+
+    /**
+     * Opens a scope that counts and times statements.
+     */
+    public static JdbcStatementScope open() {
+        return open(false);
+    }
+
+    /**
+     * Opens a scope that also keeps the SQL of every statement, e.g. for test failure messages.
+     */
+    public static JdbcStatementScope openCapturingSql() {
+        return open(true);
+    }
+
+    private static JdbcStatementScope open(boolean captureSql) {
+        JdbcStatementScope scope = new JdbcStatementScope(CURRENT.get(), captureSql);
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    static void record(String sql, long nanos) {
+        for (JdbcStatementScope scope = CURRENT.get(); scope != null; scope = scope.parent) {
+            scope.statementCount++;
+            scope.elapsedNanos += nanos;
+            if (scope.statements != null) {
+                scope.statements.add(sql);
+            }
+        }
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * SQL of the statements so far; empty unless the scope was opened with {@link #openCapturingSql()}.
+     */
+    public List<String> getStatements() {
+        return statements == null ? List.of() : List.copyOf(statements);
+    }
+
+    @Override
+    public void close() {
+        if (parent == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(parent);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.auth.backend.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+
+/**
+ * JDBC batching defaults, statement instrumentation and pool metrics.
+ * Explicit spring.jpa / spring.datasource settings still take precedence.
+ */
+@Configuration
+public class PersistenceConfig {
+
+    // Matches the allocation size of the pooled id sequences, so one id fetch covers one batch
+    static final int JDBC_BATCH_SIZE = 50;
+
+    @Bean
+    public HibernatePropertiesCustomizer jdbcBatchingCustomizer() {
+        return properties -> {
+            properties.putIfAbsent("hibernate.jdbc.batch_size", JDBC_BATCH_SIZE);
+            properties.putIfAbsent("hibernate.order_inserts", true);
+        };
+    }
+
+    /**
+     * Lets the PostgreSQL driver send a batch of inserts as multi-row INSERT statements.
+     */
+    @Bean
+    public static BeanPostProcessor batchedInsertRewriter() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource) {
+                    dataSource.getDataSourceProperties().putIfAbsent("reWriteBatchedInserts", "true");
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Keeps recent percentiles of the pool's connection acquisition time, which LoadSheddingFilter
+     * reads. They cover the last application.load-shedding.acquire-window-seconds.
+     */
+    @Bean
+    public static MeterFilter hikariAcquirePercentiles(Environment environment) {
+        Duration window = Duration.ofSeconds(
+                environment.getProperty("application.load-shedding.acquire-window-seconds", Long.class, 10L));
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!id.getName().equals("hikaricp.connections.acquire")) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .percentiles(0.95, 0.99)
+                        .expiry(window)
+                        .bufferLength(2)
+                        .build()
+                        .merge(config);
+            }
+        };
+    }
+
+    /**
+     * Wraps the pool so statements can be counted per request, see {@link StatementCountingDataSource}.
+     */
+    @Bean
+    public static BeanPostProcessor statementCountingDataSourceWrapper(Environment environment) {
+        boolean enabled = environment.getProperty("application.jdbc.statement-metrics.enabled", Boolean.class, true);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (enabled && bean instanceof HikariDataSource dataSource) {
+                    return new StatementCountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+}
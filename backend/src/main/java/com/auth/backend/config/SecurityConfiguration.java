@@ -23,6 +23,7 @@ import com.auth.backend.service.CustomOidcUserService;
 import com.auth.backend.service.JwtAuthenticationFilter;
 import com.auth.backend.service.OAuth2LoginSuccessHandler;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 
 @Configuration
@@ -45,6 +46,8 @@ public class SecurityConfiguration {
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             
             .authorizeHttpRequests(auth -> auth
+                // Completing an event stream dispatches again; the request was authorized when it started
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers(
                     "/hello",
                     "/api/v1/auth/**", // Public Auth endpoints
@@ -78,6 +81,7 @@ public class SecurityConfiguration {
         configuration.setAllowedOrigins(Arrays.asList(allowedOrigins.split(",")));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(List.of("*"));
+        configuration.setExposedHeaders(List.of("X-Next-Cursor", "X-Total-Count"));
         configuration.setAllowCredentials(true); 
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -1,9 +1,16 @@
 package com.auth.backend.controller;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -12,12 +19,25 @@ import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.auth.backend.dto.AnalyticsResponse;
+import com.auth.backend.dto.BulkUserRequest;
+import com.auth.backend.dto.ScanSketchResponse;
+import com.auth.backend.dto.UserFilter;
 import com.auth.backend.dto.UserResponse;
+import com.auth.backend.enums.AccountTier;
+import com.auth.backend.enums.AuthProvider;
+import com.auth.backend.enums.Role;
 import com.auth.backend.service.AdminService;
+import com.auth.backend.service.AdminService.BulkResult;
+import com.auth.backend.service.AnalyticsService;
+import com.auth.backend.service.ScanSketchService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -28,16 +48,36 @@ import lombok.RequiredArgsConstructor;
 public class AdminController {
 
     private static final Logger log = LoggerFactory.getLogger(AdminController.class);
+
+    // Number of users matching the filters, across all pages
+    static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
     private final AdminService adminService;
+    private final AnalyticsService analyticsService;
+    private final ScanSketchService scanSketchService;
 
     /**
-     * Get a list of all users.
+     * Get one page of users, e.g. ?page=0&size=50&sort=email,asc&role=ADMIN&tier=PRO
+     * &createdFrom=2025-01-01T00:00:00&createdTo=2025-02-01T00:00:00&search=smith
      * Accessible only by ADMIN.
      */
     @GetMapping("/users")
-    public ResponseEntity<List<UserResponse>> getAllUsers() {
-        log.info("Admin request to get all users");
-        return ResponseEntity.ok(adminService.getAllUsers());
+    public ResponseEntity<List<UserResponse>> getUsers(
+            @RequestParam(required = false) Role role,
+            @RequestParam(required = false) AuthProvider provider,
+            @RequestParam(required = false) AccountTier tier,
+            @RequestParam(required = false) Boolean enabled,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+            @RequestParam(required = false) String search,
+            @PageableDefault(size = 50, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable
+    ) {
+        log.info("Admin request to list users, page {}", pageable);
+        Page<UserResponse> page = adminService.getUsers(
+                new UserFilter(role, provider, tier, enabled, createdFrom, createdTo, search), pageable);
+        return ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(page.getTotalElements()))
+                .body(page.getContent());
     }
 
     /**
@@ -73,6 +113,72 @@ public class AdminController {
         return ResponseEntity.ok("User deleted successfully.");
     }
 
+    // --- Bulk Operations ---
+    // Body: {"ids": [1, 2]} or {"filter": {"enabled": false, "createdTo": "2025-01-01T00:00:00"}}
+
+    /**
+     * Delete many users at once.
+     * Accessible only by ADMIN.
+     */
+    @PostMapping("/users/bulk/delete")
+    public ResponseEntity<BulkResult> deleteUsers(@RequestBody BulkUserRequest request) {
+        BulkResult result = adminService.deleteUsers(request);
+        log.info("Admin bulk delete: {} users matched, {} deleted", result.matched(), result.affected());
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Set the role ("role") of many users at once.
+     * Accessible only by ADMIN.
+     */
+    @PostMapping("/users/bulk/role")
+    public ResponseEntity<BulkResult> changeRole(@RequestBody BulkUserRequest request) {
+        BulkResult result = adminService.changeRole(request);
+        log.info("Admin bulk role change to {}: {} users matched, {} changed", request.getRole(), result.matched(), result.affected());
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Set the account tier ("tier") of many users at once.
+     * Accessible only by ADMIN.
+     */
+    @PostMapping("/users/bulk/tier")
+    public ResponseEntity<BulkResult> changeTier(@RequestBody BulkUserRequest request) {
+        BulkResult result = adminService.changeTier(request);
+        log.info("Admin bulk tier change to {}: {} users matched, {} changed", request.getTier(), result.matched(), result.affected());
+        return ResponseEntity.ok(result);
+    }
+
+    // --- Analytics ---
+
+    /**
+     * Daily counters, e.g. ?from=2025-03-01&to=2025-03-31 (both inclusive, the last 30 days by default).
+     * Accessible only by ADMIN.
+     */
+    @GetMapping("/analytics")
+    public ResponseEntity<AnalyticsResponse> getAnalytics(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        return ResponseEntity.ok(analyticsService.getAnalytics(start, end));
+    }
+
+    /**
+     * Estimated unique hosts, unique users and most scanned URLs, e.g. ?from=2025-03-01&to=2025-03-07&limit=10
+     * (today by default, at most 100 URLs).
+     * Accessible only by ADMIN.
+     */
+    @GetMapping("/analytics/scans")
+    public ResponseEntity<ScanSketchResponse> getScanAnalytics(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "10") int limit) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end;
+        return ResponseEntity.ok(scanSketchService.getScanSketches(start, end, Math.max(1, Math.min(limit, 100))));
+    }
+
     // --- Exception Handlers for this Controller ---
 
     @ExceptionHandler(UsernameNotFoundException.class)
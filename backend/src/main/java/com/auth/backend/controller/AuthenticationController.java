@@ -4,8 +4,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -23,7 +23,6 @@ import com.auth.backend.dto.ForgotPasswordRequest;
 import com.auth.backend.dto.RegisterRequest;
 import com.auth.backend.dto.ResetPasswordRequest;
 import com.auth.backend.dto.VerificationRequest;
-import com.auth.backend.model.User;
 import com.auth.backend.service.AuthenticationService;
 
 import io.jsonwebtoken.JwtException;
@@ -177,9 +176,9 @@ public class AuthenticationController {
 
     @GetMapping("/token")
     public ResponseEntity<AccessTokenResponse> getAccessToken(
-            @AuthenticationPrincipal User user // Spring Security injects the current user here
+            Authentication authentication // Principal is a User, or only the email in stateless mode
     ) {
-        log.info("Request to get raw access token for user: {}", user.getEmail());
-        return ResponseEntity.ok(authenticationService.getAccessTokenForAuthenticatedUser(user));
+        log.info("Request to get raw access token for user: {}", authentication.getName());
+        return ResponseEntity.ok(authenticationService.getAccessTokenForAuthenticatedUser(authentication));
     }
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.auth.backend.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.auth.backend.service.UserEventHub;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/v1/events")
+@RequiredArgsConstructor
+public class EventStreamController {
+
+    private final UserEventHub userEventHub;
+
+    /**
+     * GET /api/v1/events
+     * Server-sent events for the authenticated user: "usage" with the daily counter, first on connect
+     * and then on every change, and "scan" whenever one of the user's scans changes status.
+     * (Opened by the frontend dashboard instead of polling /api/v1/usage/status and /api/v1/scans)
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamEvents(Authentication authentication) {
+        return userEventHub.subscribe(authentication.getName())
+                .map(emitter -> ResponseEntity.ok()
+                        .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                        .body(emitter))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "5")
+                        .build());
+    }
+}
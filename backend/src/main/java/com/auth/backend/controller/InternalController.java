@@ -1,5 +1,6 @@
 package com.auth.backend.controller;
 
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -7,13 +8,17 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.auth.backend.service.LimitService;
 import com.auth.backend.service.LimitService.LimitCheckResponse;
 import com.auth.backend.service.LimitService.UsageStatusResponse;
+import com.auth.backend.service.ScanLeaseService;
+import com.auth.backend.service.ScanLeaseService.LeaseResponse;
 
 import lombok.RequiredArgsConstructor;
 
@@ -23,6 +28,7 @@ import lombok.RequiredArgsConstructor;
 public class InternalController {
 
     private final LimitService limitService;
+    private final ScanLeaseService scanLeaseService;
 
     /**
      * [WRITE] Endpoint for the FastAPI agent to check AND increment usage.
@@ -40,17 +46,131 @@ public class InternalController {
         try {
             // Use the service method that performs the check and increment logic
             LimitCheckResponse response = limitService.checkAndIncrementLimitByEmail(email);
+            return toResponseEntity(response);
+                    
+        } catch (UsernameNotFoundException e) {
+            return ResponseEntity.status(404)
+                    .body(Map.of("allowed", false, "reason", "USER_NOT_FOUND"));
+        } catch (Exception e) {
+            return ResponseEntity.status(500)
+                    .body(Map.of("allowed", false, "reason", "INTERNAL_SERVER_ERROR"));
+        }
+    }
 
-            Map<String, Object> body = new HashMap<>();
-            body.put("allowed", response.isAllowed());
-            body.put("reason", response.getReason());
+    /**
+     * [WRITE] Endpoint for the FastAPI agent to check AND increment usage and record the scan in one call.
+     * Replaces the separate check-limit and POST /api/v1/scans requests.
+     */
+    @PostMapping("/authorize-scan")
+    public ResponseEntity<?> authorizeScan(
+            Authentication authentication,
+            @RequestBody Map<String, String> requestBody
+    ) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+             return ResponseEntity.status(401)
+                     .body(Map.of("allowed", false, "reason", "UNAUTHENTICATED"));
+        }
+        String url = requestBody.get("url");
+        if (url == null || url.isBlank()) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("allowed", false, "reason", "URL_REQUIRED"));
+        }
+
+        try {
+            return toResponseEntity(limitService.authorizeScan(authentication.getName(), url));
+        } catch (UsernameNotFoundException e) {
+            return ResponseEntity.status(404)
+                    .body(Map.of("allowed", false, "reason", "USER_NOT_FOUND"));
+        } catch (Exception e) {
+            return ResponseEntity.status(500)
+                    .body(Map.of("allowed", false, "reason", "INTERNAL_SERVER_ERROR"));
+        }
+    }
 
-            // Include usage stats if allowed (or even if denied, for context)
-            if (response.getUsage() != null) {
-                body.put("usage", response.getUsage());
+    /**
+     * [WRITE] Reserves one unit of the daily quota before a scan starts.
+     * The unit is counted right away but is given back if the reservation is released or expires.
+     */
+    @PostMapping("/reservations")
+    public ResponseEntity<?> reserve(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+             return ResponseEntity.status(401)
+                     .body(Map.of("allowed", false, "reason", "UNAUTHENTICATED"));
+        }
+
+        try {
+            return toResponseEntity(limitService.reserve(authentication.getName()));
+        } catch (UsernameNotFoundException e) {
+            return ResponseEntity.status(404)
+                    .body(Map.of("allowed", false, "reason", "USER_NOT_FOUND"));
+        } catch (Exception e) {
+            return ResponseEntity.status(500)
+                    .body(Map.of("allowed", false, "reason", "INTERNAL_SERVER_ERROR"));
+        }
+    }
+
+    /**
+     * [WRITE] Makes a reservation final once the scan has finished.
+     */
+    @PostMapping("/reservations/{reservationId}/commit")
+    public ResponseEntity<?> commitReservation(Authentication authentication, @PathVariable long reservationId) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(401)
+                    .body(Map.of("error", "UNAUTHENTICATED"));
+        }
+        if (!limitService.commitReservation(authentication.getName(), reservationId)) {
+            return ResponseEntity.status(404)
+                    .body(Map.of("error", "RESERVATION_NOT_FOUND"));
+        }
+        return ResponseEntity.ok(Map.of("reservationId", reservationId, "status", "COMMITTED"));
+    }
+
+    /**
+     * [WRITE] Gives the reserved unit back, e.g. when the target URL turned out to be unreachable.
+     */
+    @PostMapping("/reservations/{reservationId}/release")
+    public ResponseEntity<?> releaseReservation(Authentication authentication, @PathVariable long reservationId) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(401)
+                    .body(Map.of("error", "UNAUTHENTICATED"));
+        }
+
+        try {
+            if (!limitService.releaseReservation(authentication.getName(), reservationId)) {
+                return ResponseEntity.status(404)
+                        .body(Map.of("error", "RESERVATION_NOT_FOUND"));
             }
-            return ResponseEntity.status(response.getHttpStatus()).body(body);
-                    
+            return ResponseEntity.ok(Map.of("reservationId", reservationId, "status", "RELEASED"));
+        } catch (Exception e) {
+            return ResponseEntity.status(500)
+                    .body(Map.of("error", "INTERNAL_SERVER_ERROR"));
+        }
+    }
+
+    /**
+     * [WRITE] Claims one of the user's concurrent-scan slots before a scan starts.
+     * Independent of the daily quota, which is still counted by /check-limit or /reservations.
+     */
+    @PostMapping("/leases")
+    public ResponseEntity<?> acquireLease(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+             return ResponseEntity.status(401)
+                     .body(Map.of("allowed", false, "reason", "UNAUTHENTICATED"));
+        }
+
+        try {
+            LeaseResponse lease = scanLeaseService.acquire(authentication.getName());
+            Map<String, Object> body = new HashMap<>();
+            body.put("allowed", lease.isAllowed());
+            body.put("reason", lease.getReason());
+            body.put("active", lease.getActive());
+            body.put("maxConcurrent", lease.getMaxConcurrent());
+            body.put("tier", lease.getTier());
+            if (lease.getLeaseId() != null) {
+                body.put("leaseId", lease.getLeaseId());
+                body.put("expiresAt", lease.getExpiresAt());
+            }
+            return ResponseEntity.status(lease.isAllowed() ? 200 : 429).body(body);
         } catch (UsernameNotFoundException e) {
             return ResponseEntity.status(404)
                     .body(Map.of("allowed", false, "reason", "USER_NOT_FOUND"));
@@ -60,6 +180,39 @@ public class InternalController {
         }
     }
 
+    /**
+     * [WRITE] Keeps a lease alive while its scan is running. The agent should call it well within the TTL.
+     */
+    @PostMapping("/leases/{leaseId}/heartbeat")
+    public ResponseEntity<?> heartbeatLease(Authentication authentication, @PathVariable long leaseId) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(401)
+                    .body(Map.of("error", "UNAUTHENTICATED"));
+        }
+        Instant expiresAt = scanLeaseService.heartbeat(authentication.getName(), leaseId);
+        if (expiresAt == null) {
+            return ResponseEntity.status(404)
+                    .body(Map.of("error", "LEASE_NOT_FOUND"));
+        }
+        return ResponseEntity.ok(Map.of("leaseId", leaseId, "expiresAt", expiresAt));
+    }
+
+    /**
+     * [WRITE] Frees the slot once the scan has finished or failed.
+     */
+    @PostMapping("/leases/{leaseId}/release")
+    public ResponseEntity<?> releaseLease(Authentication authentication, @PathVariable long leaseId) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(401)
+                    .body(Map.of("error", "UNAUTHENTICATED"));
+        }
+        if (!scanLeaseService.release(authentication.getName(), leaseId)) {
+            return ResponseEntity.status(404)
+                    .body(Map.of("error", "LEASE_NOT_FOUND"));
+        }
+        return ResponseEntity.ok(Map.of("leaseId", leaseId, "status", "RELEASED"));
+    }
+
     /**
      * [READ] New endpoint for the frontend dashboard to get status ONLY.
      * This does NOT increment the usage count.
@@ -85,4 +238,23 @@ public class InternalController {
                     .body(Map.of("error", "INTERNAL_SERVER_ERROR"));
         }
     }
+
+    private ResponseEntity<?> toResponseEntity(LimitCheckResponse response) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("allowed", response.isAllowed());
+        body.put("reason", response.getReason());
+
+        // Include usage stats if allowed (or even if denied, for context)
+        if (response.getUsage() != null) {
+            body.put("usage", response.getUsage());
+        }
+        if (response.getReservationId() != null) {
+            body.put("reservationId", response.getReservationId());
+            body.put("expiresAt", response.getExpiresAt());
+        }
+        if (response.getScanId() != null) {
+            body.put("scanId", response.getScanId());
+        }
+        return ResponseEntity.status(response.getHttpStatus()).body(body);
+    }
 }
\ No newline at end of file
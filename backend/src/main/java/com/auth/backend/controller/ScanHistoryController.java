@@ -1,45 +1,75 @@
 package com.auth.backend.controller;
 
 import com.auth.backend.dto.ScanHistoryDto;
+import com.auth.backend.dto.ScanResultDto;
+import com.auth.backend.service.ScanHistoryIngestionService;
 import com.auth.backend.service.ScanHistoryService;
+import com.auth.backend.service.ScanHistoryService.ScanHistoryPage;
+import com.auth.backend.service.ScanReportService;
+import com.auth.backend.service.ScanReportService.StoredReport;
+import com.auth.backend.service.ScanResultCacheService;
+import com.auth.backend.service.ScanResultCacheService.CachedScanResult;
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
 
 @RestController
 @RequestMapping("/api/v1/scans")
 @RequiredArgsConstructor
 public class ScanHistoryController {
 
+    // Cursor of the next page; absent on the last page
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final ScanHistoryService scanHistoryService;
+    private final Optional<ScanHistoryIngestionService> scanHistoryIngestion;
+    private final ScanResultCacheService scanResultCache;
+    private final ScanReportService scanReportService;
 
     /**
-     * GET /api/v1/scans
-     * Fetches the authenticated user's scan history.
+     * GET /api/v1/scans?cursor=...&size=...
+     * Fetches one page of the authenticated user's scan history, newest first.
      * (Called by the frontend dashboard on page load)
      */
     @GetMapping
-    public ResponseEntity<List<ScanHistoryDto>> getUserScanHistory(Authentication authentication) {
+    public ResponseEntity<List<ScanHistoryDto>> getUserScanHistory(
+            Authentication authentication,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
         String email = authentication.getName();
-        List<ScanHistoryDto> history = scanHistoryService.getScanHistory(email);
-        return ResponseEntity.ok(history);
+        return toPageResponse(scanHistoryService.getScanHistory(email, cursor, size));
     }
 
     /**
      * POST /api/v1/scans
      * Creates a new scan history record for the authenticated user.
      * (Called by the frontend when a user clicks "Scan")
+     *
+     * With batched ingestion the record is only queued: the response is 202 without an id,
+     * or 503 with Retry-After when the queue is full.
      */
     @PostMapping
     public ResponseEntity<ScanHistoryDto> createScanRecord(
             Authentication authentication,
             @RequestBody Map<String, String> requestBody
-    ) {
+    ) throws InterruptedException {
         String email = authentication.getName();
         String url = requestBody.get("url");
 
@@ -47,7 +77,165 @@ public class ScanHistoryController {
             return ResponseEntity.badRequest().build();
         }
 
+        if (scanHistoryIngestion.isPresent()) {
+            LocalDateTime createdAt = LocalDateTime.now();
+            if (!scanHistoryIngestion.get().submit(email, url, createdAt)) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .build();
+            }
+            return ResponseEntity.accepted().body(new ScanHistoryDto(null, url, createdAt, false));
+        }
+
         ScanHistoryDto newScan = scanHistoryService.createScan(email, url);
         return ResponseEntity.status(HttpStatus.CREATED).body(newScan);
     }
-}
\ No newline at end of file
+
+    /**
+     * GET /api/v1/scans/results?url=...
+     * Returns the shared report for the URL if one is fresh enough for the user's tier, otherwise 404.
+     * (Called by the agent before it starts a new analysis)
+     */
+    @GetMapping("/results")
+    public ResponseEntity<ScanResultDto> getCachedResult(Authentication authentication, @RequestParam String url) {
+        return scanResultCache.findFreshResult(authentication.getName(), url)
+                .map(result -> ResponseEntity.ok(toResultDto(result)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * PUT /api/v1/scans/results
+     * Stores a finished report ({"url": ..., "report": {...}}) as the shared result for its URL.
+     * Every user scanning the URL is served this report, so only workers and admins may store one.
+     * (Called by the agent workers when an analysis completes)
+     */
+    @PutMapping("/results")
+    @PreAuthorize("hasAnyAuthority('AGENT', 'ADMIN')")
+    public ResponseEntity<ScanResultDto> storeResult(@RequestBody JsonNode requestBody) {
+        JsonNode url = requestBody.get("url");
+        JsonNode report = requestBody.get("report");
+        if (url == null || !url.isTextual() || report == null || report.isNull()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        CachedScanResult result = scanResultCache.store(url.asText(), report.toString());
+        return ResponseEntity.ok(toResultDto(result));
+    }
+
+    /**
+     * PUT /api/v1/scans/{scanId}/report
+     * Attaches the agent's JSON report to one of the user's scans. The body is compressed while it is read.
+     * (Called by the agent when an analysis completes)
+     */
+    @PutMapping(value = "/{scanId}/report", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Void> uploadReport(
+            Authentication authentication,
+            @PathVariable Integer scanId,
+            InputStream report
+    ) throws IOException {
+        if (!scanReportService.attachReport(authentication.getName(), scanId, report)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * GET /api/v1/scans/{scanId}/report
+     * Returns the stored report, streamed from the database. Clients that accept gzip get the stored
+     * bytes as they are (Content-Encoding: gzip); others get them inflated while they are streamed.
+     * (Called by the frontend when a user opens a scan from their history)
+     */
+    @GetMapping("/{scanId}/report")
+    public ResponseEntity<StreamingResponseBody> getReport(
+            Authentication authentication,
+            @PathVariable Integer scanId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        Optional<StoredReport> found = scanReportService.findReport(authentication.getName(), scanId);
+        if (found.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        StoredReport report = found.get();
+
+        // Weak, because both encodings of a report share the tag
+        String etag = "W/\"" + report.contentHash() + "\"";
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (acceptsGzip(acceptEncoding)) {
+            return response
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .contentLength(report.compressedSize())
+                    .body(out -> {
+                        try (InputStream in = scanReportService.openReport(report)) {
+                            in.transferTo(out);
+                        }
+                    });
+        }
+        return response
+                .contentLength(report.originalSize())
+                .body(out -> {
+                    try (InputStream in = new GZIPInputStream(scanReportService.openReport(report))) {
+                        in.transferTo(out);
+                    }
+                });
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidArgument(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+    }
+
+    /**
+     * True if the Accept-Encoding header lists gzip (or *) without q=0.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) {
+                continue;
+            }
+            boolean refused = false;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        refused = Double.parseDouble(param.substring(2)) == 0;
+                    } catch (NumberFormatException e) {
+                        refused = true;
+                    }
+                }
+            }
+            if (!refused) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ScanResultDto toResultDto(CachedScanResult result) {
+        return new ScanResultDto(result.normalizedUrl(), result.report(), result.createdAt());
+    }
+
+    /**
+     * The page items stay a plain JSON array; the next cursor travels in a header.
+     */
+    static ResponseEntity<List<ScanHistoryDto>> toPageResponse(ScanHistoryPage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
+    }
+}
@@ -0,0 +1,140 @@
+package com.auth.backend.controller;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.auth.backend.enums.ScanStatus;
+import com.auth.backend.service.LimitService.LimitCheckResponse;
+import com.auth.backend.service.ScanJobService;
+import com.auth.backend.service.ScanJobService.ScanJob;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/v1/scans/jobs")
+@RequiredArgsConstructor
+public class ScanJobController {
+
+    private final ScanJobService scanJobService;
+
+    /**
+     * POST /api/v1/scans/jobs
+     * Counts the scan against the daily quota and queues it ({"url": ...}); returns 202 with the job id.
+     * (Called by the frontend when a user clicks "Scan")
+     */
+    @PostMapping
+    public ResponseEntity<?> enqueue(Authentication authentication, @RequestBody Map<String, String> requestBody) {
+        String url = requestBody.get("url");
+        if (url == null || url.isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        LimitCheckResponse response = scanJobService.enqueue(authentication.getName(), url);
+        Map<String, Object> body = new HashMap<>();
+        body.put("allowed", response.isAllowed());
+        body.put("reason", response.getReason());
+        body.put("usage", response.getUsage());
+        if (!response.isAllowed()) {
+            return ResponseEntity.status(response.getHttpStatus()).body(body);
+        }
+        body.put("jobId", response.getScanId());
+        body.put("status", ScanStatus.QUEUED);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(body);
+    }
+
+    /**
+     * GET /api/v1/scans/jobs/{jobId}
+     * Status of one of the user's jobs.
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ScanJob> getJob(Authentication authentication, @PathVariable Integer jobId) {
+        return scanJobService.findJob(authentication.getName(), jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * POST /api/v1/scans/jobs/claim?workerId=...&max=...
+     * Hands the worker up to max queued jobs, which stay its own until their visibleUntil.
+     * (Called by the agent workers)
+     */
+    @PostMapping("/claim")
+    @PreAuthorize("hasAnyAuthority('AGENT', 'ADMIN')")
+    public List<ScanJob> claim(@RequestParam String workerId, @RequestParam(defaultValue = "1") int max) {
+        return scanJobService.claim(workerId, max);
+    }
+
+    /**
+     * POST /api/v1/scans/jobs/{jobId}/heartbeat?workerId=...
+     * Extends the worker's claim; 404 once the job was given to someone else or has ended.
+     */
+    @PostMapping("/{jobId}/heartbeat")
+    @PreAuthorize("hasAnyAuthority('AGENT', 'ADMIN')")
+    public ResponseEntity<?> heartbeat(@PathVariable Integer jobId, @RequestParam String workerId) {
+        Optional<LocalDateTime> visibleUntil = scanJobService.heartbeat(jobId, workerId);
+        if (visibleUntil.isEmpty()) {
+            return ResponseEntity.status(404).body(Map.of("error", "JOB_NOT_CLAIMED"));
+        }
+        return ResponseEntity.ok(Map.of("jobId", jobId, "visibleUntil", visibleUntil.get()));
+    }
+
+    /**
+     * POST /api/v1/scans/jobs/{jobId}/complete?workerId=...
+     * Finishes the job; an optional JSON body is attached as the scan's report.
+     */
+    @PostMapping("/{jobId}/complete")
+    @PreAuthorize("hasAnyAuthority('AGENT', 'ADMIN')")
+    public ResponseEntity<?> complete(
+            @PathVariable Integer jobId,
+            @RequestParam String workerId,
+            @RequestBody(required = false) JsonNode report
+    ) throws IOException {
+        byte[] content = report == null || report.isNull() ? null : report.toString().getBytes(StandardCharsets.UTF_8);
+        if (!scanJobService.complete(jobId, workerId, content)) {
+            return ResponseEntity.status(404).body(Map.of("error", "JOB_NOT_CLAIMED"));
+        }
+        return ResponseEntity.ok(Map.of("jobId", jobId, "status", ScanStatus.COMPLETED));
+    }
+
+    /**
+     * POST /api/v1/scans/jobs/{jobId}/fail?workerId=...&retry=...
+     * Gives the job up; with retry it goes back to the queue while attempts are left.
+     */
+    @PostMapping("/{jobId}/fail")
+    @PreAuthorize("hasAnyAuthority('AGENT', 'ADMIN')")
+    public ResponseEntity<?> fail(
+            @PathVariable Integer jobId,
+            @RequestParam String workerId,
+            @RequestParam(defaultValue = "true") boolean retry
+    ) {
+        Optional<ScanStatus> status = scanJobService.fail(jobId, workerId, retry);
+        if (status.isEmpty()) {
+            return ResponseEntity.status(404).body(Map.of("error", "JOB_NOT_CLAIMED"));
+        }
+        return ResponseEntity.ok(Map.of("jobId", jobId, "status", status.get()));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidArgument(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+    }
+}
@@ -8,10 +8,12 @@ import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.auth.backend.dto.ScanHistoryDto;
@@ -41,9 +43,14 @@ public class UserController {
 
     @GetMapping("/history")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<List<ScanHistoryDto>> getMyScanHistory(Authentication authentication) {
+    public ResponseEntity<List<ScanHistoryDto>> getMyScanHistory(
+            Authentication authentication,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
         log.info("Request to get scan history for user: {}", authentication.getName());
-        return ResponseEntity.ok(scanHistoryService.getScanHistory(authentication.getName()));
+        return ScanHistoryController.toPageResponse(
+                scanHistoryService.getScanHistory(authentication.getName(), cursor, size));
     }
 
     @PostMapping("/select-tier")
@@ -56,4 +63,9 @@ public class UserController {
 
         return ResponseEntity.ok(Map.of("message", "Account tier selected successfully"));
     }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidRequest(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+    }
 }
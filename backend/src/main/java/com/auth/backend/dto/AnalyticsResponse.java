@@ -0,0 +1,24 @@
+package com.auth.backend.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import com.auth.backend.enums.AnalyticsMetric;
+
+/**
+ * Daily counters of a date range, oldest day first, and the latest number of users per tier.
+ * Days without any activity are included with empty metrics.
+ */
+public record AnalyticsResponse(
+        LocalDate from,
+        LocalDate to,
+        List<Day> days,
+        Map<String, Long> tierDistribution) {
+
+    /**
+     * Counters of one day, e.g. {"SCANS": {"FREE": 12, "PRO": 40}, "VERIFICATIONS": {"ALL": 3}}.
+     */
+    public record Day(LocalDate day, Map<AnalyticsMetric, Map<String, Long>> metrics) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.auth.backend.dto;
+
+import java.util.List;
+
+import com.auth.backend.enums.AccountTier;
+import com.auth.backend.enums.Role;
+
+import lombok.Data;
+
+/**
+ * Selects the users of a bulk admin operation, either by id or by filter, never both.
+ * role is only read by role changes, tier only by tier changes.
+ */
+@Data
+public class BulkUserRequest {
+    private List<Integer> ids;
+    private UserFilter filter;
+    private Role role;
+    private AccountTier tier;
+}
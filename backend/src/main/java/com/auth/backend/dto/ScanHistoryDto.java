@@ -4,21 +4,27 @@ import java.time.LocalDateTime;
 
 import com.auth.backend.model.ScanHistory;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
 @Data
 @Builder
+@AllArgsConstructor
 public class ScanHistoryDto {
     private Integer id;
     private String url;
     private LocalDateTime createdAt;
 
+    // Whether GET /api/v1/scans/{id}/report has something to return
+    private boolean hasReport;
+
     public static ScanHistoryDto fromEntity(ScanHistory entity) {
         return ScanHistoryDto.builder()
             .id(entity.getId())
             .url(entity.getUrl())
             .createdAt(entity.getCreatedAt())
+            .hasReport(entity.getReport() != null)
             .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.auth.backend.dto;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+@AllArgsConstructor
+public class ScanResultDto {
+    private String url;
+
+    // Already JSON, so it is written as is instead of being parsed and serialized again
+    @JsonRawValue
+    private String report;
+
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,20 @@
+package com.auth.backend.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Estimated scan figures of a date range. Distinct counts are within about 1% of the truth;
+ * URL counts are never below the true count and at most about 0.2% of all scans above it.
+ */
+public record ScanSketchResponse(
+        LocalDate from,
+        LocalDate to,
+        long scans,
+        long uniqueHosts,
+        long uniqueUsers,
+        List<UrlCount> topUrls) {
+
+    public record UrlCount(String url, long count) {
+    }
+}
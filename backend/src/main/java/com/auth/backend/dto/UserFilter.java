@@ -0,0 +1,21 @@
+package com.auth.backend.dto;
+
+import java.time.LocalDateTime;
+
+import com.auth.backend.enums.AccountTier;
+import com.auth.backend.enums.AuthProvider;
+import com.auth.backend.enums.Role;
+
+/**
+ * Filters of the admin user listing. Null fields do not filter; createdFrom is inclusive, createdTo exclusive.
+ * search matches a part of the name or email, ignoring case.
+ */
+public record UserFilter(
+        Role role,
+        AuthProvider authProvider,
+        AccountTier accountTier,
+        Boolean enabled,
+        LocalDateTime createdFrom,
+        LocalDateTime createdTo,
+        String search) {
+}
@@ -1,14 +1,17 @@
 package com.auth.backend.dto;
 
+import com.auth.backend.enums.AccountTier;
 import com.auth.backend.enums.Role;
 import com.auth.backend.enums.AuthProvider;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
 @Data
 @Builder
+@AllArgsConstructor
 public class UserResponse {
     private Integer id;
     private String name;
@@ -19,4 +22,7 @@ public class UserResponse {
     
     @JsonProperty("has_selected_tier")
     private boolean hasSelectedTier;
+
+    // Null for legacy users without a usage record
+    private AccountTier accountTier;
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.auth.backend.dto;
+
+import java.time.LocalDateTime;
+
+import com.auth.backend.enums.AccountTier;
+import com.auth.backend.enums.AuthProvider;
+import com.auth.backend.enums.Role;
+import com.auth.backend.model.User;
+import com.auth.backend.model.UserUsage;
+
+/**
+ * Immutable copy of the rarely changing fields of a user and their tier, as held by the user near-cache.
+ * Holds the password hash for the login check, so it is never returned to clients as is.
+ *
+ * @param accountTier null for legacy users without a usage record
+ */
+public record UserSnapshot(
+        Integer id,
+        String name,
+        String email,
+        String password,
+        Role role,
+        AuthProvider authProvider,
+        boolean enabled,
+        int securityVersion,
+        LocalDateTime createdAt,
+        AccountTier accountTier,
+        Boolean hasSelectedTier) {
+
+    /**
+     * A detached User for code that expects UserDetails. Must not be saved: it lacks the
+     * verification fields and relationships of the stored user.
+     */
+    public User toUser() {
+        User user = User.builder()
+                .id(id)
+                .name(name)
+                .email(email)
+                .password(password)
+                .role(role)
+                .authProvider(authProvider)
+                .enabled(enabled)
+                .securityVersion(securityVersion)
+                .createdAt(createdAt)
+                .build();
+        if (accountTier != null) {
+            user.setUserUsage(UserUsage.builder()
+                    .user(user)
+                    .accountTier(accountTier)
+                    .hasSelectedTier(Boolean.TRUE.equals(hasSelectedTier))
+                    .build());
+        }
+        return user;
+    }
+
+    public UserResponse toUserResponse() {
+        return new UserResponse(id, name, email, role, createdAt, authProvider,
+                Boolean.TRUE.equals(hasSelectedTier), accountTier);
+    }
+}
@@ -0,0 +1,14 @@
+package com.auth.backend.enums;
+
+/**
+ * Counters kept per day by the analytics service. Each metric is broken down by one dimension.
+ */
+public enum AnalyticsMetric {
+    SIGNUPS,         // by auth provider
+    VERIFICATIONS,   // ALL
+    ACTIVE_USERS,    // users with at least one counted request, by tier
+    REQUESTS,        // counted quota requests, by tier
+    SCANS,           // recorded scans, by tier
+    TIER_SELECTIONS, // by selected tier
+    TIER_USERS,      // snapshot of users per tier, not a daily delta
+}
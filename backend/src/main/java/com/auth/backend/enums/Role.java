@@ -2,5 +2,7 @@ package com.auth.backend.enums;
 
 public enum Role {
 	USER,
-    ADMIN;
+    ADMIN,
+    // Service account of the scan workers
+    AGENT;
 }
@@ -0,0 +1,10 @@
+package com.auth.backend.enums;
+
+public enum ScanStatus {
+    // Waiting for an agent worker to claim it
+    QUEUED,
+    // Claimed by a worker until its visibility timeout
+    RUNNING,
+    COMPLETED,
+    FAILED,
+}
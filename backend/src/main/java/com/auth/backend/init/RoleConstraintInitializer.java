@@ -0,0 +1,57 @@
+package com.auth.backend.init;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.auth.backend.enums.Role;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Hibernate guards _user.role with a check constraint listing the roles that existed when the table
+ * was created, and schema update never touches it again. The constraint is rebuilt from Role when a
+ * role is missing from it, so new roles can be assigned on existing databases.
+ */
+@Component
+@DependsOn("entityManagerFactory") // Hibernate creates the table during schema update
+@RequiredArgsConstructor
+public class RoleConstraintInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(RoleConstraintInitializer.class);
+
+    private static final String CONSTRAINT = "_user_role_check";
+
+    private static final String FIND_CONSTRAINT_SQL = """
+            select pg_get_constraintdef(oid) from pg_constraint
+            where conrelid = '_user'::regclass and conname = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void updateConstraint() {
+        List<String> definition = jdbcTemplate.queryForList(FIND_CONSTRAINT_SQL, String.class, CONSTRAINT);
+        if (definition.isEmpty()
+                || Arrays.stream(Role.values()).allMatch(role -> definition.get(0).contains("'" + role.name() + "'"))) {
+            return;
+        }
+        String roles = Arrays.stream(Role.values())
+                .map(role -> "'" + role.name() + "'")
+                .collect(Collectors.joining(", "));
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("alter table _user drop constraint " + CONSTRAINT);
+            jdbcTemplate.execute("alter table _user add constraint " + CONSTRAINT + " check (role in (" + roles + "))");
+        });
+        log.info("Constraint {} now allows roles {}", CONSTRAINT, roles);
+    }
+}
@@ -0,0 +1,37 @@
+package com.auth.backend.init;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * scan_history ids used to come from an IDENTITY column. The pooled scan_history_seq created by
+ * Hibernate starts at 1, so it is moved past the existing ids before the application serves requests.
+ */
+@Component
+@DependsOn("entityManagerFactory") // Hibernate creates the sequence during schema update
+@RequiredArgsConstructor
+public class ScanHistorySequenceInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(ScanHistorySequenceInitializer.class);
+
+    // The pooled optimizer hands out the ids up to the value it fetched, so the sequence must reach max(id)
+    private static final String ALIGN_SEQUENCE_SQL = """
+            select setval('scan_history_seq', greatest(
+                (select coalesce(max(id), 0) from scan_history),
+                (select last_value from scan_history_seq)))
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    void alignSequence() {
+        Long value = jdbcTemplate.queryForObject(ALIGN_SEQUENCE_SQL, Long.class);
+        log.info("scan_history_seq aligned at {}", value);
+    }
+}
@@ -0,0 +1,38 @@
+package com.auth.backend.init;
+
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Partial indexes for the scan job queue, which JPA cannot declare. They only hold the few rows that
+ * are queued or running, so claiming a job and finding expired claims stay cheap however long the
+ * scan history grows.
+ */
+@Component
+@DependsOn("entityManagerFactory") // Hibernate adds the status columns during schema update
+@RequiredArgsConstructor
+public class ScanJobIndexInitializer {
+
+    // Serves the per-user ranking of the claim, in the order it numbers the jobs
+    private static final String QUEUED_INDEX_SQL = """
+            create index if not exists idx_scan_history_queued
+            on scan_history (user_id, created_at, id) where status = 'QUEUED'
+            """;
+
+    private static final String RUNNING_INDEX_SQL = """
+            create index if not exists idx_scan_history_running
+            on scan_history (visible_until) where status = 'RUNNING'
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    void createIndexes() {
+        jdbcTemplate.execute(QUEUED_INDEX_SQL);
+        jdbcTemplate.execute(RUNNING_INDEX_SQL);
+    }
+}
@@ -0,0 +1,28 @@
+package com.auth.backend.init;
+
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Stores report contents out of line without compression. They are gzip already, and Postgres can
+ * only read a slice of an uncompressed value without fetching all of it, which is how downloads
+ * stream reports. The setting applies to reports stored from then on.
+ */
+@Component
+@DependsOn("entityManagerFactory") // Hibernate creates scan_report during schema update
+@RequiredArgsConstructor
+public class ScanReportStorageInitializer {
+
+    private static final String STORAGE_SQL = "alter table scan_report alter column content set storage external";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    void setStorage() {
+        jdbcTemplate.execute(STORAGE_SQL);
+    }
+}
@@ -0,0 +1,57 @@
+package com.auth.backend.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+import com.auth.backend.enums.AnalyticsMetric;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One counter of one day, e.g. (2025-03-01, SCANS, PRO) = 1234.
+ * Written only by AnalyticsService, which adds to the value instead of replacing it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "analytics_daily")
+@IdClass(DailyAnalytics.Key.class)
+public class DailyAnalytics {
+
+    @Id
+    private LocalDate day;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 32)
+    private AnalyticsMetric metric;
+
+    // Tier, auth provider or ALL, depending on the metric
+    @Id
+    @Column(length = 32)
+    private String dimension;
+
+    @Column(nullable = false)
+    private long value;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDate day;
+        private AnalyticsMetric metric;
+        private String dimension;
+    }
+}
@@ -2,18 +2,24 @@ package com.auth.backend.model;
 
 import java.time.LocalDateTime;
 
-import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.ColumnDefault;
 
+import com.auth.backend.enums.ScanStatus;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -25,17 +31,24 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "scan_history")
+@Table(name = "scan_history", indexes = {
+    // Serves the keyset-paginated history of one user, newest first
+    @Index(name = "idx_scan_history_user_created", columnList = "user_id, created_at DESC, id"),
+    // Lets the cleanup find reports that no scan refers to any more
+    @Index(name = "idx_scan_history_report_hash", columnList = "report_hash")
+})
 public class ScanHistory {
 
+    // Pooled sequence instead of IDENTITY, so inserts can be batched; one round trip reserves 50 ids
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "scan_history_seq")
+    @SequenceGenerator(name = "scan_history_seq", sequenceName = "scan_history_seq", allocationSize = 50)
     private Integer id;
 
     @Column(nullable = false)
     private String url;
 
-    @CreationTimestamp
+    // Set when the scan is accepted, which may be before the row is written
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -44,4 +57,39 @@ public class ScanHistory {
     @JoinColumn(name = "user_id", nullable = false)
     @JsonIgnore 
     private User user;
+
+    // Report of the scan, if the agent uploaded one; identical reports share one row
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "report_hash")
+    @JsonIgnore
+    private ScanReport report;
+
+    // --- Job Queue ---
+
+    // Scans recorded after the agent ran them inline are complete from the start
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    @ColumnDefault("'COMPLETED'")
+    @Builder.Default
+    private ScanStatus status = ScanStatus.COMPLETED;
+
+    // Number of times a worker has claimed the job
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private int attempts = 0;
+
+    // Worker that holds the job while it is RUNNING
+    @Column(length = 128)
+    private String workerId;
+
+    // A RUNNING job whose worker has not sent a heartbeat by then is queued again
+    private LocalDateTime visibleUntil;
+
+    @PrePersist
+    void setCreatedAtIfMissing() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.auth.backend.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Basic;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Gzip-compressed report JSON, stored once per distinct content and shared by every scan
+ * whose report has the same SHA-256.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "scan_report")
+public class ScanReport {
+
+    // Hex SHA-256 of the uncompressed report
+    @Id
+    @Column(length = 64)
+    private String contentHash;
+
+    @Basic(fetch = FetchType.LAZY)
+    @Column(nullable = false, columnDefinition = "bytea")
+    @ToString.Exclude
+    private byte[] content;
+
+    @Column(nullable = false)
+    private int originalSize;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,40 @@
+package com.auth.backend.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Latest finished report for a normalized URL, shared by all users.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "scan_result")
+public class ScanResult {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, columnDefinition = "text")
+    private String normalizedUrl;
+
+    // Report JSON as produced by the agent
+    @Column(nullable = false, columnDefinition = "text")
+    private String report;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
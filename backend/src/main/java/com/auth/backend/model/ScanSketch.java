@@ -0,0 +1,56 @@
+package com.auth.backend.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Serialized sketch of one day's scans, merged from every instance by ScanSketchService.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "scan_sketch")
+@IdClass(ScanSketch.Key.class)
+public class ScanSketch {
+
+    public enum Kind {
+        HOSTS, // HyperLogLog of scanned hosts
+        USERS, // HyperLogLog of scanning users
+        URLS,  // Count-Min sketch and top candidates of normalized URLs
+    }
+
+    @Id
+    private LocalDate day;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private Kind kind;
+
+    @Column(nullable = false, columnDefinition = "bytea")
+    @ToString.Exclude
+    private byte[] data;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDate day;
+        private Kind kind;
+    }
+}
@@ -6,6 +6,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -14,10 +15,12 @@ import org.springframework.security.core.userdetails.UserDetails;
 import com.auth.backend.dto.UserResponse;
 import com.auth.backend.enums.AuthProvider;
 import com.auth.backend.enums.Role;
+import com.auth.backend.service.UserCacheInvalidationListener;
 
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
@@ -40,9 +43,12 @@ import lombok.Setter;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@EntityListeners(UserCacheInvalidationListener.class)
 @Table(name = "_user",
         indexes = {
-                @Index(name = "idx_user_email", columnList = "email", unique = true)
+                @Index(name = "idx_user_email", columnList = "email", unique = true),
+                // Serves the admin listing, which is sorted and filtered by creation time by default
+                @Index(name = "idx_user_created_at", columnList = "created_at DESC, id")
         }
 )
 public class User implements UserDetails {
@@ -84,6 +90,15 @@ public class User implements UserDetails {
 
     private LocalDateTime codeExpiration;
 
+    // --- Token Revocation ---
+
+    // Bumped whenever the user's authorities change or the account is removed.
+    // Access tokens carry the version they were issued with, so older tokens stop validating.
+    @Column(name = "security_version", nullable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private int securityVersion = 0;
+
     // --- Relationships ---
 
     // 1. Connection to ScanHistory (One User -> Many Scans)
@@ -135,6 +150,7 @@ public class User implements UserDetails {
                 .createdAt(this.createdAt)
                 .authProvider(this.authProvider)
                 .hasSelectedTier(tierSelected)
+                .accountTier(this.userUsage != null ? this.userUsage.getAccountTier() : null)
                 .build();
     }
 }
\ No newline at end of file
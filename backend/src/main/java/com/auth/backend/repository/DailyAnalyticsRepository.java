@@ -0,0 +1,29 @@
+package com.auth.backend.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.auth.backend.model.DailyAnalytics;
+
+public interface DailyAnalyticsRepository extends JpaRepository<DailyAnalytics, DailyAnalytics.Key> {
+    /**
+     * Every counter of the days in [from, to]. Served from the primary key index.
+     */
+    @Query("select d from DailyAnalytics d where d.day between :from and :to")
+    List<DailyAnalytics> findByDayBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * The most recent snapshot of users per tier.
+     */
+    @Query("""
+            select d from DailyAnalytics d
+            where d.metric = com.auth.backend.enums.AnalyticsMetric.TIER_USERS
+              and d.day = (select max(s.day) from DailyAnalytics s
+                           where s.metric = com.auth.backend.enums.AnalyticsMetric.TIER_USERS)
+            """)
+    List<DailyAnalytics> findLatestTierSnapshot();
+}
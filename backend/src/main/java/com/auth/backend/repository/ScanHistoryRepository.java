@@ -1,12 +1,64 @@
 package com.auth.backend.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import com.auth.backend.dto.ScanHistoryDto;
 import com.auth.backend.model.ScanHistory;
-import com.auth.backend.model.User;
 
 public interface ScanHistoryRepository extends JpaRepository<ScanHistory, Integer> {
-    List<ScanHistory> findByUserOrderByCreatedAtDesc(User user);
-}
\ No newline at end of file
+    /**
+     * First page of a user's history, newest first. Rows with the same timestamp are ordered by id
+     * so the order matches idx_scan_history_user_created and the cursor is unambiguous.
+     */
+    @Query("""
+            select new com.auth.backend.dto.ScanHistoryDto(s.id, s.url, s.createdAt,
+                    case when s.report is not null then true else false end)
+            from ScanHistory s
+            where s.user.email = :email
+            order by s.createdAt desc, s.id asc
+            """)
+    List<ScanHistoryDto> findPageByEmail(@Param("email") String email, Limit limit);
+
+    /**
+     * Page of a user's history that follows the row at (createdAt, id).
+     */
+    @Query("""
+            select new com.auth.backend.dto.ScanHistoryDto(s.id, s.url, s.createdAt,
+                    case when s.report is not null then true else false end)
+            from ScanHistory s
+            where s.user.email = :email
+              and (s.createdAt < :createdAt or (s.createdAt = :createdAt and s.id > :id))
+            order by s.createdAt desc, s.id asc
+            """)
+    List<ScanHistoryDto> findPageByEmailAfter(
+            @Param("email") String email,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Integer id,
+            Limit limit);
+
+    @Modifying
+    @Query("delete from ScanHistory s where s.user.id in :userIds")
+    int deleteByUserIds(@Param("userIds") Collection<Integer> userIds);
+
+    /**
+     * Points the scan at its report, if the scan belongs to the user.
+     *
+     * @return 1 if the scan was updated, 0 if it does not exist or belongs to someone else
+     */
+    @Modifying
+    @Query(value = """
+            update scan_history s
+            set report_hash = :contentHash
+            from _user u
+            where u.id = s.user_id and s.id = :scanId and u.email = :email
+            """, nativeQuery = true)
+    int attachReport(@Param("scanId") Integer scanId, @Param("email") String email, @Param("contentHash") String contentHash);
+}
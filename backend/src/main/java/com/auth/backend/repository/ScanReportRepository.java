@@ -0,0 +1,63 @@
+package com.auth.backend.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.auth.backend.model.ScanReport;
+
+public interface ScanReportRepository extends JpaRepository<ScanReport, String> {
+
+    /**
+     * Everything about a stored report but its content.
+     */
+    interface ReportMetadata {
+        String getContentHash();
+        int getCompressedSize();
+        int getOriginalSize();
+    }
+
+    /**
+     * Stores the report unless a report with the same content is already stored.
+     *
+     * @return 1 if the report was new, 0 if it was a duplicate
+     */
+    @Modifying
+    @Query(value = """
+            insert into scan_report (content_hash, content, original_size, created_at)
+            values (:contentHash, :content, :originalSize, :createdAt)
+            on conflict (content_hash) do nothing
+            """, nativeQuery = true)
+    int insertIfAbsent(
+            @Param("contentHash") String contentHash,
+            @Param("content") byte[] content,
+            @Param("originalSize") int originalSize,
+            @Param("createdAt") LocalDateTime createdAt);
+
+    @Query(value = """
+            select r.content_hash as contentHash, octet_length(r.content) as compressedSize,
+                   r.original_size as originalSize
+            from scan_history s
+            join _user u on u.id = s.user_id
+            join scan_report r on r.content_hash = s.report_hash
+            where s.id = :scanId and u.email = :email
+            """, nativeQuery = true)
+    Optional<ReportMetadata> findMetadataByScanIdAndEmail(@Param("scanId") Integer scanId, @Param("email") String email);
+
+    /**
+     * Deletes reports that no scan refers to any more, e.g. after their users were deleted.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            delete from scan_report r
+            where r.created_at < :cutoff
+              and not exists (select 1 from scan_history s where s.report_hash = r.content_hash)
+            """, nativeQuery = true)
+    int deleteUnreferencedCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,38 @@
+package com.auth.backend.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.auth.backend.model.ScanResult;
+
+public interface ScanResultRepository extends JpaRepository<ScanResult, Long> {
+    Optional<ScanResult> findByNormalizedUrl(String normalizedUrl);
+
+    /**
+     * Stores the report as the latest result for the URL, replacing an older one in the same statement.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            insert into scan_result (normalized_url, report, created_at)
+            values (:normalizedUrl, :report, :createdAt)
+            on conflict (normalized_url) do update
+            set report = excluded.report, created_at = excluded.created_at
+            where scan_result.created_at <= excluded.created_at
+            """, nativeQuery = true)
+    int upsert(
+            @Param("normalizedUrl") String normalizedUrl,
+            @Param("report") String report,
+            @Param("createdAt") LocalDateTime createdAt);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ScanResult r where r.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
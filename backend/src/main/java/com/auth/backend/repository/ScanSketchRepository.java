@@ -0,0 +1,38 @@
+package com.auth.backend.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.auth.backend.model.ScanSketch;
+
+import jakarta.persistence.LockModeType;
+
+public interface ScanSketchRepository extends JpaRepository<ScanSketch, ScanSketch.Key> {
+    @Query("select s from ScanSketch s where s.day between :from and :to")
+    List<ScanSketch> findByDayBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Locks the day's sketch so concurrent flushes from several instances merge one after another.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from ScanSketch s where s.day = :day and s.kind = :kind")
+    Optional<ScanSketch> findForUpdate(@Param("day") LocalDate day, @Param("kind") ScanSketch.Kind kind);
+
+    /**
+     * @return 1 if the day had no sketch of this kind yet, 0 if it has one that must be merged into
+     */
+    @Modifying
+    @Query(value = """
+            insert into scan_sketch (day, kind, data)
+            values (:day, :kind, :data)
+            on conflict (day, kind) do nothing
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("day") LocalDate day, @Param("kind") String kind, @Param("data") byte[] data);
+}
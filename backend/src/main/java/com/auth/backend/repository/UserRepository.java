@@ -1,9 +1,66 @@
 package com.auth.backend.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.auth.backend.dto.UserSnapshot;
+import com.auth.backend.enums.AccountTier;
+import com.auth.backend.enums.Role;
 import com.auth.backend.model.User;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface UserRepository extends JpaRepository<User, Integer> {
+public interface UserRepository extends JpaRepository<User, Integer>, UserRepositoryCustom {
     Optional<User> findByEmail(String username);
+
+    /**
+     * The user and their tier in one statement, without loading either entity.
+     */
+    @Query("""
+            select new com.auth.backend.dto.UserSnapshot(u.id, u.name, u.email, u.password, u.role, u.authProvider,
+                    u.enabled, u.securityVersion, u.createdAt, uu.accountTier, uu.hasSelectedTier)
+            from User u left join u.userUsage uu
+            where u.email = :email
+            """)
+    Optional<UserSnapshot> findSnapshotByEmail(@Param("email") String email);
+
+    @Query("select u.email from User u where u.id = :id")
+    Optional<String> findEmailById(@Param("id") Integer id);
+
+    @Query("select u.securityVersion from User u where u.email = :email")
+    Optional<Integer> findSecurityVersionByEmail(@Param("email") String email);
+
+    interface UserIdAndEmail {
+        Integer getId();
+        String getEmail();
+        // Null if the user has no usage record
+        AccountTier getAccountTier();
+    }
+
+    @Query("""
+            select u.id as id, u.email as email, uu.accountTier as accountTier
+            from User u left join u.userUsage uu
+            where u.email in :emails
+            """)
+    List<UserIdAndEmail> findIdsByEmailIn(@Param("emails") Collection<String> emails);
+
+    /**
+     * Deletes the users without loading them. Their scan history and usage rows must be deleted first.
+     */
+    @Modifying
+    @Query("delete from User u where u.id in :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Sets the role of the users that do not have it yet and bumps their security version.
+     */
+    @Modifying
+    @Query("""
+            update User u set u.role = :role, u.securityVersion = u.securityVersion + 1
+            where u.id in :ids and u.role <> :role
+            """)
+    int updateRole(@Param("ids") Collection<Integer> ids, @Param("role") Role role);
 }
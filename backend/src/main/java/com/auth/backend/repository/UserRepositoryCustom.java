@@ -0,0 +1,38 @@
+package com.auth.backend.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import com.auth.backend.dto.UserFilter;
+import com.auth.backend.dto.UserResponse;
+
+public interface UserRepositoryCustom {
+
+    // Properties the user listing can be sorted by
+    Set<String> SORTABLE_PROPERTIES = Set.of("id", "name", "email", "role", "createdAt", "authProvider", "accountTier");
+
+    /**
+     * One page of users matching the filter, selected straight into UserResponse with the usage
+     * columns joined in, so no User or UserUsage entity is loaded.
+     *
+     * The page may only be sorted by {@link #SORTABLE_PROPERTIES}.
+     */
+    Page<UserResponse> findUserResponses(UserFilter filter, Pageable pageable);
+
+    record UserKey(Integer id, String email) {
+    }
+
+    /**
+     * Ids and emails of the users matching the filter, in id order.
+     */
+    List<UserKey> findUserKeys(UserFilter filter);
+
+    /**
+     * Ids and emails of the users with the given ids that exist, in id order.
+     */
+    List<UserKey> findUserKeysByIds(Collection<Integer> ids);
+}
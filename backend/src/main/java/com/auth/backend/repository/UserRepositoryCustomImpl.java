@@ -0,0 +1,161 @@
+package com.auth.backend.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import com.auth.backend.dto.UserFilter;
+import com.auth.backend.dto.UserResponse;
+import com.auth.backend.model.User;
+import com.auth.backend.model.UserUsage;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    private record Paths(Root<User> user, Join<User, UserUsage> usage) {
+    }
+
+    // One entry per SORTABLE_PROPERTIES
+    private static final Map<String, Function<Paths, Expression<?>>> SORTABLE = Map.of(
+            "id", paths -> paths.user().get("id"),
+            "name", paths -> paths.user().get("name"),
+            "email", paths -> paths.user().get("email"),
+            "role", paths -> paths.user().get("role"),
+            "createdAt", paths -> paths.user().get("createdAt"),
+            "authProvider", paths -> paths.user().get("authProvider"),
+            "accountTier", paths -> paths.usage().get("accountTier"));
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<UserResponse> findUserResponses(UserFilter filter, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<UserResponse> query = cb.createQuery(UserResponse.class);
+        Root<User> user = query.from(User.class);
+        Paths paths = new Paths(user, user.join("userUsage", JoinType.LEFT));
+        query.select(cb.construct(UserResponse.class,
+                        user.get("id"),
+                        user.get("name"),
+                        user.get("email"),
+                        user.get("role"),
+                        user.get("createdAt"),
+                        user.get("authProvider"),
+                        cb.coalesce(paths.usage().<Boolean>get("hasSelectedTier"), false),
+                        paths.usage().get("accountTier")))
+                .where(predicates(cb, user, paths.usage(), filter))
+                .orderBy(orders(cb, paths, pageable.getSort()));
+
+        List<UserResponse> content = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+        // The count only runs when the page alone does not tell the total
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(filter));
+    }
+
+    @Override
+    public List<UserKey> findUserKeys(UserFilter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserKey> query = cb.createQuery(UserKey.class);
+        Root<User> user = query.from(User.class);
+        Join<User, UserUsage> usage = filter.accountTier() == null ? null : user.join("userUsage", JoinType.INNER);
+        query.select(cb.construct(UserKey.class, user.get("id"), user.get("email")))
+                .where(predicates(cb, user, usage, filter))
+                .orderBy(cb.asc(user.get("id")));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public List<UserKey> findUserKeysByIds(Collection<Integer> ids) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserKey> query = cb.createQuery(UserKey.class);
+        Root<User> user = query.from(User.class);
+        query.select(cb.construct(UserKey.class, user.get("id"), user.get("email")))
+                .where(user.get("id").in(ids))
+                .orderBy(cb.asc(user.get("id")));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    private long count(UserFilter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<User> user = query.from(User.class);
+        // Only join the usage row when it is filtered on
+        Join<User, UserUsage> usage = filter.accountTier() == null ? null : user.join("userUsage", JoinType.INNER);
+        query.select(cb.count(user)).where(predicates(cb, user, usage, filter));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static Predicate[] predicates(CriteriaBuilder cb, Root<User> user, From<?, UserUsage> usage, UserFilter filter) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.role() != null) {
+            predicates.add(cb.equal(user.get("role"), filter.role()));
+        }
+        if (filter.authProvider() != null) {
+            predicates.add(cb.equal(user.get("authProvider"), filter.authProvider()));
+        }
+        if (filter.accountTier() != null) {
+            predicates.add(cb.equal(usage.get("accountTier"), filter.accountTier()));
+        }
+        if (filter.enabled() != null) {
+            predicates.add(cb.equal(user.get("enabled"), filter.enabled()));
+        }
+        if (filter.createdFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(user.get("createdAt"), filter.createdFrom()));
+        }
+        if (filter.createdTo() != null) {
+            predicates.add(cb.lessThan(user.get("createdAt"), filter.createdTo()));
+        }
+        if (filter.search() != null && !filter.search().isBlank()) {
+            String pattern = "%" + escapeLike(filter.search().strip().toLowerCase(Locale.ROOT)) + "%";
+            predicates.add(cb.or(
+                    cb.like(cb.lower(user.get("name")), pattern, '\\'),
+                    cb.like(cb.lower(user.get("email")), pattern, '\\')));
+        }
+        return predicates.toArray(Predicate[]::new);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static List<Order> orders(CriteriaBuilder cb, Paths paths, Sort sort) {
+        List<Order> orders = new ArrayList<>();
+        boolean sortedById = false;
+        for (Sort.Order order : sort) {
+            Function<Paths, Expression<?>> property = SORTABLE.get(order.getProperty());
+            if (property == null) {
+                throw new IllegalArgumentException("Cannot sort users by '" + order.getProperty() + "'");
+            }
+            Expression<?> expression = property.apply(paths);
+            orders.add(order.isAscending() ? cb.asc(expression) : cb.desc(expression));
+            sortedById |= order.getProperty().equals("id");
+        }
+        // Ties are broken by id so rows cannot move between pages
+        if (!sortedById) {
+            orders.add(cb.asc(paths.user().get("id")));
+        }
+        return orders;
+    }
+}
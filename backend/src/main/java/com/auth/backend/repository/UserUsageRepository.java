@@ -1,12 +1,112 @@
 package com.auth.backend.repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.auth.backend.enums.AccountTier;
 import com.auth.backend.model.User;
 import com.auth.backend.model.UserUsage;
 
 public interface UserUsageRepository extends JpaRepository<UserUsage, Integer> {
     Optional<UserUsage> findByUser(User user);
-}
\ No newline at end of file
+
+    /**
+     * Daily counter and tier of a user, as read or written by the quota queries.
+     */
+    interface QuotaUsage {
+        Integer getUserId();
+        AccountTier getAccountTier();
+        boolean isHasSelectedTier();
+        int getDailyRequestCount();
+        LocalDate getLastRequestDate();
+    }
+
+    /**
+     * Usage after a counted request; firstOfDay is set when the request started a new day.
+     */
+    interface IncrementedUsage extends QuotaUsage {
+        boolean isFirstOfDay();
+    }
+
+    /**
+     * Resets the counter on a new day and counts one request, but only while the user is below
+     * the limit of their tier. Both happen in one statement, so concurrent requests can never
+     * push the counter past the limit. The row is locked before it is read, so exactly one request
+     * sees the day roll over.
+     *
+     * @return the updated usage, or empty if the limit is reached or the user has no usage record
+     */
+    @Transactional
+    @Query(value = """
+            with previous as (
+                select uu.user_id, uu.last_request_date
+                from user_usage uu join _user u on u.id = uu.user_id
+                where u.email = :email
+                for update of uu
+            )
+            update user_usage uu
+            set daily_request_count = case when uu.last_request_date = :today then uu.daily_request_count + 1 else 1 end,
+                last_request_date = :today
+            from previous p
+            where uu.user_id = p.user_id
+              and (uu.last_request_date is distinct from :today
+                   or uu.daily_request_count < case when uu.account_tier = 'PRO' then :proLimit else :freeLimit end)
+            returning uu.user_id as userId,
+                      uu.account_tier as accountTier,
+                      uu.has_selected_tier as hasSelectedTier,
+                      uu.daily_request_count as dailyRequestCount,
+                      uu.last_request_date as lastRequestDate,
+                      p.last_request_date is distinct from :today as firstOfDay
+            """, nativeQuery = true)
+    Optional<IncrementedUsage> incrementIfBelowLimit(
+            @Param("email") String email,
+            @Param("today") LocalDate today,
+            @Param("freeLimit") int freeLimit,
+            @Param("proLimit") int proLimit);
+
+    /**
+     * Gives back one request counted on the given day. Does nothing once the day has rolled over.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            update user_usage uu
+            set daily_request_count = uu.daily_request_count - 1
+            from _user u
+            where u.id = uu.user_id
+              and u.email = :email
+              and uu.last_request_date = :day
+              and uu.daily_request_count > 0
+            """, nativeQuery = true)
+    int decrementForDay(@Param("email") String email, @Param("day") LocalDate day);
+
+    @Query("""
+            select uu.user.id as userId, uu.accountTier as accountTier, uu.hasSelectedTier as hasSelectedTier,
+                   uu.dailyRequestCount as dailyRequestCount, uu.lastRequestDate as lastRequestDate
+            from UserUsage uu where uu.user.email = :email
+            """)
+    Optional<QuotaUsage> findQuotaUsageByEmail(@Param("email") String email);
+
+    @Modifying
+    @Query("delete from UserUsage uu where uu.user.id in :userIds")
+    int deleteByUserIds(@Param("userIds") Collection<Integer> userIds);
+
+    /**
+     * Sets the tier of the users as if they had selected it, creating missing usage rows.
+     */
+    @Modifying
+    @Query(value = """
+            insert into user_usage (user_id, account_tier, has_selected_tier, daily_request_count)
+            select u.id, :tier, true, 0 from _user u where u.id in :userIds
+            on conflict (user_id) do update
+            set account_tier = excluded.account_tier, has_selected_tier = true
+            """, nativeQuery = true)
+    int upsertTier(@Param("userIds") Collection<Integer> userIds, @Param("tier") String tier);
+}
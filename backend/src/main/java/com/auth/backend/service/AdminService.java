@@ -1,16 +1,29 @@
 package com.auth.backend.service;
 
 import java.util.List;
-import java.util.stream.Collectors;
-
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.auth.backend.dto.BulkUserRequest;
+import com.auth.backend.dto.UserFilter;
 import com.auth.backend.dto.UserResponse;
+import com.auth.backend.enums.AccountTier;
 import com.auth.backend.enums.Role;
 import com.auth.backend.model.User;
+import com.auth.backend.repository.ScanHistoryRepository;
 import com.auth.backend.repository.UserRepository;
+import com.auth.backend.repository.UserRepositoryCustom.UserKey;
+import com.auth.backend.repository.UserUsageRepository;
 
 import lombok.RequiredArgsConstructor;
 
@@ -20,6 +33,25 @@ import lombok.RequiredArgsConstructor;
 public class AdminService {
 
     private final UserRepository userRepository;
+    private final SecurityVersionService securityVersionService;
+    private final LimitService limitService;
+    private final UserUsageRepository userUsageRepository;
+    private final ScanHistoryRepository scanHistoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final UserCacheService userCacheService;
+
+    @Value("${application.admin.users.max-page-size:200}")
+    private int maxUsersPageSize;
+
+    // Users per transaction of a bulk operation, so locks are held briefly and one failure does not undo everything
+    @Value("${application.admin.bulk.chunk-size:500}")
+    private int bulkChunkSize;
+
+    /**
+     * Outcome of a bulk operation: how many users matched and how many were changed.
+     */
+    public record BulkResult(int matched, int affected) {
+    }
 
     /**
      * Finds a user by ID or throws an exception.
@@ -37,22 +69,33 @@ public class AdminService {
     }
 
     /**
-     * Fetches all users and returns them as safe DTOs.
+     * Fetches one page of users matching the filter as safe DTOs.
+     * Page sizes above the configured maximum are capped.
+     *
+     * @throws IllegalArgumentException if the page is sorted by a property that cannot be sorted on
      */
-    public List<UserResponse> getAllUsers() {
-        return userRepository.findAll()
-                .stream()
-                .map(User::toUserResponse) 
-                .collect(Collectors.toList());
+    public Page<UserResponse> getUsers(UserFilter filter, Pageable pageable) {
+        for (Sort.Order order : pageable.getSort()) {
+            if (!UserRepository.SORTABLE_PROPERTIES.contains(order.getProperty())) {
+                throw new IllegalArgumentException("Cannot sort users by '" + order.getProperty() + "'");
+            }
+        }
+        if (pageable.getPageSize() > maxUsersPageSize) {
+            pageable = PageRequest.of(pageable.getPageNumber(), maxUsersPageSize, pageable.getSort());
+        }
+        return userRepository.findUserResponses(filter, pageable);
     }
 
     /**
      * Promotes a user to the ADMIN role.
+     * Bumps the security version so tokens issued with the old role stop validating.
      */
     public UserResponse promoteUser(Integer userId) {
         User user = findUserById(userId);
         user.setRole(Role.ADMIN);
+        user.setSecurityVersion(user.getSecurityVersion() + 1);
         userRepository.save(user);
+        securityVersionService.invalidate(user.getEmail());
         return user.toUserResponse();
     }
 
@@ -69,22 +112,139 @@ public class AdminService {
         }
 
         userToDemote.setRole(Role.USER);
+        userToDemote.setSecurityVersion(userToDemote.getSecurityVersion() + 1);
         userRepository.save(userToDemote);
+        securityVersionService.invalidate(userToDemote.getEmail());
         return userToDemote.toUserResponse();
     }
 
     /**
-     * Deletes a user by their ID.
+     * Deletes a user by their ID, together with their scan history, without loading either.
      * Prevents an admin from deleting themselves.
      */
     public void deleteUser(Integer userId) {
         String adminEmail = getAuthenticatedAdminEmail();
-        User userToDelete = findUserById(userId);
-
-        if (userToDelete.getEmail().equals(adminEmail)) {
+        List<UserKey> users = userRepository.findUserKeysByIds(List.of(userId));
+        if (users.isEmpty()) {
+            throw new UsernameNotFoundException("User not found with id: " + userId);
+        }
+        if (users.get(0).email().equals(adminEmail)) {
             throw new IllegalArgumentException("Admin cannot delete themselves.");
         }
+        deleteInChunks(users);
+    }
+
+    // --- Bulk Operations ---
+
+    /**
+     * Deletes the selected users with set-based statements, in chunks.
+     * The requesting admin is never deleted: listing them by id is an error, a filter skips them.
+     */
+    public BulkResult deleteUsers(BulkUserRequest request) {
+        List<UserKey> users = selectUsers(request, "Admin cannot delete themselves.");
+        return new BulkResult(users.size(), deleteInChunks(users));
+    }
+
+    /**
+     * Gives the selected users a role and revokes their tokens.
+     * The requesting admin cannot demote themselves: listing them by id is an error, a filter skips them.
+     */
+    public BulkResult changeRole(BulkUserRequest request) {
+        Role role = request.getRole();
+        if (role == null) {
+            throw new IllegalArgumentException("A role is required.");
+        }
+        List<UserKey> users = role == Role.ADMIN
+                ? selectUsers(request, null)
+                : selectUsers(request, "Admin cannot demote themselves.");
+        int affected = inChunks(users,
+                ids -> userRepository.updateRole(ids, role),
+                user -> {
+                    securityVersionService.invalidate(user.email());
+                    userCacheService.invalidate(user.email());
+                });
+        return new BulkResult(users.size(), affected);
+    }
+
+    /**
+     * Puts the selected users on a tier, as if they had selected it themselves.
+     */
+    public BulkResult changeTier(BulkUserRequest request) {
+        AccountTier tier = request.getTier();
+        if (tier == null) {
+            throw new IllegalArgumentException("A tier is required.");
+        }
+        List<UserKey> users = selectUsers(request, null);
+        int affected = inChunks(users,
+                ids -> userUsageRepository.upsertTier(ids, tier.name()),
+                user -> {
+                    userCacheService.invalidate(user.email());
+                    limitService.onTierSelected(user.email(), tier);
+                });
+        return new BulkResult(users.size(), affected);
+    }
+
+    private int deleteInChunks(List<UserKey> users) {
+        return inChunks(users,
+                ids -> {
+                    scanHistoryRepository.deleteByUserIds(ids);
+                    userUsageRepository.deleteByUserIds(ids);
+                    return userRepository.deleteAllByIdIn(ids);
+                },
+                user -> {
+                    securityVersionService.invalidate(user.email());
+                    userCacheService.invalidate(user.email());
+                    limitService.onUserDeleted(user.email());
+                });
+    }
+
+    /**
+     * Resolves the users a bulk request applies to.
+     *
+     * @param selfProtection message of the error raised when the admin lists themselves by id,
+     *                       or null if the operation may include the admin
+     */
+    private List<UserKey> selectUsers(BulkUserRequest request, String selfProtection) {
+        boolean byIds = request.getIds() != null && !request.getIds().isEmpty();
+        boolean byFilter = request.getFilter() != null && !isEmpty(request.getFilter());
+        if (byIds == byFilter) {
+            throw new IllegalArgumentException("Select users either by ids or by a non-empty filter.");
+        }
+
+        List<UserKey> users = byIds
+                ? userRepository.findUserKeysByIds(request.getIds())
+                : userRepository.findUserKeys(request.getFilter());
+        if (selfProtection == null) {
+            return users;
+        }
+        String adminEmail = getAuthenticatedAdminEmail();
+        if (byIds && users.stream().anyMatch(user -> user.email().equals(adminEmail))) {
+            throw new IllegalArgumentException(selfProtection);
+        }
+        return users.stream().filter(user -> !user.email().equals(adminEmail)).toList();
+    }
+
+    /**
+     * Runs the statement once per chunk of users, each chunk in its own transaction, and
+     * calls afterCommit for every user of a chunk once that chunk is committed.
+     *
+     * @return the sum of the rows the statement reported
+     */
+    private int inChunks(List<UserKey> users, Function<List<Integer>, Integer> statement, Consumer<UserKey> afterCommit) {
+        int affected = 0;
+        for (int from = 0; from < users.size(); from += bulkChunkSize) {
+            List<UserKey> chunk = users.subList(from, Math.min(from + bulkChunkSize, users.size()));
+            List<Integer> ids = chunk.stream().map(UserKey::id).toList();
+            Integer rows = transactionTemplate.execute(status -> statement.apply(ids));
+            affected += rows == null ? 0 : rows;
+            chunk.forEach(afterCommit);
+        }
+        return affected;
+    }
 
-        userRepository.deleteById(userId);
+    private static boolean isEmpty(UserFilter filter) {
+        return filter.role() == null && filter.authProvider() == null && filter.accountTier() == null
+                && filter.enabled() == null && filter.createdFrom() == null && filter.createdTo() == null
+                && (filter.search() == null || filter.search().isBlank());
     }
 }
\ No newline at end of file
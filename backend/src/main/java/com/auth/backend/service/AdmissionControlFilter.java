@@ -0,0 +1,269 @@
+package com.auth.backend.service;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.auth.backend.dto.UserSnapshot;
+import com.auth.backend.enums.AccountTier;
+import com.auth.backend.model.User;
+import com.auth.backend.service.WeightedFairScheduler.Admission;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Bounds how many requests of each endpoint class run at the same time and decides, by the caller's
+ * tier, who goes next. Requests that cannot start at once wait in a queue per priority lane and are
+ * dispatched by weighted fair scheduling, so PRO requests keep moving while FREE traffic saturates
+ * the service. Callers with a reserved authority (admins) have slots of their own and go first.
+ * A request that is not admitted within the queue timeout, or that finds the queue full, is answered
+ * with 503 and Retry-After instead of waiting for a pool connection.
+ *
+ * With virtual threads the container no longer limits concurrency, so this is what keeps a burst
+ * from piling up on the small connection pool. Separate endpoint classes keep slow work such as
+ * BCrypt logins or admin queries from taking the slots of the quota checks. Runs right after the
+ * security filters, which identify the caller; LoadSheddingFilter has already run before them.
+ * Actuator endpoints are not limited.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 1)
+@ConditionalOnProperty(name = "application.admission.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    /**
+     * Endpoint classes by path prefix, with their default concurrency. OTHER takes everything else.
+     */
+    public enum EndpointClass {
+        AUTH("/api/v1/auth/", 4),
+        SCANS("/api/v1/scans", 4),
+        USAGE("/api/v1/usage/", 8),
+        ADMIN("/api/v1/admin/", 2),
+        OTHER(null, 4);
+
+        private final String pathPrefix;
+        private final int defaultMaxConcurrent;
+
+        EndpointClass(String pathPrefix, int defaultMaxConcurrent) {
+            this.pathPrefix = pathPrefix;
+            this.defaultMaxConcurrent = defaultMaxConcurrent;
+        }
+
+        static EndpointClass of(String path) {
+            for (EndpointClass endpointClass : values()) {
+                if (endpointClass.pathPrefix != null && path.startsWith(endpointClass.pathPrefix)) {
+                    return endpointClass;
+                }
+            }
+            return OTHER;
+        }
+    }
+
+    /**
+     * Queues within an endpoint class, with their default weights. The weights follow the daily
+     * quotas, so a PRO user's requests are dispatched five times as often as a FREE user's.
+     */
+    public enum PriorityLane {
+        RESERVED(0),
+        PRO(5),
+        PREMIUM(1),
+        FREE(1),
+        ANONYMOUS(1);
+
+        private final int defaultWeight;
+
+        PriorityLane(int defaultWeight) {
+            this.defaultWeight = defaultWeight;
+        }
+
+        static PriorityLane of(AccountTier tier) {
+            if (tier == null) {
+                return FREE;
+            }
+            return switch (tier) {
+                case PRO -> PRO;
+                case PREMIUM -> PREMIUM;
+                case FREE -> FREE;
+            };
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+    private final UserCacheService userCacheService;
+
+    @Value("${application.admission.queue-timeout-ms:1000}")
+    private long queueTimeoutMs;
+
+    @Value("${application.admission.max-queue:200}")
+    private int maxQueue;
+
+    @Value("${application.admission.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+
+    @Value("${application.admission.reserved-slots:1}")
+    private int reservedSlots;
+
+    @Value("${application.admission.reserved-authorities:ADMIN,AGENT}")
+    private List<String> reservedAuthorities;
+
+    private final Map<EndpointClass, Lane> lanes = new EnumMap<>(EndpointClass.class);
+
+    private final class Lane {
+        final String tag;
+        final WeightedFairScheduler<PriorityLane> scheduler;
+        final AtomicInteger inFlight = new AtomicInteger();
+        final Map<PriorityLane, Timer> waitTimes = new EnumMap<>(PriorityLane.class);
+        final DistributionSummary queueDepth;
+
+        Lane(EndpointClass endpointClass, int maxConcurrent, Map<PriorityLane, Integer> weights) {
+            this.tag = endpointClass.name().toLowerCase(Locale.ROOT);
+            this.scheduler = new WeightedFairScheduler<>(
+                    PriorityLane.class, weights, PriorityLane.RESERVED, maxConcurrent, reservedSlots, maxQueue);
+            for (PriorityLane priorityLane : PriorityLane.values()) {
+                waitTimes.put(priorityLane, Timer.builder("admission.wait")
+                        .description("Time requests waited to be admitted, including rejected ones")
+                        .tag("endpoint_class", tag)
+                        .tag("lane", priorityLane.name().toLowerCase(Locale.ROOT))
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+            }
+            this.queueDepth = DistributionSummary.builder("admission.queue.depth")
+                    .description("Requests already waiting when a request arrived")
+                    .tag("endpoint_class", tag)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            Gauge.builder("admission.queue.waiting", scheduler, WeightedFairScheduler::waiting)
+                    .tag("endpoint_class", tag)
+                    .register(meterRegistry);
+            Gauge.builder("admission.in_flight", inFlight, AtomicInteger::get)
+                    .tag("endpoint_class", tag)
+                    .register(meterRegistry);
+        }
+
+        void reject(PriorityLane priorityLane, String reason) {
+            meterRegistry.counter("admission.rejected", "endpoint_class", tag,
+                    "lane", priorityLane.name().toLowerCase(Locale.ROOT), "reason", reason).increment();
+        }
+    }
+
+    @PostConstruct
+    void initLanes() {
+        Map<PriorityLane, Integer> weights = new EnumMap<>(PriorityLane.class);
+        for (PriorityLane priorityLane : PriorityLane.values()) {
+            if (priorityLane != PriorityLane.RESERVED) {
+                String property = "application.admission.weights." + priorityLane.name().toLowerCase(Locale.ROOT);
+                weights.put(priorityLane, environment.getProperty(property, Integer.class, priorityLane.defaultWeight));
+            }
+        }
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            String property = "application.admission." + endpointClass.name().toLowerCase(Locale.ROOT) + ".max-concurrent";
+            int maxConcurrent = environment.getProperty(property, Integer.class, endpointClass.defaultMaxConcurrent);
+            if (maxConcurrent < 1) {
+                throw new IllegalStateException(property + " must be at least 1");
+            }
+            lanes.put(endpointClass, new Lane(endpointClass, maxConcurrent, weights));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        Lane lane = lanes.get(EndpointClass.of(request.getRequestURI()));
+        PriorityLane priorityLane = priorityLaneOf(SecurityContextHolder.getContext().getAuthentication());
+        Admission admission = admit(lane, priorityLane);
+        if (!admission.admitted()) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            return;
+        }
+        lane.inFlight.incrementAndGet();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            lane.inFlight.decrementAndGet();
+            lane.scheduler.release(admission.ticket());
+        }
+    }
+
+    /**
+     * The lane of the authenticated caller: reserved authorities first, then the account tier.
+     */
+    PriorityLane priorityLaneOf(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated() || authentication instanceof AnonymousAuthenticationToken) {
+            return PriorityLane.ANONYMOUS;
+        }
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            if (reservedAuthorities.contains(authority.getAuthority())) {
+                return PriorityLane.RESERVED;
+            }
+        }
+        if (authentication.getPrincipal() instanceof User user) {
+            return PriorityLane.of(user.getUserUsage() != null ? user.getUserUsage().getAccountTier() : null);
+        }
+        if (authentication.getPrincipal() instanceof String email) {
+            // Claims-only authentication: the tier is not in the token, the near-cache has it
+            return userCacheService.findByEmail(email)
+                    .map(UserSnapshot::accountTier)
+                    .map(PriorityLane::of)
+                    .orElse(PriorityLane.FREE);
+        }
+        return PriorityLane.FREE;
+    }
+
+    private Admission admit(Lane lane, PriorityLane priorityLane) {
+        lane.queueDepth.record(lane.scheduler.waiting());
+        long start = System.nanoTime();
+        try {
+            Admission admission = lane.scheduler.acquire(priorityLane, queueTimeoutMs, TimeUnit.MILLISECONDS);
+            switch (admission.outcome()) {
+                case QUEUE_FULL -> lane.reject(priorityLane, "queue_full");
+                case TIMED_OUT -> lane.reject(priorityLane, "timeout");
+                case ADMITTED -> {
+                }
+            }
+            return admission;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            lane.reject(priorityLane, "interrupted");
+            return new Admission(WeightedFairScheduler.Outcome.TIMED_OUT, null);
+        } finally {
+            lane.waitTimes.get(priorityLane).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
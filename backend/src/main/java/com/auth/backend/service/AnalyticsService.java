@@ -0,0 +1,245 @@
+package com.auth.backend.service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.auth.backend.dto.AnalyticsResponse;
+import com.auth.backend.enums.AccountTier;
+import com.auth.backend.enums.AnalyticsMetric;
+import com.auth.backend.enums.AuthProvider;
+import com.auth.backend.model.DailyAnalytics;
+import com.auth.backend.repository.DailyAnalyticsRepository;
+import com.auth.backend.service.QuotaCounterService.QuotaDecision;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Counts signups, verifications, requests, scans and tier selections as they happen, so the admin
+ * analytics never scan _user, user_usage or scan_history.
+ *
+ * Events only add to an in-memory LongAdder per (day, metric, dimension); the adders are added to
+ * the analytics_daily table in one JDBC batch per flush. Because the table is only ever incremented,
+ * several instances can flush into it side by side. Reading a date range costs one primary-key range
+ * query, i.e. O(days), plus the values not flushed yet.
+ */
+@Service
+@RequiredArgsConstructor
+public class AnalyticsService {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalyticsService.class);
+
+    // Dimension of metrics that are not broken down
+    public static final String ALL = "ALL";
+
+    private static final String ADD_SQL = """
+            insert into analytics_daily (day, metric, dimension, value)
+            values (?, ?, ?, ?)
+            on conflict (day, metric, dimension) do update
+            set value = analytics_daily.value + excluded.value
+            """;
+
+    private static final String DELETE_SNAPSHOT_SQL =
+            "delete from analytics_daily where day = ? and metric = 'TIER_USERS'";
+
+    private static final String TAKE_SNAPSHOT_SQL = """
+            insert into analytics_daily (day, metric, dimension, value)
+            select ?, 'TIER_USERS', account_tier, count(*)
+            from user_usage
+            group by account_tier
+            """;
+
+    private final DailyAnalyticsRepository dailyAnalyticsRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${application.analytics.max-days:366}")
+    private int maxDays;
+
+    private final Map<Bucket, LongAdder> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private record Bucket(LocalDate day, AnalyticsMetric metric, String dimension) {
+    }
+
+    // --- Events ---
+
+    public void recordSignup(AuthProvider provider) {
+        add(AnalyticsMetric.SIGNUPS, provider.name());
+    }
+
+    public void recordVerification() {
+        add(AnalyticsMetric.VERIFICATIONS, ALL);
+    }
+
+    /**
+     * Counts an allowed quota request on the day it was counted for. The request that started the
+     * user's day also counts the user as active.
+     */
+    public void recordRequest(QuotaDecision decision) {
+        if (!decision.allowed()) {
+            return;
+        }
+        counter(AnalyticsMetric.REQUESTS, decision.tier().name(), decision.day()).increment();
+        if (decision.firstOfDay()) {
+            counter(AnalyticsMetric.ACTIVE_USERS, decision.tier().name(), decision.day()).increment();
+        }
+    }
+
+    /**
+     * Takes back a request whose unit of quota was refunded. The user stays active for the day.
+     */
+    public void recordRefund(AccountTier tier, LocalDate day) {
+        counter(AnalyticsMetric.REQUESTS, tier.name(), day).decrement();
+    }
+
+    public void recordScans(AccountTier tier, int scans) {
+        if (scans > 0) {
+            counter(AnalyticsMetric.SCANS, tier.name()).add(scans);
+        }
+    }
+
+    public void recordTierSelected(AccountTier tier) {
+        add(AnalyticsMetric.TIER_SELECTIONS, tier.name());
+    }
+
+    // --- Reading ---
+
+    /**
+     * Counters of every day in [from, to] and the latest users-per-tier snapshot.
+     *
+     * @throws IllegalArgumentException if the range is reversed or longer than the configured maximum
+     */
+    public AnalyticsResponse getAnalytics(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'.");
+        }
+        long days = ChronoUnit.DAYS.between(from, to) + 1;
+        if (days > maxDays) {
+            throw new IllegalArgumentException("At most " + maxDays + " days can be requested at once.");
+        }
+
+        Map<LocalDate, Map<AnalyticsMetric, Map<String, Long>>> byDay = new TreeMap<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            byDay.put(day, new EnumMap<>(AnalyticsMetric.class));
+        }
+        for (DailyAnalytics row : dailyAnalyticsRepository.findByDayBetween(from, to)) {
+            addTo(byDay, row.getDay(), row.getMetric(), row.getDimension(), row.getValue());
+        }
+        // Events of this instance that have not been flushed yet
+        pending.forEach((bucket, adder) -> {
+            if (!bucket.day().isBefore(from) && !bucket.day().isAfter(to)) {
+                addTo(byDay, bucket.day(), bucket.metric(), bucket.dimension(), adder.sum());
+            }
+        });
+
+        List<AnalyticsResponse.Day> result = new ArrayList<>(byDay.size());
+        byDay.forEach((day, metrics) -> result.add(new AnalyticsResponse.Day(day, metrics)));
+
+        Map<String, Long> tierDistribution = new TreeMap<>();
+        dailyAnalyticsRepository.findLatestTierSnapshot()
+                .forEach(row -> tierDistribution.put(row.getDimension(), row.getValue()));
+        return new AnalyticsResponse(from, to, result, tierDistribution);
+    }
+
+    // --- Persistence ---
+
+    /**
+     * Adds the counted events to analytics_daily in one JDBC batch.
+     */
+    @Scheduled(fixedDelayString = "${application.analytics.flush-interval-ms:60000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            LocalDate today = LocalDate.now();
+            List<Bucket> flushed = new ArrayList<>();
+            List<Object[]> batch = new ArrayList<>();
+            pending.forEach((bucket, adder) -> {
+                long value = adder.sumThenReset();
+                if (value != 0) {
+                    flushed.add(bucket);
+                    batch.add(new Object[] { Date.valueOf(bucket.day()), bucket.metric().name(), bucket.dimension(), value });
+                } else if (bucket.day().isBefore(today)) {
+                    // Idle since the last flush and no longer written to
+                    pending.remove(bucket, adder);
+                }
+            });
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            try {
+                jdbcTemplate.batchUpdate(ADD_SQL, batch);
+                log.debug("Flushed {} analytics counters", batch.size());
+            } catch (RuntimeException e) {
+                // Give the values back so the next flush retries them
+                for (int i = 0; i < flushed.size(); i++) {
+                    counter(flushed.get(i).metric(), flushed.get(i).dimension(), flushed.get(i).day()).add((long) batch.get(i)[3]);
+                }
+                log.error("Failed to flush {} analytics counters, will retry: {}", batch.size(), e.getMessage());
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Replaces today's users-per-tier snapshot. The only analytics query that reads user_usage,
+     * once at startup and then on the configured schedule.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${application.analytics.tier-snapshot-cron:0 0 * * * *}")
+    public void snapshotTierDistribution() {
+        Date today = Date.valueOf(LocalDate.now());
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(DELETE_SNAPSHOT_SQL, today);
+            jdbcTemplate.update(TAKE_SNAPSHOT_SQL, today);
+        });
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private void add(AnalyticsMetric metric, String dimension) {
+        counter(metric, dimension).increment();
+    }
+
+    private LongAdder counter(AnalyticsMetric metric, String dimension) {
+        return counter(metric, dimension, LocalDate.now());
+    }
+
+    private LongAdder counter(AnalyticsMetric metric, String dimension, LocalDate day) {
+        return pending.computeIfAbsent(new Bucket(day, metric, dimension), bucket -> new LongAdder());
+    }
+
+    private static void addTo(Map<LocalDate, Map<AnalyticsMetric, Map<String, Long>>> byDay,
+            LocalDate day, AnalyticsMetric metric, String dimension, long value) {
+        if (value == 0) {
+            return;
+        }
+        byDay.get(day)
+                .computeIfAbsent(metric, m -> new TreeMap<>())
+                .merge(dimension, value, Long::sum);
+    }
+}
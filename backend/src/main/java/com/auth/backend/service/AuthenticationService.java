@@ -8,6 +8,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -16,6 +17,7 @@ import com.auth.backend.dto.AccessTokenResponse;
 import com.auth.backend.dto.AuthenticationRequest;
 import com.auth.backend.dto.AuthenticationResponse;
 import com.auth.backend.dto.RegisterRequest;
+import com.auth.backend.dto.UserSnapshot;
 import com.auth.backend.enums.AccountTier;
 import com.auth.backend.enums.AuthProvider;
 import com.auth.backend.enums.Role;
@@ -38,6 +40,8 @@ public class AuthenticationService {
     private final AuthenticationManager authenticationManager;
     private final EmailService emailService;
     private final CookieService cookieService;
+    private final AnalyticsService analyticsService;
+    private final UserCacheService userCacheService;
 
     @Value("${application.security.jwt.expiration}")
     private long jwtExpirationMs;
@@ -45,7 +49,7 @@ public class AuthenticationService {
     private long refreshExpirationMs;
 
     public void register(RegisterRequest request) {
-        if (userRepository.findByEmail(request.getEmail()).isPresent()) {
+        if (userCacheService.findByEmail(request.getEmail()).isPresent()) {
             throw new IllegalArgumentException("Email already in use: " + request.getEmail());
         }
 
@@ -76,12 +80,14 @@ public class AuthenticationService {
         
         // 4. Save User (Cascade will save UserUsage automatically)
         userRepository.save(user); 
+        analyticsService.recordSignup(AuthProvider.LOCAL);
         
         emailService.sendVerificationEmail(user.getName(), user.getEmail(), verificationCode);
     }
 
     public AuthenticationResponse authenticate(AuthenticationRequest request, HttpServletResponse response) {
-        var user = userRepository.findByEmail(request.getEmail())
+        var user = userCacheService.findByEmail(request.getEmail())
+                .map(UserSnapshot::toUser)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found."));
 
         if (!user.isEnabled()) {
@@ -122,6 +128,7 @@ public class AuthenticationService {
         user.setVerificationCode(null);
         user.setCodeExpiration(null);
         userRepository.save(user);
+        analyticsService.recordVerification();
     }
 
     public void verifyResetCode(String email, String code) {
@@ -183,7 +190,8 @@ public class AuthenticationService {
         final String userEmail = jwtService.extractUsername(refreshToken);
 
         if (userEmail != null) {
-            var user = this.userRepository.findByEmail(userEmail)
+            var user = userCacheService.findByEmail(userEmail)
+                    .map(UserSnapshot::toUser)
                     .orElseThrow(() -> new UsernameNotFoundException("User not found for refresh token"));
 
             if (jwtService.isTokenValid(refreshToken, user)) {
@@ -198,6 +206,20 @@ public class AuthenticationService {
         }
     }
 
+    /**
+     * Issues a fresh access token for the current principal. In stateless mode the
+     * principal is only the email from the token, so the user is loaded here.
+     */
+    public AccessTokenResponse getAccessTokenForAuthenticatedUser(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof User user) {
+            return getAccessTokenForAuthenticatedUser(user);
+        }
+        User user = userCacheService.findByEmail(authentication.getName())
+                .map(UserSnapshot::toUser)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found."));
+        return getAccessTokenForAuthenticatedUser(user);
+    }
+
     public AccessTokenResponse getAccessTokenForAuthenticatedUser(User user) {
         String accessToken = jwtService.generateToken(user);
         
@@ -0,0 +1,344 @@
+package com.auth.backend.service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.auth.backend.enums.AccountTier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Keeps the per-instance user caches coherent across instances with Postgres LISTEN/NOTIFY on the
+ * application database.
+ *
+ * Every UserChangedEvent published on this instance is sent as a notification on the channel, and
+ * every notification from another instance is applied to the local caches: the user snapshot and
+ * the security version are evicted, and the in-memory quota counter follows tier changes and
+ * deletions. Notifications are delivered to all listening sessions within milliseconds of the
+ * publisher's commit.
+ *
+ * Postgres does not keep notifications for a session that is not listening, so whenever the listener
+ * (re)connects, and whenever this instance could not publish, everything that may have been missed
+ * is resynchronized: the local caches are cleared and quota tiers are reloaded, and a RESYNC
+ * notification makes the other instances do the same.
+ *
+ * Both directions use their own connection outside the pool: the listener blocks on its connection,
+ * and notifications must not be sent on a pooled connection that may still belong to a transaction.
+ */
+@Service
+@ConditionalOnProperty(name = "application.cluster.invalidation.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class ClusterInvalidationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterInvalidationService.class);
+
+    private static final String NOTIFY_SQL = "select pg_notify(?, payload) from unnest(?) payload";
+    private static final String RESYNC = "RESYNC";
+    private static final long MIN_BACKOFF_MS = 100;
+    private static final long MAX_BACKOFF_MS = 5000;
+    private static final int MAX_BATCH = 500;
+
+    private final UserCacheService userCacheService;
+    private final SecurityVersionService securityVersionService;
+    private final Optional<QuotaCounterService> quotaCounters;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${spring.datasource.url}")
+    private String url;
+
+    @Value("${spring.datasource.username}")
+    private String username;
+
+    @Value("${spring.datasource.password}")
+    private String password;
+
+    @Value("${application.cluster.invalidation.channel:user_changes}")
+    private String channel;
+
+    @Value("${application.cluster.invalidation.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${application.cluster.invalidation.keepalive-ms:5000}")
+    private long keepaliveMs;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private BlockingQueue<Outgoing> outgoing;
+    // Set when an event could not be delivered; the next successful send starts with a RESYNC.
+    private final AtomicBoolean resyncNeeded = new AtomicBoolean();
+    private volatile boolean running = true;
+    private volatile Connection listenConnection;
+    private Thread listener;
+    private Thread publisher;
+
+    private Counter publishedCounter;
+    private Counter receivedCounter;
+    private Counter resyncCounter;
+    private Counter droppedCounter;
+    private Timer lagTimer;
+
+    private record Outgoing(UserChangedEvent event, long createdAt) {
+    }
+
+    @PostConstruct
+    void start() {
+        if (!channel.matches("[a-z_][a-z0-9_]{0,62}")) {
+            throw new IllegalStateException("Invalid notification channel name: " + channel);
+        }
+        outgoing = new ArrayBlockingQueue<>(queueCapacity);
+        publishedCounter = meterRegistry.counter("cluster_invalidation.published");
+        receivedCounter = meterRegistry.counter("cluster_invalidation.received");
+        resyncCounter = meterRegistry.counter("cluster_invalidation.resyncs");
+        droppedCounter = meterRegistry.counter("cluster_invalidation.dropped");
+        lagTimer = Timer.builder("cluster_invalidation.lag")
+                .description("Time from the change on the publishing instance to its eviction here")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        listener = Thread.ofPlatform().daemon().name("cluster-invalidation-listener").start(this::listenLoop);
+        publisher = Thread.ofPlatform().daemon().name("cluster-invalidation-publisher").start(this::publishLoop);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        publisher.interrupt();
+        publisher.join(1000);
+        closeQuietly(listenConnection);
+        listener.interrupt();
+        listener.join(1000);
+    }
+
+    /**
+     * The session name of the listener connection, so it can be found in pg_stat_activity.
+     */
+    public String getListenerApplicationName() {
+        return "cluster-invalidation-" + nodeId;
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        if (!outgoing.offer(new Outgoing(event, System.currentTimeMillis()))) {
+            droppedCounter.increment();
+            resyncNeeded.set(true);
+        }
+    }
+
+    // --- Publishing ---
+
+    private void publishLoop() {
+        Connection connection = null;
+        long backoff = MIN_BACKOFF_MS;
+        while (running) {
+            List<Outgoing> batch = new ArrayList<>();
+            try {
+                batch.add(outgoing.take());
+                outgoing.drainTo(batch, MAX_BATCH - 1);
+            } catch (InterruptedException e) {
+                break;
+            }
+            List<String> payloads = toPayloads(batch);
+            try {
+                if (connection == null || connection.isClosed()) {
+                    connection = connect("cluster-invalidation-publisher-" + nodeId);
+                }
+                send(connection, payloads);
+                publishedCounter.increment(payloads.size());
+                backoff = MIN_BACKOFF_MS;
+            } catch (SQLException e) {
+                // The batch is lost; the other instances resync once this one can reach the database again.
+                resyncNeeded.set(true);
+                closeQuietly(connection);
+                connection = null;
+                log.warn("Failed to publish {} cache invalidations, retrying in {} ms: {}", payloads.size(), backoff, e.getMessage());
+                if (!sleep(backoff)) {
+                    break;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+            }
+        }
+        closeQuietly(connection);
+    }
+
+    private List<String> toPayloads(List<Outgoing> batch) {
+        // A bulk change often invalidates the same user several times
+        Map<UserChangedEvent, Long> unique = new LinkedHashMap<>();
+        batch.forEach(item -> unique.putIfAbsent(item.event(), item.createdAt()));
+        List<String> payloads = new ArrayList<>(unique.size() + 1);
+        if (resyncNeeded.getAndSet(false)) {
+            payloads.add(String.join("|", RESYNC, nodeId, String.valueOf(System.currentTimeMillis()), "", ""));
+        }
+        unique.forEach((event, createdAt) -> payloads.add(encode(event, createdAt)));
+        return payloads;
+    }
+
+    private void send(Connection connection, List<String> payloads) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(NOTIFY_SQL)) {
+            statement.setString(1, channel);
+            statement.setArray(2, connection.createArrayOf("text", payloads.toArray()));
+            statement.execute();
+        }
+    }
+
+    /**
+     * type|node|createdAtMillis|tier|email, with the email last because it is the only free-form part.
+     */
+    private String encode(UserChangedEvent event, long createdAt) {
+        return String.join("|", event.type().name(), nodeId, String.valueOf(createdAt),
+                event.tier() != null ? event.tier().name() : "", event.email());
+    }
+
+    // --- Listening ---
+
+    private void listenLoop() {
+        long backoff = MIN_BACKOFF_MS;
+        while (running) {
+            Connection connection = null;
+            try {
+                connection = connect(getListenerApplicationName());
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("listen " + channel);
+                }
+                listenConnection = connection;
+                // Anything may have changed while this instance was not listening
+                resync();
+                backoff = MIN_BACKOFF_MS;
+                receive(connection);
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("Cache invalidation listener disconnected, reconnecting in {} ms: {}", backoff, e.getMessage());
+                }
+            } finally {
+                closeQuietly(connection);
+            }
+            if (!running || !sleep(backoff)) {
+                break;
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+        }
+    }
+
+    private void receive(Connection connection) throws SQLException {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        long lastCheck = System.currentTimeMillis();
+        while (running) {
+            PGNotification[] notifications = pgConnection.getNotifications((int) Math.min(keepaliveMs, 1000));
+            long now = System.currentTimeMillis();
+            if (notifications != null && notifications.length > 0) {
+                for (PGNotification notification : notifications) {
+                    apply(notification.getParameter(), now);
+                }
+                lastCheck = now;
+            } else if (now - lastCheck >= keepaliveMs) {
+                // A half-open connection would otherwise wait for notifications forever
+                if (!connection.isValid(2)) {
+                    throw new SQLException("Listener connection is no longer valid");
+                }
+                lastCheck = now;
+            }
+        }
+    }
+
+    private void apply(String payload, long receivedAt) {
+        String[] parts = payload.split("\\|", 5);
+        if (parts.length != 5) {
+            log.warn("Ignoring malformed cache invalidation: {}", payload);
+            return;
+        }
+        if (parts[1].equals(nodeId)) {
+            return;
+        }
+        receivedCounter.increment();
+        if (parts[0].equals(RESYNC)) {
+            resync();
+            return;
+        }
+
+        UserChangedEvent.Type type;
+        try {
+            type = UserChangedEvent.Type.valueOf(parts[0]);
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring unknown cache invalidation: {}", payload);
+            return;
+        }
+        String email = parts[4];
+        // Any change may touch both, and reloading one entry is cheap
+        userCacheService.evict(email);
+        securityVersionService.evict(email);
+        switch (type) {
+            case TIER_CHANGED -> quotaCounters.ifPresent(counters -> counters.updateTier(email, AccountTier.valueOf(parts[3])));
+            case USER_DELETED -> quotaCounters.ifPresent(counters -> counters.remove(email));
+            default -> {
+            }
+        }
+        lagTimer.record(Math.max(0, receivedAt - Long.parseLong(parts[2])), TimeUnit.MILLISECONDS);
+    }
+
+    private void resync() {
+        userCacheService.evictAll();
+        securityVersionService.evictAll();
+        quotaCounters.ifPresent(QuotaCounterService::refreshTiers);
+        resyncCounter.increment();
+        log.info("Resynchronized the local user caches");
+    }
+
+    // --- Connections ---
+
+    private Connection connect(String applicationName) throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("user", username);
+        properties.setProperty("password", password);
+        properties.setProperty("ApplicationName", applicationName);
+        Connection connection = DriverManager.getConnection(url, properties);
+        connection.setAutoCommit(true);
+        return connection;
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            // Already broken
+        }
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+}
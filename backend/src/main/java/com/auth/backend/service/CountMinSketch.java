@@ -0,0 +1,107 @@
+package com.auth.backend.service;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Count-Min sketch: depth rows of width counters, each item adds to one counter per row and its
+ * estimate is the smallest of them. Estimates never fall below the true count and exceed it by at
+ * most e / width of the total with probability 1 - e^-depth; the defaults (2048 x 5) give 0.13%
+ * of the total with 99.3% certainty, in 80 KB.
+ *
+ * Sketches of the same shape merge by adding counters, which gives exactly the sketch of all items.
+ * Not thread-safe.
+ */
+final class CountMinSketch {
+
+    static final int DEFAULT_WIDTH = 2048;
+    static final int DEFAULT_DEPTH = 5;
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private final int width;
+    private final int depth;
+    private final long[] counts;
+    private long total;
+
+    CountMinSketch() {
+        this(DEFAULT_WIDTH, DEFAULT_DEPTH);
+    }
+
+    CountMinSketch(int width, int depth) {
+        if (Integer.bitCount(width) != 1 || depth < 1) {
+            throw new IllegalArgumentException("Width must be a power of two and depth positive: " + width + " x " + depth);
+        }
+        this.width = width;
+        this.depth = depth;
+        this.counts = new long[width * depth];
+    }
+
+    /**
+     * Adds the item and returns its new estimate.
+     */
+    long add(String item, long count) {
+        long hash = HyperLogLog.hash64(item);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int cell = row * width + index(hash, row);
+            counts[cell] += count;
+            estimate = Math.min(estimate, counts[cell]);
+        }
+        total += count;
+        return estimate;
+    }
+
+    long estimate(String item) {
+        long hash = HyperLogLog.hash64(item);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts[row * width + index(hash, row)]);
+        }
+        return estimate;
+    }
+
+    long total() {
+        return total;
+    }
+
+    void merge(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Cannot merge a " + other.width + " x " + other.depth
+                    + " sketch into " + width + " x " + depth);
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+    }
+
+    int serializedSize() {
+        return 1 + 4 + 4 + 8 + 8 * counts.length;
+    }
+
+    void writeTo(ByteBuffer buffer) {
+        buffer.put(FORMAT_VERSION).putInt(width).putInt(depth).putLong(total);
+        for (long count : counts) {
+            buffer.putLong(count);
+        }
+    }
+
+    static CountMinSketch readFrom(ByteBuffer buffer) {
+        if (buffer.get() != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unknown Count-Min sketch format");
+        }
+        CountMinSketch sketch = new CountMinSketch(buffer.getInt(), buffer.getInt());
+        sketch.total = buffer.getLong();
+        for (int i = 0; i < sketch.counts.length; i++) {
+            sketch.counts[i] = buffer.getLong();
+        }
+        return sketch;
+    }
+
+    // Row hashes derived from one 64-bit hash (Kirsch-Mitzenmacher)
+    private int index(long hash, int row) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        return (h1 + row * h2) & (width - 1);
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.security.oauth2.core.OAuth2Error;
 import org.springframework.security.oauth2.core.oidc.user.OidcUser;
 import org.springframework.stereotype.Service;
 
+import com.auth.backend.dto.UserSnapshot;
 import com.auth.backend.enums.AccountTier;
 import com.auth.backend.enums.AuthProvider;
 import com.auth.backend.enums.Role;
@@ -26,6 +27,8 @@ public class CustomOidcUserService extends OidcUserService {
 
     private static final Logger log = LoggerFactory.getLogger(CustomOidcUserService.class);
     private final UserRepository userRepository;
+    private final UserCacheService userCacheService;
+    private final AnalyticsService analyticsService;
 
     @Override
     public OidcUser loadUser(OidcUserRequest userRequest) throws OAuth2AuthenticationException {
@@ -34,23 +37,22 @@ public class CustomOidcUserService extends OidcUserService {
         return oidcUser;
     }
 
-    private User processOidcUser(OidcUser oidcUser) {
+    private void processOidcUser(OidcUser oidcUser) {
         String email = oidcUser.getEmail();
-        Optional<User> userOptional = userRepository.findByEmail(email);
+        Optional<UserSnapshot> userOptional = userCacheService.findByEmail(email);
 
         if (userOptional.isPresent()) {
-            User user = userOptional.get();
+            UserSnapshot user = userOptional.get();
             // If the user registered with Password (LOCAL), block Google Login
-            if (user.getAuthProvider() != AuthProvider.GOOGLE) {
-                log.warn("User with email {} already exists with {} provider.", email, user.getAuthProvider());
+            if (user.authProvider() != AuthProvider.GOOGLE) {
+                log.warn("User with email {} already exists with {} provider.", email, user.authProvider());
                 
                 throw new OAuth2AuthenticationException(
                     new OAuth2Error("account_exists"), 
                     "User with email " + email + " already exists. Please log in with your " +
-                    user.getAuthProvider() + " account."
+                    user.authProvider() + " account."
                 );
             }
-            return user;
         } else {
             log.info("Creating new user from Google login: {}", email);
             
@@ -72,7 +74,8 @@ public class CustomOidcUserService extends OidcUserService {
             
             newUser.setUserUsage(usage);
             
-            return userRepository.save(newUser);
+            userRepository.save(newUser);
+            analyticsService.recordSignup(AuthProvider.GOOGLE);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,128 @@
+package com.auth.backend.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HyperLogLog distinct counter: 2^precision one-byte registers each keep the longest run of
+ * leading zeros seen among the hashes routed to them. The standard error is 1.04 / sqrt(2^precision),
+ * about 0.8% at the default precision of 14, in 16 KB whatever the number of items.
+ *
+ * Sketches of the same precision merge by taking the larger register, so daily sketches of several
+ * instances combine into the exact sketch of the union. Not thread-safe.
+ */
+final class HyperLogLog {
+
+    static final int DEFAULT_PRECISION = 14;
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private final int precision;
+    private final byte[] registers;
+
+    HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("Precision must be between 4 and 18: " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    void add(String item) {
+        long hash = hash64(item);
+        int index = (int) (hash >>> (64 - precision));
+        // Rank of the first 1 bit in the remaining bits; the sentinel bit caps it when they are all 0.
+        long rest = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            // Small range: linear counting over the empty registers is more accurate.
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge precision " + other.precision + " into " + precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        for (byte register : registers) {
+            if (register != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    byte[] toBytes() {
+        return ByteBuffer.allocate(2 + registers.length)
+                .put(FORMAT_VERSION)
+                .put((byte) precision)
+                .put(registers)
+                .array();
+    }
+
+    static HyperLogLog fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (buffer.get() != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unknown HyperLogLog format");
+        }
+        HyperLogLog sketch = new HyperLogLog(buffer.get());
+        buffer.get(sketch.registers);
+        return sketch;
+    }
+
+    private static double alpha(int m) {
+        return switch (m) {
+            case 16 -> 0.673;
+            case 32 -> 0.697;
+            case 64 -> 0.709;
+            default -> 0.7213 / (1 + 1.079 / m);
+        };
+    }
+
+    /**
+     * 64-bit hash of the UTF-8 bytes: FNV-1a, then the MurmurHash3 finalizer so every input bit
+     * affects the high bits the register index is taken from.
+     */
+    static long hash64(String item) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : item.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
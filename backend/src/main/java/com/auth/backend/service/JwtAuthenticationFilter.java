@@ -1,20 +1,26 @@
 package com.auth.backend.service; // Or config, ensure package is correct
 
 import java.io.IOException;
-import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
-import org.springframework.util.AntPathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.auth.backend.model.User;
+import com.auth.backend.service.JwtService.ParsedToken;
+
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie; 
@@ -28,10 +34,39 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String ACCESS_TOKEN_COOKIE_NAME = "access_token"; 
+
+    /**
+     * Public authentication paths, matched exactly against the servlet path.
+     * Built once at class load so the per-request check is a single hash lookup.
+     */
+    private static final Set<String> PUBLIC_AUTH_PATHS = Set.of(
+            "/hello",
+            "/api/v1/auth/register",
+            "/api/v1/auth/authenticate",
+            "/api/v1/auth/verify",
+            "/api/v1/auth/forgot-password",
+            "/api/v1/auth/reset-password",
+            "/api/v1/auth/refresh-token"
+    );
+
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService; 
-    private final String ACCESS_TOKEN_COOKIE_NAME = "access_token"; 
-    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final SecurityVersionService securityVersionService;
+    private final WebAuthenticationDetailsSource authenticationDetailsSource = new WebAuthenticationDetailsSource();
+
+    // When enabled, requests are authenticated from the token claims alone and never hit the database.
+    @Value("${application.security.jwt.stateless-authentication:false}")
+    private boolean statelessAuthentication;
+
+    /**
+     * Public authentication paths skip the filter entirely.
+     */
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return PUBLIC_AUTH_PATHS.contains(request.getServletPath());
+    }
 
     @Override
     protected void doFilterInternal(
@@ -40,66 +75,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             @NonNull FilterChain filterChain 
     ) throws ServletException, IOException {
 
-        if (isPublicAuthPath(request)) {
-            logger.debug("Skipping JWT filter for public auth path: {}", request.getServletPath());
-            filterChain.doFilter(request, response); 
-            return; 
-        }
         String jwt = extractTokenFromHeader(request);
-
         if (jwt == null) {
             jwt = extractTokenFromCookie(request);
-            if (jwt != null) {
-                logger.debug("Found JWT in 'access_token' cookie.");
-            }
-        } else {
-            logger.debug("Found JWT in 'Authorization' header.");
         }
-        
-        final String userEmail;
 
-        if (jwt == null) {
-            logger.debug("No JWT found in header or cookie for secured path: {}", request.getServletPath());
+        if (jwt == null || SecurityContextHolder.getContext().getAuthentication() != null) {
             filterChain.doFilter(request, response);
             return;
         }
 
+        final ParsedToken token;
         try {
-            userEmail = jwtService.extractUsername(jwt);
-            logger.debug("Extracted username '{}' from JWT.", userEmail);
+            token = jwtService.validateAndParse(jwt);
         } catch (Exception e) {
-            logger.warn("Could not extract username from JWT: {}", e.getMessage());
+            logger.warn("Could not validate JWT: {}", e.getMessage());
             filterChain.doFilter(request, response); 
             return;
         }
 
-        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-
-            boolean isTokenValid = false;
-            try {
-                isTokenValid = jwtService.isTokenValid(jwt, userDetails);
-            } catch (Exception e) {
-                logger.warn("JWT token validation failed for user '{}': {}", userEmail, e.getMessage());
-            }
-
-            if (isTokenValid) {
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, 
-                        null,        
-                        userDetails.getAuthorities() 
-                );
-                authToken.setDetails(
-                        new WebAuthenticationDetailsSource().buildDetails(request)
-                );
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-                logger.debug("Successfully authenticated user '{}' via JWT.", userEmail);
+        String userEmail = token.subject();
+        if (userEmail != null) {
+            if (statelessAuthentication) {
+                authenticateFromClaims(request, token, userEmail);
             } else {
-                 logger.warn("JWT token was deemed invalid for user '{}'.", userEmail);
-            }
-        } else {
-            if (userEmail != null) {
-                logger.debug("User '{}' already authenticated, skipping JWT validation.", userEmail);
+                authenticateFromUserDetails(request, token, userEmail);
             }
         }
 
@@ -107,60 +107,82 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     }
 
     /**
-     * (NEW) Helper method to find and extract the JWT value from the Authorization header.
+     * Builds the Authentication from the loaded UserDetails (one database lookup per request).
+     */
+    private void authenticateFromUserDetails(HttpServletRequest request, ParsedToken token, String userEmail) {
+        UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+
+        // The signature and expiry were already verified by validateAndParse.
+        if (!userDetails.getUsername().equals(token.subject()) || token.isExpired()) {
+            logger.warn("JWT token was deemed invalid for user '{}'.", userEmail);
+            return;
+        }
+        if (userDetails instanceof User user && user.getSecurityVersion() != token.securityVersion()) {
+            logger.warn("JWT for user '{}' was issued before a security change and is revoked.", userEmail);
+            return;
+        }
+
+        setAuthentication(request, userDetails, userDetails.getAuthorities());
+    }
+
+    /**
+     * Builds the Authentication only from the verified claims. The principal is the user's email,
+     * and revocation is checked against the in-memory security version instead of the database.
+     */
+    private void authenticateFromClaims(HttpServletRequest request, ParsedToken token, String userEmail) {
+        if (!securityVersionService.isCurrent(userEmail, token.securityVersion())) {
+            logger.warn("JWT for user '{}' is revoked or the user no longer exists.", userEmail);
+            return;
+        }
+
+        setAuthentication(request, userEmail, token.authorities());
+    }
+
+    private void setAuthentication(
+            HttpServletRequest request,
+            Object principal,
+            Collection<? extends GrantedAuthority> authorities
+    ) {
+        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                principal, 
+                null,        
+                authorities 
+        );
+        authToken.setDetails(authenticationDetailsSource.buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+    }
+
+    /**
+     * Helper method to find and extract the JWT value from the Authorization header.
      *
      * @param request The incoming HttpServletRequest.
      * @return The JWT string if the 'Authorization' header is found and formatted correctly, otherwise null.
      */
     private String extractTokenFromHeader(HttpServletRequest request) {
-        final String authHeader = request.getHeader("Authorization");
+        final String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
 
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            String token = authHeader.substring(7); // Extract token after "Bearer "
-            if (!token.isEmpty()) {
-                return token;
-            }
+        if (authHeader != null && authHeader.length() > BEARER_PREFIX.length() && authHeader.startsWith(BEARER_PREFIX)) {
+            return authHeader.substring(BEARER_PREFIX.length());
         }
         return null; 
     }
 
     /**
-     * (EXISTING) Helper method to find and extract the JWT value from the request's cookies.
+     * Helper method to find and extract the JWT value from the request's cookies.
      *
      * @param request The incoming HttpServletRequest.
      * @return The JWT string if the 'access_token' cookie is found, otherwise null.
      */
     private String extractTokenFromCookie(HttpServletRequest request) {
         Cookie[] cookies = request.getCookies();
-        if (cookies != null) {
-            return Arrays.stream(cookies)
-                    .filter(cookie -> ACCESS_TOKEN_COOKIE_NAME.equals(cookie.getName()))
-                    .map(Cookie::getValue)
-                    .findFirst()
-                    .orElse(null);
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (ACCESS_TOKEN_COOKIE_NAME.equals(cookie.getName())) {
+                return cookie.getValue();
+            }
         }
         return null; 
     }
-
-    /**
-     * (EXISTING) Checks if the request path matches defined public authentication paths.
-     *
-     * @param request The incoming HttpServletRequest.
-     * @return true if the path matches a public pattern, false otherwise.
-     */
-    private boolean isPublicAuthPath(HttpServletRequest request) {
-        String[] publicPaths = {
-            "/hello",
-            "/api/v1/auth/register",
-            "/api/v1/auth/authenticate",
-            "/api/v1/auth/verify",
-            "/api/v1/auth/forgot-password",
-            "/api/v1/auth/reset-password",
-            "/api/v1/auth/refresh-token"
-        };
-        String requestPath = request.getServletPath();
-
-        return Arrays.stream(publicPaths)
-                .anyMatch(path -> pathMatcher.match(path, requestPath));
-    }
-}
\ No newline at end of file
+}
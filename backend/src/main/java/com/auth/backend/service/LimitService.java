@@ -1,17 +1,31 @@
 package com.auth.backend.service;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.auth.backend.enums.AccountTier;
+import com.auth.backend.enums.ScanStatus;
 import com.auth.backend.model.User;
 import com.auth.backend.model.UserUsage;
 import com.auth.backend.repository.UserRepository;
 import com.auth.backend.repository.UserUsageRepository;
+import com.auth.backend.repository.UserUsageRepository.IncrementedUsage;
+import com.auth.backend.repository.UserUsageRepository.QuotaUsage;
+import com.auth.backend.service.QuotaCounterService.QuotaDecision;
 
 import lombok.Builder;
 import lombok.Data;
@@ -21,14 +35,44 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class LimitService {
 
+    private static final Logger log = LoggerFactory.getLogger(LimitService.class);
+
     private final UserUsageRepository userUsageRepository;
     private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ScanHistoryService scanHistoryService;
+    private final AnalyticsService analyticsService;
+    private final UserCacheService userCacheService;
+    private final ApplicationEventPublisher eventPublisher;
+    // Only present when application.quota.mode=in-memory
+    private final Optional<QuotaCounterService> quotaCounters;
 
-    // Define limits
+    // Define limits (mirrored by UserUsageRepository.incrementIfBelowLimit)
     private static final int FREE_TIER_LIMIT = 5;
     private static final int PRO_TIER_LIMIT = 25;
     // private static final int ENTERPRISE_TIER_LIMIT = 1000;
 
+    // Reservations expire with one-second precision; the wheel covers ~8.5 minutes per rotation
+    private static final long RESERVATION_TICK_MS = 1000;
+    private static final int RESERVATION_WHEEL_SIZE = 512;
+
+    @Value("${application.quota.reservation-ttl-ms:600000}")
+    private long reservationTtlMs;
+
+    // Outstanding reservations, only ever held in memory
+    private final Map<Long, QuotaReservation> reservations = new ConcurrentHashMap<>();
+    private final AtomicLong reservationSequence = new AtomicLong();
+    private final TimerWheel<QuotaReservation> reservationExpiry =
+            new TimerWheel<>(RESERVATION_TICK_MS, RESERVATION_WHEEL_SIZE, System.currentTimeMillis());
+
+    /**
+     * A unit of quota that has been counted but can still be given back.
+     * The day is kept so a refund never touches the next day's counter, the tier so the request
+     * can be taken out of the analytics again.
+     */
+    private record QuotaReservation(long id, String email, LocalDate day, AccountTier tier) {
+    }
+
     // --- DTOs for Controller Responses ---
 
     @Data
@@ -38,6 +82,9 @@ public class LimitService {
         private String reason;
         private Map<String, Object> usage; // Details like current count/max
         private int httpStatus; // e.g., 200 or 429
+        private Long reservationId; // Only set for reservations
+        private Instant expiresAt;
+        private Integer scanId; // Only set by authorizeScan and queueScan
     }
 
     @Data
@@ -57,28 +104,270 @@ public class LimitService {
      * If allowed: Increments counter, Updates date, Returns success.
      * If denied: Returns failure with 429 status.
      */
-    @Transactional
     public LimitCheckResponse checkAndIncrementLimitByEmail(String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        return buildLimitCheckResponse(checkAndIncrement(email));
+    }
 
-        // Get or Create the separate usage record
-        UserUsage usage = getOrCreateUsage(user);
-        
-        // Reset if it's a new day
-        resetCounterIfNewDay(usage);
+    /**
+     * [WRITE] Checks and increments the limit and records the scan in the same unit of work,
+     * so a counted request always has its history row. The user is looked up once, by the quota update.
+     */
+    public LimitCheckResponse authorizeScan(String email, String url) {
+        return authorizeScan(email, url, ScanStatus.COMPLETED);
+    }
+
+    /**
+     * [WRITE] Like authorizeScan, but the scan is recorded as a QUEUED job for the agent workers.
+     */
+    public LimitCheckResponse queueScan(String email, String url) {
+        return authorizeScan(email, url, ScanStatus.QUEUED);
+    }
+
+    private LimitCheckResponse authorizeScan(String email, String url, ScanStatus scanStatus) {
+        if (quotaCounters.isPresent()) {
+            QuotaDecision decision = quotaCounters.get().tryAcquire(email);
+            try {
+                return recordScanIfAllowed(email, decision, url, scanStatus);
+            } catch (RuntimeException e) {
+                // The counter is not part of the transaction, so give the unit back by hand,
+                // to the day it was counted on.
+                if (decision.allowed()) {
+                    quotaCounters.get().refund(email, decision.day());
+                }
+                throw e;
+            }
+        }
+        return transactionTemplate.execute(status -> recordScanIfAllowed(email, checkAndIncrementInDatabase(email), url, scanStatus));
+    }
+
+    /**
+     * [READ] Gets current usage status without incrementing.
+     * Used by the frontend dashboard to show progress bars.
+     */
+    public UsageStatusResponse getUserUsageStatus(String email) {
+        if (quotaCounters.isPresent()) {
+            QuotaDecision current = quotaCounters.get().peek(email);
+            return UsageStatusResponse.builder()
+                    .dailyCount(current.count())
+                    .dailyMax(current.limit())
+                    .tier(current.tier().name())
+                    .hasSelectedTier(current.hasSelectedTier())
+                    .resetDate(LocalDate.now().plusDays(1).toString()) // Tomorrow
+                    .build();
+        }
+        return transactionTemplate.execute(status -> getUsageStatusFromDatabase(email));
+    }
+
+    /**
+     * [WRITE] Counts one request like checkAndIncrementLimitByEmail, but keeps it refundable
+     * until it is committed. Reservations that are neither committed nor released within the TTL
+     * are released automatically.
+     */
+    public LimitCheckResponse reserve(String email) {
+        QuotaDecision decision = checkAndIncrement(email);
+        LimitCheckResponse response = buildLimitCheckResponse(decision);
+        if (!response.isAllowed()) {
+            return response;
+        }
+
+        QuotaReservation reservation = new QuotaReservation(
+                reservationSequence.incrementAndGet(), email, decision.day(), decision.tier());
+        long expiresAt = System.currentTimeMillis() + reservationTtlMs;
+        reservations.put(reservation.id(), reservation);
+        reservationExpiry.schedule(reservation, expiresAt);
+
+        response.setReason("Quota reserved");
+        response.setReservationId(reservation.id());
+        response.setExpiresAt(Instant.ofEpochMilli(expiresAt));
+        return response;
+    }
+
+    /**
+     * [WRITE] Makes a reservation final. Returns false if it is unknown, expired or owned by someone else.
+     */
+    public boolean commitReservation(String email, long reservationId) {
+        return removeReservation(email, reservationId) != null;
+    }
+
+    /**
+     * [WRITE] Gives a reserved unit back. Returns false if it is unknown, expired or owned by someone else.
+     */
+    public boolean releaseReservation(String email, long reservationId) {
+        QuotaReservation reservation = removeReservation(email, reservationId);
+        if (reservation == null) {
+            return false;
+        }
+        refund(reservation);
+        return true;
+    }
+
+    /**
+     * Releases the reservations whose TTL has passed.
+     */
+    @Scheduled(fixedDelay = RESERVATION_TICK_MS)
+    public void expireReservations() {
+        reservationExpiry.advance(System.currentTimeMillis(), reservation -> {
+            if (reservations.remove(reservation.id(), reservation)) {
+                log.info("Quota reservation {} for '{}' expired and was released.", reservation.id(), reservation.email());
+                try {
+                    refund(reservation);
+                } catch (RuntimeException e) {
+                    log.error("Could not refund expired quota reservation {}: {}", reservation.id(), e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Keeps the in-memory counters of every instance in line after the user selected a different tier.
+     */
+    public void onTierSelected(String email, AccountTier tier) {
+        quotaCounters.ifPresent(counters -> counters.updateTier(email, tier));
+        eventPublisher.publishEvent(new UserChangedEvent(UserChangedEvent.Type.TIER_CHANGED, email, tier));
+        eventPublisher.publishEvent(new UsageChangedEvent(email, null));
+        analyticsService.recordTierSelected(tier);
+    }
+
+    /**
+     * Forgets the in-memory counters of a deleted user on every instance.
+     */
+    public void onUserDeleted(String email) {
+        quotaCounters.ifPresent(counters -> counters.remove(email));
+        eventPublisher.publishEvent(UserChangedEvent.of(UserChangedEvent.Type.USER_DELETED, email));
+    }
+
+    private QuotaDecision checkAndIncrement(String email) {
+        QuotaDecision decision = quotaCounters.isPresent()
+                ? quotaCounters.get().tryAcquire(email)
+                : checkAndIncrementInDatabase(email);
+        analyticsService.recordRequest(decision);
+        publishUsage(email, decision);
+        return decision;
+    }
 
+    // --- Database Mode ---
+
+    /**
+     * The rollover, the limit check and the increment are a single conditional UPDATE.
+     * Only a denied request needs a second query, to report the current count.
+     */
+    private QuotaDecision checkAndIncrementInDatabase(String email) {
+        Optional<IncrementedUsage> updated = incrementIfBelowLimit(email);
+        if (updated.isPresent()) {
+            return toQuotaDecision(updated.get());
+        }
+
+        Optional<QuotaUsage> current = userUsageRepository.findQuotaUsageByEmail(email);
+        if (current.isEmpty()) {
+            // Recovery mechanism: create the missing usage record, then count the request against it.
+            transactionTemplate.executeWithoutResult(status -> getOrCreateUsage(userRepository.findByEmail(email)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found"))));
+            updated = incrementIfBelowLimit(email);
+            if (updated.isPresent()) {
+                return toQuotaDecision(updated.get());
+            }
+            current = userUsageRepository.findQuotaUsageByEmail(email);
+        }
+
+        return toQuotaDecision(false, current
+                .orElseThrow(() -> new UsernameNotFoundException("User not found")));
+    }
+
+    private Optional<IncrementedUsage> incrementIfBelowLimit(String email) {
+        return userUsageRepository.incrementIfBelowLimit(email, LocalDate.now(), FREE_TIER_LIMIT, PRO_TIER_LIMIT);
+    }
+
+    /**
+     * Reads the counter without writing: a counter from an earlier day simply reads as 0,
+     * the rollover itself is left to the next increment.
+     */
+    private UsageStatusResponse getUsageStatusFromDatabase(String email) {
+        QuotaUsage usage = userUsageRepository.findQuotaUsageByEmail(email).orElse(null);
+        if (usage == null) {
+            // Recovery mechanism: create the missing usage record.
+            getOrCreateUsage(userRepository.findByEmail(email)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found")));
+            usage = userUsageRepository.findQuotaUsageByEmail(email)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        }
+
+        boolean today = LocalDate.now().equals(usage.getLastRequestDate());
+        return UsageStatusResponse.builder()
+                .dailyCount(today ? usage.getDailyRequestCount() : 0)
+                .dailyMax(getLimitForTier(usage.getAccountTier()))
+                .tier(usage.getAccountTier().name())
+                .hasSelectedTier(usage.isHasSelectedTier())
+                .resetDate(LocalDate.now().plusDays(1).toString()) // Tomorrow
+                .build();
+    }
+
+    // --- Helper Methods ---
+
+    private QuotaReservation removeReservation(String email, long reservationId) {
+        QuotaReservation reservation = reservations.get(reservationId);
+        if (reservation == null || !reservation.email().equals(email)
+                || !reservations.remove(reservationId, reservation)) {
+            return null;
+        }
+        return reservation;
+    }
+
+    private void refund(QuotaReservation reservation) {
+        boolean refunded = quotaCounters.isPresent()
+                ? quotaCounters.get().refund(reservation.email(), reservation.day())
+                : userUsageRepository.decrementForDay(reservation.email(), reservation.day()) > 0;
+        if (refunded) {
+            analyticsService.recordRefund(reservation.tier(), reservation.day());
+        }
+        eventPublisher.publishEvent(new UsageChangedEvent(reservation.email(), null));
+    }
+
+    private void publishUsage(String email, QuotaDecision decision) {
+        if (!decision.allowed()) {
+            return;
+        }
+        eventPublisher.publishEvent(new UsageChangedEvent(email, UsageStatusResponse.builder()
+                .dailyCount(decision.count())
+                .dailyMax(decision.limit())
+                .tier(decision.tier().name())
+                .hasSelectedTier(decision.hasSelectedTier())
+                .resetDate(LocalDate.now().plusDays(1).toString())
+                .build()));
+    }
+
+    private static QuotaDecision toQuotaDecision(IncrementedUsage usage) {
         AccountTier tier = usage.getAccountTier();
-        int limit = getLimitForTier(tier);
-        int currentCount = usage.getDailyRequestCount();
+        return new QuotaDecision(true, usage.getUserId(), usage.getDailyRequestCount(),
+                getLimitForTier(tier), tier, usage.isHasSelectedTier(), usage.getLastRequestDate(), usage.isFirstOfDay());
+    }
 
-        // Check Limit
-        if (currentCount >= limit) {
+    private static QuotaDecision toQuotaDecision(boolean allowed, QuotaUsage usage) {
+        AccountTier tier = usage.getAccountTier();
+        return new QuotaDecision(allowed, usage.getUserId(), usage.getDailyRequestCount(),
+                getLimitForTier(tier), tier, usage.isHasSelectedTier(), usage.getLastRequestDate(), false);
+    }
+
+    private LimitCheckResponse recordScanIfAllowed(String email, QuotaDecision decision, String url, ScanStatus scanStatus) {
+        LimitCheckResponse response = buildLimitCheckResponse(decision);
+        if (decision.allowed()) {
+            response.setScanId(scanHistoryService.recordScan(decision.userId(), decision.tier(), url, scanStatus).getId());
+        }
+        analyticsService.recordRequest(decision);
+        publishUsage(email, decision);
+        return response;
+    }
+
+    private LimitCheckResponse buildLimitCheckResponse(QuotaDecision decision) {
+        return buildLimitCheckResponse(decision.allowed(), decision.count(), decision.limit(), decision.tier());
+    }
+
+    private LimitCheckResponse buildLimitCheckResponse(boolean allowed, int current, int limit, AccountTier tier) {
+        if (!allowed) {
             return LimitCheckResponse.builder()
                     .allowed(false)
                     .reason("Daily limit reached for " + tier + " tier.")
                     .usage(Map.of(
-                            "current", currentCount,
+                            "current", current,
                             "max", limit,
                             "tier", tier
                     ))
@@ -86,15 +375,11 @@ public class LimitService {
                     .build();
         }
 
-        // Increment and Save
-        usage.setDailyRequestCount(currentCount + 1);
-        userUsageRepository.save(usage);
-
         return LimitCheckResponse.builder()
                 .allowed(true)
                 .reason("Request authorized")
                 .usage(Map.of(
-                        "current", usage.getDailyRequestCount() + 1,
+                        "current", current,
                         "max", limit,
                         "tier", tier
                 ))
@@ -102,31 +387,6 @@ public class LimitService {
                 .build();
     }
 
-    /**
-     * [READ] Gets current usage status without incrementing.
-     * Used by the frontend dashboard to show progress bars.
-     */
-    @Transactional
-    public UsageStatusResponse getUserUsageStatus(String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
-        UserUsage usage = getOrCreateUsage(user);
-        
-        // Ensure the data displayed is accurate for "today"
-        resetCounterIfNewDay(usage); 
-
-        return UsageStatusResponse.builder()
-                .dailyCount(usage.getDailyRequestCount())
-                .dailyMax(getLimitForTier(usage.getAccountTier()))
-                .tier(usage.getAccountTier().name())
-                .hasSelectedTier(usage.isHasSelectedTier())
-                .resetDate(LocalDate.now().plusDays(1).toString()) // Tomorrow
-                .build();
-    }
-
-    // --- Helper Methods ---
-
     private UserUsage getOrCreateUsage(User user) {
         UserUsage usage = user.getUserUsage();
         
@@ -136,26 +396,17 @@ public class LimitService {
                     .user(user)
                     .accountTier(AccountTier.FREE)
                     .dailyRequestCount(0)
-                    .lastRequestDate(LocalDate.now())
                     .hasSelectedTier(false)
                     .build();
             user.setUserUsage(usage);
             // Saving usage cascades if configured, but explicit save is safer here
             userUsageRepository.save(usage);
+            userCacheService.invalidate(user.getEmail());
         }
         return usage;
     }
 
-    private void resetCounterIfNewDay(UserUsage usage) {
-        LocalDate today = LocalDate.now();
-        if (usage.getLastRequestDate() == null || !usage.getLastRequestDate().isEqual(today)) {
-            usage.setDailyRequestCount(0);
-            usage.setLastRequestDate(today);
-            userUsageRepository.save(usage);
-        }
-    }
-
-    private int getLimitForTier(AccountTier tier) {
+    static int getLimitForTier(AccountTier tier) {
         if (tier == null) return FREE_TIER_LIMIT;
         return switch (tier) {
             case PRO -> PRO_TIER_LIMIT;
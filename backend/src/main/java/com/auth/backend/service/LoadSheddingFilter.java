@@ -0,0 +1,215 @@
+package com.auth.backend.service;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Sheds low-value requests while the connection pool is saturated, so the quota checks and logins
+ * that the rest of the system depends on keep getting connections.
+ *
+ * The pool is sampled periodically. It counts as under pressure only while every connection is in
+ * use, and then the level depends on how many threads wait for a connection and on the recent
+ * acquisition-time percentiles:
+ * <ul>
+ *   <li>ELEVATED rejects low-priority reads such as the scan history and the admin listings,</li>
+ *   <li>SATURATED rejects everything except the critical paths.</li>
+ * </ul>
+ * Rejected requests get 503 with Retry-After before they reach the security filters or the
+ * admission queues.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(name = "application.load-shedding.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class LoadSheddingFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadSheddingFilter.class);
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    public enum Level {
+        NORMAL, ELEVATED, SATURATED
+    }
+
+    public enum Priority {
+        /** Never shed. */
+        CRITICAL,
+        /** Shed when the pool is saturated. */
+        NORMAL,
+        /** Shed as soon as the pool is under pressure. */
+        LOW
+    }
+
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.load-shedding.elevated.pending-threads:1}")
+    private int elevatedPendingThreads;
+
+    @Value("${application.load-shedding.elevated.acquire-p95-ms:50}")
+    private long elevatedAcquireMs;
+
+    @Value("${application.load-shedding.saturated.pending-threads:8}")
+    private int saturatedPendingThreads;
+
+    @Value("${application.load-shedding.saturated.acquire-p99-ms:500}")
+    private long saturatedAcquireMs;
+
+    @Value("${application.load-shedding.critical-paths:/api/v1/usage/check-limit,/api/v1/usage/authorize-scan,/api/v1/usage/reservations,/api/v1/usage/leases,/api/v1/auth/authenticate,/api/v1/auth/refresh-token,/api/v1/scans/jobs/claim,/api/v1/scans/jobs/*/heartbeat,/api/v1/scans/jobs/*/complete,/api/v1/scans/jobs/*/fail}")
+    private List<String> criticalPaths;
+
+    @Value("${application.load-shedding.low-priority-paths:/api/v1/users/history,/api/v1/scans,/api/v1/admin/users,/api/v1/admin/analytics}")
+    private List<String> lowPriorityPaths;
+
+    @Value("${application.load-shedding.retry-after-seconds:2}")
+    private int retryAfterSeconds;
+
+    private HikariDataSource pool;
+    private volatile Level level = Level.NORMAL;
+
+    @PostConstruct
+    void init() {
+        try {
+            pool = dataSource.unwrap(HikariDataSource.class);
+        } catch (SQLException e) {
+            log.warn("Load shedding is inactive, the data source is not a Hikari pool: {}", e.getMessage());
+        }
+        Gauge.builder("load_shedding.level", this, filter -> filter.level.ordinal())
+                .description("0 normal, 1 elevated (low-priority requests shed), 2 saturated (only critical requests pass)")
+                .register(meterRegistry);
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Recomputes the level from the pool's current state.
+     */
+    @Scheduled(fixedDelayString = "${application.load-shedding.sample-interval-ms:100}")
+    public void sample() {
+        HikariPoolMXBean mxBean = pool != null ? pool.getHikariPoolMXBean() : null;
+        // Not started yet, or idle: an old acquisition spike must not keep shedding
+        if (mxBean == null || mxBean.getActiveConnections() < pool.getMaximumPoolSize()) {
+            setLevel(Level.NORMAL);
+            return;
+        }
+
+        int pending = mxBean.getThreadsAwaitingConnection();
+        double p95 = 0;
+        double p99 = 0;
+        Timer acquire = meterRegistry.find("hikaricp.connections.acquire").tag("pool", pool.getPoolName()).timer();
+        if (acquire != null) {
+            for (ValueAtPercentile percentile : acquire.takeSnapshot().percentileValues()) {
+                if (percentile.percentile() == 0.95) {
+                    p95 = percentile.value(TimeUnit.MILLISECONDS);
+                } else if (percentile.percentile() == 0.99) {
+                    p99 = percentile.value(TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+
+        if (pending >= saturatedPendingThreads || p99 >= saturatedAcquireMs) {
+            setLevel(Level.SATURATED);
+        } else if (pending >= elevatedPendingThreads || p95 >= elevatedAcquireMs) {
+            setLevel(Level.ELEVATED);
+        } else {
+            setLevel(Level.NORMAL);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        Level current = level;
+        if (current != Level.NORMAL) {
+            Priority priority = priorityOf(request);
+            if (priority == Priority.LOW || (priority == Priority.NORMAL && current == Level.SATURATED)) {
+                meterRegistry.counter("load_shedding.rejected",
+                        "priority", priority.name().toLowerCase(Locale.ROOT),
+                        "level", current.name().toLowerCase(Locale.ROOT)).increment();
+                response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    Priority priorityOf(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        if (matchesAny(path, criticalPaths)) {
+            return Priority.CRITICAL;
+        }
+        if (HttpMethod.GET.matches(request.getMethod()) && matchesAny(path, lowPriorityPaths)) {
+            return Priority.LOW;
+        }
+        return Priority.NORMAL;
+    }
+
+    /**
+     * A path matches a configured path if it is that path or below it. Configured paths with
+     * wildcards are Ant-style patterns and must match the whole path.
+     */
+    private static boolean matchesAny(String path, List<String> paths) {
+        for (String configured : paths) {
+            if (PATH_MATCHER.isPattern(configured)) {
+                if (PATH_MATCHER.match(configured, path)) {
+                    return true;
+                }
+            } else if (path.equals(configured)
+                    || (path.startsWith(configured) && path.charAt(configured.length()) == '/')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void setLevel(Level next) {
+        Level previous = level;
+        if (previous != next) {
+            level = next;
+            log.info("Connection pool pressure changed from {} to {}", previous, next);
+        }
+    }
+}
@@ -13,8 +13,8 @@ import org.springframework.security.web.authentication.SimpleUrlAuthenticationSu
 import org.springframework.stereotype.Component;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import com.auth.backend.dto.UserSnapshot;
 import com.auth.backend.model.User;
-import com.auth.backend.repository.UserRepository;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -28,7 +28,7 @@ public class OAuth2LoginSuccessHandler extends SimpleUrlAuthenticationSuccessHan
     private static final Logger log = LoggerFactory.getLogger(OAuth2LoginSuccessHandler.class);
     
     private final JwtService jwtService;
-    private final UserRepository userRepository;
+    private final UserCacheService userCacheService;
     private final CookieService cookieService; 
 
     @Value("${application.security.oauth2.frontend-redirect-url}")
@@ -43,7 +43,8 @@ public class OAuth2LoginSuccessHandler extends SimpleUrlAuthenticationSuccessHan
         OidcUser oidcUser = (OidcUser) authentication.getPrincipal();
         String email = oidcUser.getEmail();
 
-        User user = userRepository.findByEmail(email)
+        User user = userCacheService.findByEmail(email)
+                .map(UserSnapshot::toUser)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found after OAuth2 login: " + email));
 
         String accessToken = jwtService.generateToken(user);
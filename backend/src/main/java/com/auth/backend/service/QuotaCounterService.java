@@ -0,0 +1,376 @@
+package com.auth.backend.service;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import com.auth.backend.enums.AccountTier;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Keeps the daily request counter of each user in memory so the quota check never touches the database.
+ * Counters are rebuilt from user_usage on startup and dirty counters are written back in periodic JDBC batches.
+ *
+ * The counters are local to this instance, so this mode is only correct when a single backend instance
+ * serves the quota endpoints.
+ */
+@Service
+@ConditionalOnProperty(name = "application.quota.mode", havingValue = "in-memory")
+@RequiredArgsConstructor
+public class QuotaCounterService {
+
+    private static final Logger log = LoggerFactory.getLogger(QuotaCounterService.class);
+
+    private static final String LOAD_TODAY_SQL = """
+            select u.email, u.id, uu.account_tier, uu.has_selected_tier, uu.daily_request_count
+            from user_usage uu join _user u on u.id = uu.user_id
+            where uu.last_request_date = ?
+            """;
+
+    private static final String LOAD_USER_SQL = """
+            select u.id, uu.account_tier, uu.has_selected_tier, uu.daily_request_count, uu.last_request_date
+            from _user u left join user_usage uu on uu.user_id = u.id
+            where u.email = ?
+            """;
+
+    private static final String CREATE_USAGE_SQL = """
+            insert into user_usage (user_id, account_tier, has_selected_tier, daily_request_count)
+            values (?, 'FREE', false, 0)
+            on conflict (user_id) do nothing
+            """;
+
+    private static final String LOAD_TIERS_SQL = """
+            select u.email, uu.account_tier, uu.has_selected_tier
+            from _user u join user_usage uu on uu.user_id = u.id
+            where u.email = any (?)
+            """;
+
+    private static final String FLUSH_SQL =
+            "update user_usage set daily_request_count = ?, last_request_date = ? where user_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<String, QuotaCounter> counters = new ConcurrentHashMap<>();
+    private final Set<QuotaCounter> dirtyCounters = ConcurrentHashMap.newKeySet();
+    // Not synchronized: a virtual thread blocked on JDBC inside a monitor would pin its carrier.
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * Outcome of a quota check. The count is the value after the increment when allowed,
+     * and the unchanged value when denied. The day is the one the count belongs to, so a refund
+     * never touches the next day's counter. firstOfDay is set on the request that started the day,
+     * however often refunds bring the count back to 0 later.
+     */
+    public record QuotaDecision(
+            boolean allowed, int userId, int count, int limit, AccountTier tier, boolean hasSelectedTier, LocalDate day,
+            boolean firstOfDay) {
+    }
+
+    /**
+     * Rebuilds the counters of everyone who has already used the quota today.
+     * Other users are loaded on their first request.
+     */
+    @PostConstruct
+    void rebuildCounters() {
+        LocalDate today = LocalDate.now();
+        jdbcTemplate.query(LOAD_TODAY_SQL, rs -> {
+            QuotaCounter counter = new QuotaCounter(rs.getInt(2), AccountTier.valueOf(rs.getString(3)), rs.getBoolean(4));
+            counter.reset(today.toEpochDay(), rs.getInt(5));
+            counters.put(rs.getString(1), counter);
+        }, Date.valueOf(today));
+        log.info("Rebuilt {} in-memory quota counters for {}", counters.size(), today);
+    }
+
+    /**
+     * Increments the user's counter if it is below the limit of the user's tier.
+     */
+    public QuotaDecision tryAcquire(String email) {
+        QuotaCounter counter = getCounter(email);
+        AccountTier tier = counter.getTier();
+        int limit = LimitService.getLimitForTier(tier);
+
+        LocalDate day = LocalDate.now();
+        long today = day.toEpochDay();
+        long previous = counter.tryAcquire(limit, today);
+        if (previous < 0) {
+            return new QuotaDecision(false, counter.getUserId(), counter.getCount(today), limit, tier,
+                    counter.isHasSelectedTier(), day, false);
+        }
+        dirtyCounters.add(counter);
+        boolean firstOfDay = QuotaCounter.epochDay(previous) != today;
+        int count = firstOfDay ? 1 : QuotaCounter.count(previous) + 1;
+        return new QuotaDecision(true, counter.getUserId(), count, limit, tier, counter.isHasSelectedTier(), day, firstOfDay);
+    }
+
+    /**
+     * Gives back one request counted on the given day. Does nothing once the day has rolled over.
+     *
+     * @return whether a request was given back
+     */
+    public boolean refund(String email, LocalDate day) {
+        QuotaCounter counter = counters.get(email);
+        if (counter != null && counter.tryDecrement(day.toEpochDay())) {
+            dirtyCounters.add(counter);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the user's current count without incrementing it.
+     */
+    public QuotaDecision peek(String email) {
+        QuotaCounter counter = getCounter(email);
+        AccountTier tier = counter.getTier();
+        LocalDate day = LocalDate.now();
+        int count = counter.getCount(day.toEpochDay());
+        return new QuotaDecision(
+                true, counter.getUserId(), count, LimitService.getLimitForTier(tier), tier, counter.isHasSelectedTier(), day,
+                false);
+    }
+
+    /**
+     * Applies a tier selection to a loaded counter. Unloaded users pick up the new tier when they are loaded.
+     */
+    public void updateTier(String email, AccountTier tier) {
+        QuotaCounter counter = counters.get(email);
+        if (counter != null) {
+            counter.setTier(tier);
+            counter.setHasSelectedTier(true);
+        }
+    }
+
+    /**
+     * Drops the counter of a deleted user, so a new account with the same email starts from the database.
+     */
+    public void remove(String email) {
+        QuotaCounter counter = counters.remove(email);
+        if (counter != null) {
+            dirtyCounters.remove(counter);
+        }
+    }
+
+    /**
+     * Reloads the tier of every loaded counter and drops the counters of users that no longer exist.
+     * Used after tier changes or deletions by other instances may have been missed.
+     */
+    public void refreshTiers() {
+        if (counters.isEmpty()) {
+            return;
+        }
+        Set<String> missing = new HashSet<>(counters.keySet());
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(LOAD_TIERS_SQL);
+            statement.setArray(1, connection.createArrayOf("text", missing.toArray()));
+            return statement;
+        }, rs -> {
+            String email = rs.getString(1);
+            missing.remove(email);
+            QuotaCounter counter = counters.get(email);
+            if (counter != null) {
+                counter.setTier(AccountTier.valueOf(rs.getString(2)));
+                counter.setHasSelectedTier(rs.getBoolean(3));
+            }
+        });
+        missing.forEach(this::remove);
+    }
+
+    /**
+     * Writes every counter that changed since the last flush to user_usage in one JDBC batch.
+     */
+    @Scheduled(fixedDelayString = "${application.quota.flush-interval-ms:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            if (dirtyCounters.isEmpty()) {
+                return;
+            }
+
+            List<QuotaCounter> flushed = new ArrayList<>();
+            List<Object[]> batch = new ArrayList<>();
+            for (QuotaCounter counter : dirtyCounters) {
+                // Removed before the state is read, so an increment racing with the flush marks it dirty again.
+                dirtyCounters.remove(counter);
+                long state = counter.getState();
+                flushed.add(counter);
+                batch.add(new Object[] {
+                        QuotaCounter.count(state),
+                        Date.valueOf(LocalDate.ofEpochDay(QuotaCounter.epochDay(state))),
+                        counter.getUserId()
+                });
+            }
+
+            try {
+                jdbcTemplate.batchUpdate(FLUSH_SQL, batch);
+                log.debug("Flushed {} quota counters", batch.size());
+            } catch (RuntimeException e) {
+                dirtyCounters.addAll(flushed);
+                log.error("Failed to flush {} quota counters, will retry: {}", batch.size(), e.getMessage());
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private QuotaCounter getCounter(String email) {
+        QuotaCounter counter = counters.get(email);
+        if (counter != null) {
+            return counter;
+        }
+        // Loaded outside the map so a slow query never blocks other users' counters.
+        QuotaCounter loaded = loadCounter(email);
+        QuotaCounter existing = counters.putIfAbsent(email, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private QuotaCounter loadCounter(String email) {
+        LocalDate today = LocalDate.now();
+        List<QuotaCounter> rows = jdbcTemplate.query(LOAD_USER_SQL, (rs, rowNum) -> {
+            String tier = rs.getString(2);
+            QuotaCounter counter = new QuotaCounter(
+                    rs.getInt(1), tier != null ? AccountTier.valueOf(tier) : null, rs.getBoolean(3));
+            Date lastRequestDate = rs.getDate(5);
+            if (lastRequestDate != null && lastRequestDate.toLocalDate().isEqual(today)) {
+                counter.reset(today.toEpochDay(), rs.getInt(4));
+            }
+            return counter;
+        }, email);
+
+        if (rows.isEmpty()) {
+            throw new UsernameNotFoundException("User not found");
+        }
+        QuotaCounter counter = rows.get(0);
+        if (counter.getTier() == null) {
+            // Recovery mechanism: existing user without a usage record.
+            jdbcTemplate.update(CREATE_USAGE_SQL, counter.getUserId());
+            counter.setTier(AccountTier.FREE);
+        }
+        return counter;
+    }
+
+    /**
+     * Lock-free daily counter. The day and the count are packed into one long so the day rollover
+     * and the bounded increment happen in a single compare-and-set.
+     */
+    static final class QuotaCounter {
+
+        private final int userId;
+        private volatile AccountTier tier;
+        private volatile boolean hasSelectedTier;
+        private final AtomicLong state = new AtomicLong();
+
+        QuotaCounter(int userId, AccountTier tier, boolean hasSelectedTier) {
+            this.userId = userId;
+            this.tier = tier;
+            this.hasSelectedTier = hasSelectedTier;
+        }
+
+        /**
+         * Returns the new count, or -1 if the limit for the given day has already been reached.
+         */
+        int tryIncrement(int limit, long today) {
+            long previous = tryAcquire(limit, today);
+            if (previous < 0) {
+                return -1;
+            }
+            return epochDay(previous) == today ? count(previous) + 1 : 1;
+        }
+
+        /**
+         * Like tryIncrement, but returns the state before the increment, or -1 if the limit is reached.
+         */
+        long tryAcquire(int limit, long today) {
+            while (true) {
+                long current = state.get();
+                int count = epochDay(current) == today ? count(current) : 0;
+                if (count >= limit) {
+                    return -1;
+                }
+                if (state.compareAndSet(current, pack(today, count + 1))) {
+                    return current;
+                }
+            }
+        }
+
+        boolean tryDecrement(long day) {
+            while (true) {
+                long current = state.get();
+                if (epochDay(current) != day || count(current) == 0) {
+                    return false;
+                }
+                if (state.compareAndSet(current, current - 1)) {
+                    return true;
+                }
+            }
+        }
+
+        int getCount(long today) {
+            long current = state.get();
+            return epochDay(current) == today ? count(current) : 0;
+        }
+
+        void reset(long epochDay, int count) {
+            state.set(pack(epochDay, count));
+        }
+
+        long getState() {
+            return state.get();
+        }
+
+        int getUserId() {
+            return userId;
+        }
+
+        AccountTier getTier() {
+            return tier;
+        }
+
+        void setTier(AccountTier tier) {
+            this.tier = tier;
+        }
+
+        boolean isHasSelectedTier() {
+            return hasSelectedTier;
+        }
+
+        void setHasSelectedTier(boolean hasSelectedTier) {
+            this.hasSelectedTier = hasSelectedTier;
+        }
+
+        static long pack(long epochDay, int count) {
+            return (epochDay << 32) | (count & 0xFFFFFFFFL);
+        }
+
+        static long epochDay(long state) {
+            return state >>> 32;
+        }
+
+        static int count(long state) {
+            return (int) state;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.auth.backend.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.auth.backend.enums.AccountTier;
+import com.auth.backend.model.ScanHistory;
+import com.auth.backend.repository.ScanHistoryRepository;
+import com.auth.backend.repository.UserRepository;
+import com.auth.backend.repository.UserRepository.UserIdAndEmail;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Accepts scan history records into a bounded in-memory queue and writes them in JDBC batches
+ * from a single writer thread. A batch is written once it is full or once the oldest record
+ * has waited for the flush interval, whichever comes first.
+ *
+ * Accepted records that are still queued when the application stops are written before shutdown;
+ * records are lost only if the process dies without a graceful shutdown.
+ *
+ * A batch that fails because the database is unavailable (no connection, timeouts, lock conflicts)
+ * is retried with exponential backoff until it is written; meanwhile the queue fills up and new
+ * records are turned away. Only during shutdown does the writer give up after the first retry. Any other
+ * failure means a record itself cannot be written: the batch is then written one record at a time,
+ * and only the records that still fail are dropped, as are records of users that no longer exist.
+ */
+@Service
+@ConditionalOnProperty(name = "application.scan-history.ingestion.mode", havingValue = "batched")
+@RequiredArgsConstructor
+public class ScanHistoryIngestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ScanHistoryIngestionService.class);
+
+    // Upper bound for a single wait on the queue, so that stop() is noticed quickly
+    private static final long MAX_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final ScanHistoryRepository scanHistoryRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AnalyticsService analyticsService;
+    private final ScanSketchService scanSketchService;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${application.scan-history.ingestion.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${application.scan-history.ingestion.batch-size:500}")
+    private int batchSize;
+
+    @Value("${application.scan-history.ingestion.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    // How long a caller waits for queue space before it is turned away
+    @Value("${application.scan-history.ingestion.enqueue-timeout-ms:100}")
+    private long enqueueTimeoutMs;
+
+    @Value("${application.scan-history.ingestion.retry-backoff-ms:100}")
+    private long retryBackoffMs;
+
+    @Value("${application.scan-history.ingestion.retry-max-backoff-ms:5000}")
+    private long retryMaxBackoffMs;
+
+    private BlockingQueue<PendingScan> queue;
+    private Thread writer;
+    private volatile boolean running;
+
+    private Counter acceptedCounter;
+    private Counter rejectedCounter;
+    private Counter writtenCounter;
+    private Counter failedCounter;
+    private Counter retryCounter;
+
+    private record PendingScan(String email, String url, LocalDateTime createdAt) {
+    }
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        meterRegistry.gauge("scan_history.ingestion.queue.size", queue, BlockingQueue::size);
+        acceptedCounter = meterRegistry.counter("scan_history.ingestion.records", "outcome", "accepted");
+        rejectedCounter = meterRegistry.counter("scan_history.ingestion.records", "outcome", "rejected");
+        writtenCounter = meterRegistry.counter("scan_history.ingestion.records", "outcome", "written");
+        failedCounter = meterRegistry.counter("scan_history.ingestion.records", "outcome", "failed");
+        retryCounter = meterRegistry.counter("scan_history.ingestion.retries");
+
+        running = true;
+        writer = new Thread(this::writeLoop, "scan-history-writer");
+        writer.start();
+    }
+
+    /**
+     * Queues a scan record. Waits briefly for space when the queue is full.
+     *
+     * @return false if the queue stayed full, in which case the caller should retry later
+     */
+    public boolean submit(String email, String url, LocalDateTime createdAt) throws InterruptedException {
+        if (!running) {
+            return false;
+        }
+        if (!queue.offer(new PendingScan(email, url, createdAt), enqueueTimeoutMs, TimeUnit.MILLISECONDS)) {
+            rejectedCounter.increment();
+            return false;
+        }
+        acceptedCounter.increment();
+        return true;
+    }
+
+    /**
+     * Stops accepting records and waits until everything already accepted has been written.
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        writer.join();
+        log.info("Scan history writer stopped; {} records left unwritten.", queue.size());
+    }
+
+    private void writeLoop() {
+        List<PendingScan> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                collectBatch(batch);
+            } catch (InterruptedException e) {
+                // Only stop() ends the loop, so accepted records are always drained.
+                log.warn("Scan history writer was interrupted; continuing.");
+            }
+            if (batch.isEmpty()) {
+                continue;
+            }
+            try {
+                writeWithRetry(batch);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes the records, retrying while the database is unavailable and isolating records that cannot be written.
+     */
+    private void writeWithRetry(List<PendingScan> records) {
+        long backoffMs = retryBackoffMs;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                write(records);
+                return;
+            } catch (RuntimeException e) {
+                if (!isTransient(e)) {
+                    dropFailing(records, e);
+                    return;
+                }
+                if (!running && attempt > 1) {
+                    failedCounter.increment(records.size());
+                    log.error("Shutting down; giving up on {} scan history records: {}", records.size(), e.getMessage());
+                    return;
+                }
+                retryCounter.increment();
+                log.warn("Failed to write {} scan history records, retrying in {} ms: {}",
+                        records.size(), backoffMs, e.getMessage());
+                sleep(backoffMs);
+                backoffMs = Math.min(backoffMs * 2, retryMaxBackoffMs);
+            }
+        }
+    }
+
+    private void dropFailing(List<PendingScan> records, RuntimeException e) {
+        if (records.size() == 1) {
+            failedCounter.increment();
+            log.error("Dropping scan history record for '{}' ({}): {}", records.get(0).email(), records.get(0).url(), e.getMessage());
+            return;
+        }
+        // The whole batch was rolled back; write the records one by one so only the failing ones are lost.
+        for (PendingScan pending : records) {
+            writeWithRetry(List.of(pending));
+        }
+    }
+
+    /**
+     * Failures that say nothing about the records themselves, so the same write may succeed later.
+     */
+    private static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof TransactionException;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            // Interrupts do not stop the writer, see writeLoop.
+        }
+    }
+
+    /**
+     * Waits for the first record, then keeps collecting until the batch is full or the flush interval has passed.
+     */
+    private void collectBatch(List<PendingScan> batch) throws InterruptedException {
+        PendingScan first = queue.poll(MAX_POLL_NANOS, TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        while (batch.size() < batchSize && running) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                return;
+            }
+            PendingScan next = queue.poll(Math.min(remaining, MAX_POLL_NANOS), TimeUnit.NANOSECONDS);
+            if (next != null) {
+                batch.add(next);
+            }
+        }
+        // Shutting down: take whatever fits without waiting.
+        queue.drainTo(batch, batchSize - batch.size());
+    }
+
+    private void write(List<PendingScan> batch) {
+        List<ScanHistory> written = new ArrayList<>(batch.size());
+        Map<AccountTier, Integer> writtenPerTier = transactionTemplate.execute(status -> {
+            // One query resolves the ids of every user in the batch; the users themselves are never loaded.
+            Map<String, UserIdAndEmail> users = new HashMap<>();
+            userRepository.findIdsByEmailIn(batch.stream().map(PendingScan::email).distinct().toList())
+                    .forEach(user -> users.put(user.getEmail(), user));
+
+            List<ScanHistory> scans = new ArrayList<>(batch.size());
+            Map<AccountTier, Integer> scansPerTier = new EnumMap<>(AccountTier.class);
+            for (PendingScan pending : batch) {
+                UserIdAndEmail user = users.get(pending.email());
+                if (user == null) {
+                    log.warn("Dropping scan history record for unknown user '{}'.", pending.email());
+                    continue;
+                }
+                scans.add(ScanHistory.builder()
+                        .url(pending.url())
+                        .createdAt(pending.createdAt())
+                        .user(userRepository.getReferenceById(user.getId()))
+                        .build());
+                scansPerTier.merge(user.getAccountTier() != null ? user.getAccountTier() : AccountTier.FREE, 1, Integer::sum);
+            }
+            scanHistoryRepository.saveAll(scans);
+            writtenCounter.increment(scans.size());
+            written.addAll(scans);
+            return scansPerTier;
+        });
+        writtenPerTier.forEach(analyticsService::recordScans);
+        for (ScanHistory scan : written) {
+            scanSketchService.record(scan.getUser().getId(), scan.getUrl());
+            eventPublisher.publishEvent(new ScanStatusChangedEvent(
+                    scan.getUser().getId(), null, scan.getId(), scan.getUrl(), scan.getStatus()));
+        }
+    }
+}
@@ -1,15 +1,22 @@
 package com.auth.backend.service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
-import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.auth.backend.dto.ScanHistoryDto;
+import com.auth.backend.dto.UserSnapshot;
+import com.auth.backend.enums.AccountTier;
+import com.auth.backend.enums.ScanStatus;
 import com.auth.backend.model.ScanHistory;
-import com.auth.backend.model.User;
 import com.auth.backend.repository.ScanHistoryRepository;
 import com.auth.backend.repository.UserRepository;
 
@@ -21,29 +28,111 @@ public class ScanHistoryService {
 
     private final UserRepository userRepository;
     private final ScanHistoryRepository scanHistoryRepository;
+    private final AnalyticsService analyticsService;
+    private final ScanSketchService scanSketchService;
+    private final UserCacheService userCacheService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${application.scan-history.page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${application.scan-history.max-page-size:100}")
+    private int maxPageSize;
+
+    /**
+     * A page of scan history. nextCursor is null on the last page.
+     */
+    public record ScanHistoryPage(List<ScanHistoryDto> items, String nextCursor) {
+    }
 
     @Transactional
     public ScanHistoryDto createScan(String email, String url) {
-        User user = userRepository.findByEmail(email)
+        UserSnapshot user = userCacheService.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
         ScanHistory newScan = ScanHistory.builder()
                 .url(url)
-                .user(user)
+                .user(userRepository.getReferenceById(user.id()))
                 .build();
 
         ScanHistory savedScan = scanHistoryRepository.save(newScan);
+        analyticsService.recordScans(user.accountTier() != null ? user.accountTier() : AccountTier.FREE, 1);
+        scanSketchService.record(user.id(), url);
+        eventPublisher.publishEvent(new ScanStatusChangedEvent(user.id(), email, savedScan.getId(), url, savedScan.getStatus()));
         return ScanHistoryDto.fromEntity(savedScan);
     }
 
+    /**
+     * Records a scan for a user whose id and tier are already known, without loading the user.
+     */
+    @Transactional
+    public ScanHistoryDto recordScan(Integer userId, AccountTier tier, String url) {
+        return recordScan(userId, tier, url, ScanStatus.COMPLETED);
+    }
+
+    /**
+     * Records a scan in the given state; QUEUED makes it a job for the agent workers.
+     */
+    @Transactional
+    public ScanHistoryDto recordScan(Integer userId, AccountTier tier, String url, ScanStatus status) {
+        ScanHistory newScan = ScanHistory.builder()
+                .url(url)
+                .status(status)
+                .user(userRepository.getReferenceById(userId))
+                .build();
+
+        ScanHistory savedScan = scanHistoryRepository.save(newScan);
+        analyticsService.recordScans(tier, 1);
+        scanSketchService.record(userId, url);
+        eventPublisher.publishEvent(new ScanStatusChangedEvent(userId, null, savedScan.getId(), url, status));
+        return ScanHistoryDto.fromEntity(savedScan);
+    }
+
+    /**
+     * [READ] One page of the user's scan history, newest first. Rows are projected straight into
+     * ScanHistoryDto, so neither the user nor the scans are loaded as entities.
+     *
+     * @param cursor the nextCursor of the previous page, or null for the first page
+     * @param size the page size, or null for the configured default
+     */
     @Transactional(readOnly = true)
-    public List<ScanHistoryDto> getScanHistory(String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+    public ScanHistoryPage getScanHistory(String email, String cursor, Integer size) {
+        int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+        // One extra row tells whether there is a next page.
+        Limit limit = Limit.of(pageSize + 1);
+
+        List<ScanHistoryDto> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = scanHistoryRepository.findPageByEmail(email, limit);
+        } else {
+            ScanHistoryDto after = decodeCursor(cursor);
+            rows = scanHistoryRepository.findPageByEmailAfter(email, after.getCreatedAt(), after.getId(), limit);
+        }
+
+        if (rows.size() <= pageSize) {
+            return new ScanHistoryPage(rows, null);
+        }
+        List<ScanHistoryDto> items = rows.subList(0, pageSize);
+        return new ScanHistoryPage(items, encodeCursor(items.get(pageSize - 1)));
+    }
+
+    // --- Cursor Helpers ---
+
+    private static String encodeCursor(ScanHistoryDto last) {
+        String position = last.getCreatedAt() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
 
-        return scanHistoryRepository.findByUserOrderByCreatedAtDesc(user)
-                .stream()
-                .map(ScanHistoryDto::fromEntity) 
-                .collect(Collectors.toList());
+    private static ScanHistoryDto decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.lastIndexOf('|');
+            return ScanHistoryDto.builder()
+                    .createdAt(LocalDateTime.parse(position.substring(0, separator)))
+                    .id(Integer.valueOf(position.substring(separator + 1)))
+                    .build();
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid history cursor.");
+        }
     }
-}
\ No newline at end of file
+}
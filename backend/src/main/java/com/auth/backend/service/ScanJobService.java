@@ -0,0 +1,343 @@
+package com.auth.backend.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.auth.backend.enums.AccountTier;
+import com.auth.backend.enums.ScanStatus;
+import com.auth.backend.service.LimitService.LimitCheckResponse;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Queue of scans waiting for an agent worker, kept in scan_history itself: a queued scan is a row in
+ * status QUEUED, and a worker claims it by moving it to RUNNING with a visibility deadline.
+ *
+ * Workers claim jobs in batches with one statement that locks the picked rows with SKIP LOCKED, so
+ * concurrent workers never wait for each other and never get the same job. Jobs are handed out in
+ * weighted fair order between users: a user's n-th job (counting the ones already running) gets the
+ * turn n / weight of the user's tier, and the lowest turns go first. A PRO user's fifth job thus
+ * ranks with a FREE user's first, and a burst from one user never holds back the others.
+ *
+ * A worker keeps its jobs by sending heartbeats before the visibility deadline. Jobs whose deadline
+ * passes are queued again, or marked FAILED once they have been claimed max-attempts times.
+ */
+@Service
+@RequiredArgsConstructor
+public class ScanJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ScanJobService.class);
+
+    private static final String CLAIM_SQL = """
+            with running as (
+                select user_id, count(*) as jobs
+                from scan_history
+                where status = 'RUNNING'
+                group by user_id
+            ), turns as (
+                select q.id, q.created_at,
+                       (row_number() over (partition by q.user_id order by q.created_at, q.id) + coalesce(r.jobs, 0))::float8
+                           / case coalesce(uu.account_tier, 'FREE') when 'PRO' then ? when 'PREMIUM' then ? else ? end as turn
+                from scan_history q
+                left join running r on r.user_id = q.user_id
+                left join user_usage uu on uu.user_id = q.user_id
+                where q.status = 'QUEUED'
+            ), picked as (
+                select s.id, t.turn
+                from scan_history s join turns t on t.id = s.id
+                where s.status = 'QUEUED'
+                order by t.turn, t.created_at, t.id
+                limit ?
+                for update of s skip locked
+            ), claimed as (
+                update scan_history s
+                set status = 'RUNNING', attempts = s.attempts + 1, worker_id = ?,
+                    visible_until = localtimestamp + ? * interval '1 millisecond'
+                from picked p, _user u left join user_usage uu on uu.user_id = u.id
+                where s.id = p.id and u.id = s.user_id
+                returning s.id, s.url, u.email, uu.account_tier, s.status, s.attempts, s.created_at, s.visible_until, p.turn
+            )
+            select id, url, email, account_tier, status, attempts, created_at, visible_until
+            from claimed
+            order by turn, created_at, id
+            """;
+
+    private static final String FIND_SQL = """
+            select s.id, s.url, u.email, uu.account_tier, s.status, s.attempts, s.created_at, s.visible_until
+            from scan_history s join _user u on u.id = s.user_id left join user_usage uu on uu.user_id = u.id
+            where s.id = ? and u.email = ?
+            """;
+
+    private static final String HEARTBEAT_SQL = """
+            update scan_history
+            set visible_until = localtimestamp + ? * interval '1 millisecond'
+            where id = ? and status = 'RUNNING' and worker_id = ? and visible_until >= localtimestamp
+            returning visible_until
+            """;
+
+    private static final String FIND_OWNER_SQL = """
+            select u.email, s.url
+            from scan_history s join _user u on u.id = s.user_id
+            where s.id = ? and s.status = 'RUNNING' and s.worker_id = ?
+            """;
+
+    private static final String COMPLETE_SQL = """
+            update scan_history
+            set status = 'COMPLETED', worker_id = null, visible_until = null
+            where id = ? and status = 'RUNNING' and worker_id = ?
+            """;
+
+    private static final String FAIL_SQL = """
+            update scan_history
+            set status = case when ? and attempts < ? then 'QUEUED' else 'FAILED' end,
+                worker_id = null, visible_until = null
+            where id = ? and status = 'RUNNING' and worker_id = ?
+            returning status, url, (select email from _user u where u.id = user_id)
+            """;
+
+    private static final String REQUEUE_EXPIRED_SQL = """
+            update scan_history
+            set status = case when attempts < ? then 'QUEUED' else 'FAILED' end,
+                worker_id = null, visible_until = null
+            where status = 'RUNNING' and visible_until < localtimestamp
+            returning id, status, url, (select email from _user u where u.id = user_id)
+            """;
+
+    private static final String QUEUE_DEPTH_SQL = """
+            select coalesce(uu.account_tier, 'FREE'), count(*), min(s.created_at)
+            from scan_history s left join user_usage uu on uu.user_id = s.user_id
+            where s.status = 'QUEUED'
+            group by 1
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LimitService limitService;
+    private final ScanReportService scanReportService;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${application.scan-jobs.visibility-timeout-ms:60000}")
+    private long visibilityTimeoutMs;
+
+    @Value("${application.scan-jobs.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${application.scan-jobs.requeue-enabled:true}")
+    private boolean requeueEnabled;
+
+    @Value("${application.scan-jobs.max-claim:20}")
+    private int maxClaim;
+
+    @Value("${application.scan-jobs.weights.free:1}")
+    private int freeWeight;
+
+    @Value("${application.scan-jobs.weights.premium:2}")
+    private int premiumWeight;
+
+    @Value("${application.scan-jobs.weights.pro:5}")
+    private int proWeight;
+
+    // Refreshed by sampleQueue, so scraping the gauges never queries the database
+    private final Map<AccountTier, AtomicLong> queueDepth = new EnumMap<>(AccountTier.class);
+    private final AtomicLong oldestQueuedSeconds = new AtomicLong();
+
+    private Counter requeuedCounter;
+    private Counter failedCounter;
+
+    /**
+     * A scan job as seen by its owner and by the workers.
+     *
+     * @param visibleUntil deadline of the current claim, null unless RUNNING
+     */
+    public record ScanJob(
+            Integer id, String url, String email, AccountTier tier, ScanStatus status,
+            int attempts, LocalDateTime createdAt, LocalDateTime visibleUntil) {
+    }
+
+    @PostConstruct
+    void initMetrics() {
+        for (AccountTier tier : AccountTier.values()) {
+            AtomicLong depth = new AtomicLong();
+            queueDepth.put(tier, depth);
+            meterRegistry.gauge("scan_jobs.queue.depth", Tags.of("tier", tier.name()), depth);
+        }
+        meterRegistry.gauge("scan_jobs.queue.oldest.seconds", oldestQueuedSeconds);
+        requeuedCounter = meterRegistry.counter("scan_jobs.expired", "outcome", "requeued");
+        failedCounter = meterRegistry.counter("scan_jobs.expired", "outcome", "failed");
+    }
+
+    /**
+     * [WRITE] Counts the scan against the daily quota and queues it for the workers.
+     * The response carries the job id as scanId when the quota allowed it.
+     */
+    public LimitCheckResponse enqueue(String email, String url) {
+        LimitCheckResponse response = limitService.queueScan(email, url);
+        if (response.isAllowed()) {
+            meterRegistry.counter("scan_jobs.enqueued", "tier", String.valueOf(response.getUsage().get("tier"))).increment();
+        }
+        return response;
+    }
+
+    /**
+     * [READ] One of the user's jobs, or empty if it does not exist or belongs to someone else.
+     */
+    public Optional<ScanJob> findJob(String email, Integer jobId) {
+        return jdbcTemplate.query(FIND_SQL, ScanJobService::toScanJob, jobId, email).stream().findFirst();
+    }
+
+    /**
+     * [WRITE] Hands up to max queued jobs to the worker, in weighted fair order, for the visibility timeout.
+     */
+    public List<ScanJob> claim(String workerId, int max) {
+        int limit = Math.max(1, Math.min(max, maxClaim));
+        List<ScanJob> jobs = jdbcTemplate.query(CLAIM_SQL, ScanJobService::toScanJob,
+                proWeight, premiumWeight, freeWeight, limit, workerId, visibilityTimeoutMs);
+
+        LocalDateTime now = LocalDateTime.now();
+        for (ScanJob job : jobs) {
+            eventPublisher.publishEvent(new ScanStatusChangedEvent(null, job.email(), job.id(), job.url(), job.status()));
+            // Time in the queue before the first claim; retries would count their earlier runs as waiting
+            if (job.attempts() == 1) {
+                Timer.builder("scan_jobs.wait")
+                        .tag("tier", job.tier().name())
+                        .register(meterRegistry)
+                        .record(Duration.between(job.createdAt(), now));
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * [WRITE] Extends the worker's claim on the job by the visibility timeout.
+     *
+     * @return the new deadline, or empty if the job is not running under this worker any more
+     */
+    public Optional<LocalDateTime> heartbeat(Integer jobId, String workerId) {
+        return jdbcTemplate.queryForList(HEARTBEAT_SQL, LocalDateTime.class, visibilityTimeoutMs, jobId, workerId)
+                .stream().findFirst();
+    }
+
+    /**
+     * [WRITE] Marks the job as done, attaching the report first if there is one.
+     *
+     * @param report the JSON report as UTF-8 bytes, or null
+     * @return false if the job is not running under this worker any more
+     * @throws IllegalArgumentException if the report is empty or larger than the configured maximum
+     */
+    public boolean complete(Integer jobId, String workerId, byte[] report) throws IOException {
+        List<String[]> owner = jdbcTemplate.query(FIND_OWNER_SQL,
+                (rs, rowNum) -> new String[] { rs.getString(1), rs.getString(2) }, jobId, workerId);
+        if (owner.isEmpty()) {
+            return false;
+        }
+        String email = owner.get(0)[0];
+        if (report != null && !scanReportService.attachReport(email, jobId, new ByteArrayInputStream(report))) {
+            return false;
+        }
+        if (jdbcTemplate.update(COMPLETE_SQL, jobId, workerId) == 0) {
+            return false;
+        }
+        meterRegistry.counter("scan_jobs.finished", "outcome", "completed").increment();
+        eventPublisher.publishEvent(new ScanStatusChangedEvent(null, email, jobId, owner.get(0)[1], ScanStatus.COMPLETED));
+        return true;
+    }
+
+    /**
+     * [WRITE] Gives the job up. It is queued again if retry is set and attempts are left, otherwise it fails.
+     *
+     * @return the job's new status, or empty if it is not running under this worker any more
+     */
+    public Optional<ScanStatus> fail(Integer jobId, String workerId, boolean retry) {
+        Optional<ScanStatusChangedEvent> changed = jdbcTemplate.query(FAIL_SQL,
+                (rs, rowNum) -> new ScanStatusChangedEvent(null, rs.getString(3), jobId, rs.getString(2),
+                        ScanStatus.valueOf(rs.getString(1))),
+                retry, maxAttempts, jobId, workerId).stream().findFirst();
+        changed.ifPresent(event -> {
+            meterRegistry.counter("scan_jobs.finished",
+                    "outcome", event.status() == ScanStatus.QUEUED ? "retried" : "failed").increment();
+            eventPublisher.publishEvent(event);
+        });
+        return changed.map(ScanStatusChangedEvent::status);
+    }
+
+    @Scheduled(fixedDelayString = "${application.scan-jobs.requeue-interval-ms:5000}")
+    void scheduledRequeue() {
+        if (requeueEnabled) {
+            requeueExpired();
+        }
+    }
+
+    /**
+     * Queues the jobs of workers that stopped sending heartbeats again.
+     */
+    public void requeueExpired() {
+        List<ScanStatusChangedEvent> expired = jdbcTemplate.query(REQUEUE_EXPIRED_SQL,
+                (rs, rowNum) -> new ScanStatusChangedEvent(null, rs.getString(4), rs.getInt(1), rs.getString(3),
+                        ScanStatus.valueOf(rs.getString(2))),
+                maxAttempts);
+        if (expired.isEmpty()) {
+            return;
+        }
+        long failed = expired.stream().filter(event -> event.status() == ScanStatus.FAILED).count();
+        requeuedCounter.increment(expired.size() - failed);
+        failedCounter.increment(failed);
+        expired.forEach(eventPublisher::publishEvent);
+        log.warn("{} scan jobs passed their visibility timeout: {} queued again, {} failed.",
+                expired.size(), expired.size() - failed, failed);
+    }
+
+    /**
+     * Refreshes the queue depth gauges.
+     */
+    @Scheduled(fixedDelayString = "${application.scan-jobs.sample-interval-ms:5000}")
+    public void sampleQueue() {
+        Map<AccountTier, Long> depths = new EnumMap<>(AccountTier.class);
+        LocalDateTime[] oldest = new LocalDateTime[1];
+        jdbcTemplate.query(QUEUE_DEPTH_SQL, rs -> {
+            depths.put(AccountTier.valueOf(rs.getString(1)), rs.getLong(2));
+            LocalDateTime createdAt = rs.getTimestamp(3).toLocalDateTime();
+            if (oldest[0] == null || createdAt.isBefore(oldest[0])) {
+                oldest[0] = createdAt;
+            }
+        });
+        queueDepth.forEach((tier, depth) -> depth.set(depths.getOrDefault(tier, 0L)));
+        oldestQueuedSeconds.set(oldest[0] == null ? 0 : Duration.between(oldest[0], LocalDateTime.now()).toSeconds());
+    }
+
+    private static ScanJob toScanJob(ResultSet rs, int rowNum) throws SQLException {
+        String tier = rs.getString(4);
+        Timestamp visibleUntil = rs.getTimestamp(8);
+        return new ScanJob(
+                rs.getInt(1),
+                rs.getString(2),
+                rs.getString(3),
+                tier != null ? AccountTier.valueOf(tier) : AccountTier.FREE,
+                ScanStatus.valueOf(rs.getString(5)),
+                rs.getInt(6),
+                rs.getTimestamp(7).toLocalDateTime(),
+                visibleUntil != null ? visibleUntil.toLocalDateTime() : null);
+    }
+}
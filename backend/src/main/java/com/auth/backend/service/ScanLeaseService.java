@@ -0,0 +1,247 @@
+package com.auth.backend.service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import com.auth.backend.dto.UserSnapshot;
+import com.auth.backend.enums.AccountTier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Limits how many scans a user can have in flight at once, next to the daily quota of LimitService.
+ *
+ * Each running scan holds a lease on one of the user's slots. A user has as many slots as the
+ * highest tier limit, and an acquire only claims one of the first limit-of-their-tier slots with a
+ * compare-and-set, so concurrent acquires never overbook and never block each other. The agent keeps a
+ * lease alive with heartbeats; a lease whose TTL passes without one is reclaimed, so a crashed scan
+ * frees its slot without anyone releasing it.
+ *
+ * Leases are held in memory only: they do not survive a restart and have to be renewed and released
+ * on the instance that granted them. After a downgrade, leases above the new limit run to their end.
+ */
+@Service
+@RequiredArgsConstructor
+public class ScanLeaseService {
+
+    private static final Logger log = LoggerFactory.getLogger(ScanLeaseService.class);
+
+    // Expiry has half-second precision; the wheel covers ~2 minutes per rotation
+    private static final long LEASE_TICK_MS = 500;
+    private static final int LEASE_WHEEL_SIZE = 256;
+
+    // expiresAt of a lease that was released or has expired
+    private static final long ENDED = Long.MIN_VALUE;
+
+    private final UserCacheService userCacheService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.scan-lease.max-concurrent.free:1}")
+    private int freeMaxConcurrent;
+
+    @Value("${application.scan-lease.max-concurrent.premium:2}")
+    private int premiumMaxConcurrent;
+
+    @Value("${application.scan-lease.max-concurrent.pro:5}")
+    private int proMaxConcurrent;
+
+    @Value("${application.scan-lease.ttl-ms:30000}")
+    private long ttlMs;
+
+    private final Map<String, AtomicReferenceArray<ScanLease>> slotsByEmail = new ConcurrentHashMap<>();
+    private final Map<Long, ScanLease> leases = new ConcurrentHashMap<>();
+    private final AtomicLong leaseSequence = new AtomicLong();
+    private final TimerWheel<ScanLease> leaseExpiry =
+            new TimerWheel<>(LEASE_TICK_MS, LEASE_WHEEL_SIZE, System.currentTimeMillis());
+
+    private int slotsPerUser;
+    private Counter expiredCounter;
+
+    /**
+     * A claimed slot. Heartbeats, releases and the expiry race on expiresAt: whoever moves it to
+     * ENDED first ends the lease, and a heartbeat only extends a lease that has not ended.
+     */
+    private record ScanLease(long id, String email, int slot, AtomicLong expiresAt) {
+    }
+
+    @Data
+    @Builder
+    public static class LeaseResponse {
+        private boolean allowed;
+        private String reason;
+        private Long leaseId;
+        private Instant expiresAt;
+        private int active;
+        private int maxConcurrent;
+        private String tier;
+    }
+
+    @PostConstruct
+    void initMetrics() {
+        slotsPerUser = Math.max(freeMaxConcurrent, Math.max(premiumMaxConcurrent, proMaxConcurrent));
+        meterRegistry.gauge("scan_leases.active", leases, Map::size);
+        expiredCounter = meterRegistry.counter("scan_leases.expired");
+    }
+
+    /**
+     * [WRITE] Claims one of the user's concurrent-scan slots for ttl-ms, or reports that all of them are taken.
+     *
+     * @throws UsernameNotFoundException if the user does not exist
+     */
+    public LeaseResponse acquire(String email) {
+        UserSnapshot user = userCacheService.findByEmail(email)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + email));
+        // Legacy users without a usage record are on the free tier
+        AccountTier tier = user.accountTier() != null ? user.accountTier() : AccountTier.FREE;
+        int limit = Math.min(getMaxConcurrentForTier(tier), slotsPerUser);
+        AtomicReferenceArray<ScanLease> slots =
+                slotsByEmail.computeIfAbsent(email, key -> new AtomicReferenceArray<>(slotsPerUser));
+
+        long leaseId = leaseSequence.incrementAndGet();
+        long expiresAt = System.currentTimeMillis() + ttlMs;
+        ScanLease lease = null;
+        for (int slot = 0; slot < limit; slot++) {
+            if (slots.get(slot) == null) {
+                ScanLease candidate = new ScanLease(leaseId, email, slot, new AtomicLong(expiresAt));
+                if (slots.compareAndSet(slot, null, candidate)) {
+                    lease = candidate;
+                    break;
+                }
+            }
+        }
+
+        int active = countActive(slots);
+        LeaseResponse.LeaseResponseBuilder response = LeaseResponse.builder()
+                .active(active)
+                .maxConcurrent(limit)
+                .tier(tier.name());
+        if (lease == null) {
+            meterRegistry.counter("scan_leases.rejected", "tier", tier.name()).increment();
+            return response.allowed(false).reason("Concurrent scan limit reached").build();
+        }
+
+        leases.put(lease.id(), lease);
+        leaseExpiry.schedule(lease, expiresAt);
+        meterRegistry.counter("scan_leases.acquired", "tier", tier.name()).increment();
+        return response.allowed(true)
+                .reason("Scan slot leased")
+                .leaseId(lease.id())
+                .expiresAt(Instant.ofEpochMilli(expiresAt))
+                .build();
+    }
+
+    /**
+     * [WRITE] Extends the lease by ttl-ms. Returns the new expiry, or null if the lease is unknown,
+     * has ended or is owned by someone else.
+     */
+    public Instant heartbeat(String email, long leaseId) {
+        ScanLease lease = leases.get(leaseId);
+        if (lease == null || !lease.email().equals(email)) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        while (true) {
+            long current = lease.expiresAt().get();
+            if (current == ENDED || current <= now) {
+                return null;
+            }
+            // The wheel still holds the old deadline; the expiry reschedules the lease when it gets there.
+            if (lease.expiresAt().compareAndSet(current, now + ttlMs)) {
+                return Instant.ofEpochMilli(now + ttlMs);
+            }
+        }
+    }
+
+    /**
+     * [WRITE] Frees the lease's slot. Returns false if it is unknown, has ended or is owned by someone else.
+     */
+    public boolean release(String email, long leaseId) {
+        ScanLease lease = leases.get(leaseId);
+        if (lease == null || !lease.email().equals(email) || lease.expiresAt().getAndSet(ENDED) == ENDED) {
+            return false;
+        }
+        end(lease);
+        return true;
+    }
+
+    /**
+     * Reclaims the slots of leases whose TTL passed without a heartbeat.
+     */
+    @Scheduled(fixedDelay = LEASE_TICK_MS)
+    public void expireLeases() {
+        long now = System.currentTimeMillis();
+        leaseExpiry.advance(now, lease -> {
+            long current = lease.expiresAt().get();
+            if (current == ENDED) {
+                return;
+            }
+            if (current > now) {
+                leaseExpiry.schedule(lease, current);
+            } else if (lease.expiresAt().compareAndSet(current, ENDED)) {
+                end(lease);
+                expiredCounter.increment();
+                log.info("Scan lease {} for '{}' expired without a heartbeat and was reclaimed.", lease.id(), lease.email());
+            } else {
+                // A heartbeat or release got in first; look again at the next tick
+                leaseExpiry.schedule(lease, now);
+            }
+        });
+    }
+
+    @EventListener
+    void onUserChanged(UserChangedEvent event) {
+        if (event.type() == UserChangedEvent.Type.USER_DELETED) {
+            slotsByEmail.remove(event.email());
+        }
+    }
+
+    /**
+     * Leases currently held by the user on this instance.
+     */
+    public int activeLeases(String email) {
+        AtomicReferenceArray<ScanLease> slots = slotsByEmail.get(email);
+        return slots == null ? 0 : countActive(slots);
+    }
+
+    int getMaxConcurrentForTier(AccountTier tier) {
+        return switch (tier) {
+            case PRO -> proMaxConcurrent;
+            case PREMIUM -> premiumMaxConcurrent;
+            default -> freeMaxConcurrent;
+        };
+    }
+
+    private void end(ScanLease lease) {
+        leases.remove(lease.id(), lease);
+        AtomicReferenceArray<ScanLease> slots = slotsByEmail.get(lease.email());
+        if (slots != null) {
+            slots.compareAndSet(lease.slot(), lease, null);
+        }
+    }
+
+    private static int countActive(AtomicReferenceArray<ScanLease> slots) {
+        int active = 0;
+        for (int slot = 0; slot < slots.length(); slot++) {
+            if (slots.get(slot) != null) {
+                active++;
+            }
+        }
+        return active;
+    }
+}
@@ -0,0 +1,239 @@
+package com.auth.backend.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.auth.backend.repository.ScanHistoryRepository;
+import com.auth.backend.repository.ScanReportRepository;
+import com.auth.backend.repository.ScanReportRepository.ReportMetadata;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Stores the agent's report of a scan gzip-compressed, once per distinct content.
+ *
+ * Reports are compressed while they are read from the request. Downloads read the stored bytes
+ * in chunks, one short query per chunk, so a download holds at most one chunk on the heap and no
+ * connection while it waits for a slow client; inflating, if the client cannot take gzip, happens
+ * while streaming. (The driver reads a bytea value whole, even through getBinaryStream, so a single
+ * query per download would put the entire report on the heap.)
+ */
+@Service
+@RequiredArgsConstructor
+public class ScanReportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ScanReportService.class);
+
+    // Unreferenced reports younger than this may still be about to be attached
+    private static final Duration CLEANUP_GRACE = Duration.ofHours(1);
+
+    // substring() counts from 1
+    private static final String CHUNK_SQL = "select substring(content from ? for ?) from scan_report where content_hash = ?";
+
+    private final ScanReportRepository scanReportRepository;
+    private final ScanHistoryRepository scanHistoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.scan-report.max-size-bytes:10485760}")
+    private int maxSizeBytes;
+
+    @Value("${application.scan-report.stream-chunk-bytes:65536}")
+    private int streamChunkBytes;
+
+    private Counter newReportCounter;
+    private Counter duplicateReportCounter;
+    private DistributionSummary originalSizeSummary;
+    private DistributionSummary compressedSizeSummary;
+
+    @PostConstruct
+    void initMetrics() {
+        newReportCounter = meterRegistry.counter("scan_report.stored", "result", "new");
+        duplicateReportCounter = meterRegistry.counter("scan_report.stored", "result", "duplicate");
+        originalSizeSummary = DistributionSummary.builder("scan_report.size")
+                .baseUnit("bytes")
+                .tag("encoding", "identity")
+                .register(meterRegistry);
+        compressedSizeSummary = DistributionSummary.builder("scan_report.size")
+                .baseUnit("bytes")
+                .tag("encoding", "gzip")
+                .register(meterRegistry);
+    }
+
+    /**
+     * A stored report, without its content. contentHash is the hex SHA-256 of the uncompressed report.
+     */
+    public record StoredReport(String contentHash, int compressedSize, int originalSize) {
+    }
+
+    /**
+     * Compresses the report and attaches it to the user's scan, replacing an earlier report.
+     *
+     * @return false if the scan does not exist or belongs to another user
+     * @throws IllegalArgumentException if the report is empty or larger than the configured maximum
+     */
+    public boolean attachReport(String email, Integer scanId, InputStream report) throws IOException {
+        // Compressing happens before a connection is taken from the pool.
+        MessageDigest digest = sha256();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        long originalSize;
+        try (OutputStream gzip = new DigestOutputStream(new GZIPOutputStream(compressed), digest)) {
+            originalSize = copyAtMost(report, gzip, maxSizeBytes);
+        }
+        if (originalSize == 0) {
+            throw new IllegalArgumentException("Report is empty");
+        }
+        String contentHash = HexFormat.of().formatHex(digest.digest());
+        byte[] content = compressed.toByteArray();
+
+        Boolean attached = transactionTemplate.execute(status -> {
+            int inserted = scanReportRepository.insertIfAbsent(contentHash, content, (int) originalSize, LocalDateTime.now());
+            if (scanHistoryRepository.attachReport(scanId, email, contentHash) == 0) {
+                status.setRollbackOnly();
+                return false;
+            }
+            (inserted == 1 ? newReportCounter : duplicateReportCounter).increment();
+            return true;
+        });
+        if (Boolean.TRUE.equals(attached)) {
+            originalSizeSummary.record(originalSize);
+            compressedSizeSummary.record(content.length);
+        }
+        return Boolean.TRUE.equals(attached);
+    }
+
+    /**
+     * The report of the user's scan, or empty if the scan does not exist, belongs to another user
+     * or has no report. The content is not read; see openReport.
+     */
+    public Optional<StoredReport> findReport(String email, Integer scanId) {
+        return scanReportRepository.findMetadataByScanIdAndEmail(scanId, email)
+                .map(ScanReportService::toStoredReport);
+    }
+
+    /**
+     * The gzip-compressed content of the report, read from the database one chunk at a time as the
+     * stream is consumed.
+     */
+    public InputStream openReport(StoredReport report) {
+        return new ChunkedReportStream(report);
+    }
+
+    /**
+     * Deletes reports that no scan refers to any more.
+     */
+    @Scheduled(fixedDelayString = "${application.scan-report.cleanup-interval-ms:3600000}")
+    public void deleteUnreferencedReports() {
+        int deleted = scanReportRepository.deleteUnreferencedCreatedBefore(LocalDateTime.now().minus(CLEANUP_GRACE));
+        if (deleted > 0) {
+            log.info("Deleted {} unreferenced scan reports.", deleted);
+        }
+    }
+
+    private static StoredReport toStoredReport(ReportMetadata report) {
+        return new StoredReport(report.getContentHash(), report.getCompressedSize(), report.getOriginalSize());
+    }
+
+    private final class ChunkedReportStream extends InputStream {
+
+        private final StoredReport report;
+        private byte[] chunk = new byte[0];
+        private int position;
+        private int fetched;
+
+        ChunkedReportStream(StoredReport report) {
+            this.report = report;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            return chunk[position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int read = Math.min(length, chunk.length - position);
+            System.arraycopy(chunk, position, buffer, offset, read);
+            position += read;
+            return read;
+        }
+
+        /**
+         * Fetches the next chunk once the current one is used up; false at the end of the report.
+         */
+        private boolean fill() throws IOException {
+            if (position < chunk.length) {
+                return true;
+            }
+            if (fetched >= report.compressedSize()) {
+                return false;
+            }
+            int length = Math.min(streamChunkBytes, report.compressedSize() - fetched);
+            List<byte[]> rows = jdbcTemplate.query(CHUNK_SQL, (rs, row) -> rs.getBytes(1),
+                    fetched + 1, length, report.contentHash());
+            if (rows.isEmpty() || rows.get(0) == null || rows.get(0).length == 0) {
+                // Reports are never rewritten, only deleted once no scan refers to them
+                throw new IOException("Report " + report.contentHash() + " was deleted while it was read");
+            }
+            chunk = rows.get(0);
+            position = 0;
+            fetched += chunk.length;
+            return true;
+        }
+    }
+
+    private static long copyAtMost(InputStream in, OutputStream out, long limit) throws IOException {
+        byte[] buffer = new byte[8192];
+        long total = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            total += read;
+            if (total > limit) {
+                throw new IllegalArgumentException("Report is larger than " + limit + " bytes");
+            }
+            out.write(buffer, 0, read);
+        }
+        return total;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
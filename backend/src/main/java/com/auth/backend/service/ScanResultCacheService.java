@@ -0,0 +1,167 @@
+package com.auth.backend.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.auth.backend.dto.UserSnapshot;
+import com.auth.backend.enums.AccountTier;
+import com.auth.backend.model.ScanResult;
+import com.auth.backend.repository.ScanResultRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Shares finished scan reports between users, keyed by normalized URL.
+ *
+ * Reports live in the scan_result table; a size-bounded in-memory cache in front of it serves
+ * repeated lookups. How old a result may be depends on the tier of the user asking, so one stored
+ * result can be fresh for a FREE user and stale for a PRO user.
+ */
+@Service
+@RequiredArgsConstructor
+public class ScanResultCacheService {
+
+    private static final Logger log = LoggerFactory.getLogger(ScanResultCacheService.class);
+
+    private final ScanResultRepository scanResultRepository;
+    private final UserCacheService userCacheService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.scan-cache.ttl-minutes.free:1440}")
+    private long freeTtlMinutes;
+
+    @Value("${application.scan-cache.ttl-minutes.premium:360}")
+    private long premiumTtlMinutes;
+
+    @Value("${application.scan-cache.ttl-minutes.pro:60}")
+    private long proTtlMinutes;
+
+    // Upper bound for the report bytes held in memory
+    @Value("${application.scan-cache.max-memory-bytes:67108864}")
+    private long maxMemoryBytes;
+
+    private Cache<String, CachedScanResult> recentResults;
+    private Counter hitCounter;
+    private Counter missCounter;
+    private Counter bytesServedCounter;
+
+    /**
+     * A stored report. sizeBytes is the UTF-8 size of the report.
+     */
+    public record CachedScanResult(String normalizedUrl, String report, LocalDateTime createdAt, int sizeBytes) {
+        static CachedScanResult of(String normalizedUrl, String report, LocalDateTime createdAt) {
+            return new CachedScanResult(normalizedUrl, report, createdAt, report.getBytes(StandardCharsets.UTF_8).length);
+        }
+    }
+
+    @PostConstruct
+    void initCache() {
+        recentResults = Caffeine.newBuilder()
+                .maximumWeight(maxMemoryBytes)
+                .weigher((String url, CachedScanResult result) -> result.sizeBytes())
+                // No tier accepts anything older, so there is no point in keeping it
+                .expireAfterWrite(maxTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, recentResults, "scanResults");
+
+        hitCounter = meterRegistry.counter("scan_cache.lookups", "result", "hit");
+        missCounter = meterRegistry.counter("scan_cache.lookups", "result", "miss");
+        bytesServedCounter = Counter.builder("scan_cache.served")
+                .baseUnit("bytes")
+                .description("Report bytes returned from the scan result cache")
+                .register(meterRegistry);
+        meterRegistry.gauge("scan_cache.hit.ratio", this, ScanResultCacheService::hitRatio);
+    }
+
+    /**
+     * Looks up a result for the URL that is fresh enough for the user's tier.
+     *
+     * @throws IllegalArgumentException if the URL cannot be normalized
+     */
+    public Optional<CachedScanResult> findFreshResult(String email, String url) {
+        // The near-cache knows the tier, so a lookup costs no query for it
+        AccountTier tier = userCacheService.findByEmail(email)
+                .map(UserSnapshot::accountTier)
+                .orElse(AccountTier.FREE);
+        return findFreshResult(UrlNormalizer.normalize(url), tier);
+    }
+
+    Optional<CachedScanResult> findFreshResult(String normalizedUrl, AccountTier tier) {
+        LocalDateTime oldestAccepted = LocalDateTime.now().minus(ttlFor(tier));
+
+        CachedScanResult result = recentResults.getIfPresent(normalizedUrl);
+        if (result == null || result.createdAt().isBefore(oldestAccepted)) {
+            // Another instance may have stored a newer result since this one was cached.
+            result = scanResultRepository.findByNormalizedUrl(normalizedUrl)
+                    .map(row -> CachedScanResult.of(row.getNormalizedUrl(), row.getReport(), row.getCreatedAt()))
+                    .orElse(null);
+            if (result != null) {
+                recentResults.put(normalizedUrl, result);
+            }
+        }
+
+        if (result == null || result.createdAt().isBefore(oldestAccepted)) {
+            missCounter.increment();
+            return Optional.empty();
+        }
+        hitCounter.increment();
+        bytesServedCounter.increment(result.sizeBytes());
+        return Optional.of(result);
+    }
+
+    /**
+     * Stores a finished report as the latest result for its URL.
+     *
+     * @throws IllegalArgumentException if the URL cannot be normalized
+     */
+    public CachedScanResult store(String url, String report) {
+        CachedScanResult result = CachedScanResult.of(UrlNormalizer.normalize(url), report, LocalDateTime.now());
+        scanResultRepository.upsert(result.normalizedUrl(), result.report(), result.createdAt());
+        recentResults.put(result.normalizedUrl(), result);
+        return result;
+    }
+
+    /**
+     * Deletes results that are too old for every tier.
+     */
+    @Scheduled(fixedDelayString = "${application.scan-cache.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        int deleted = scanResultRepository.deleteCreatedBefore(LocalDateTime.now().minus(maxTtl()));
+        if (deleted > 0) {
+            log.info("Purged {} expired scan results.", deleted);
+        }
+    }
+
+    private Duration ttlFor(AccountTier tier) {
+        return Duration.ofMinutes(switch (tier) {
+            case PRO -> proTtlMinutes;
+            case PREMIUM -> premiumTtlMinutes;
+            case FREE -> freeTtlMinutes;
+        });
+    }
+
+    private Duration maxTtl() {
+        return Duration.ofMinutes(Math.max(freeTtlMinutes, Math.max(premiumTtlMinutes, proTtlMinutes)));
+    }
+
+    private double hitRatio() {
+        double hits = hitCounter.count();
+        double lookups = hits + missCounter.count();
+        return lookups == 0 ? 0 : hits / lookups;
+    }
+}
@@ -0,0 +1,210 @@
+package com.auth.backend.service;
+
+import java.net.URI;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.auth.backend.dto.ScanSketchResponse;
+import com.auth.backend.model.ScanSketch;
+import com.auth.backend.repository.ScanSketchRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Unique hosts, unique users and the most scanned URLs per day, estimated with fixed-size sketches
+ * instead of COUNT(DISTINCT) and GROUP BY over scan_history.
+ *
+ * Scans are added to in-memory sketches of the current day. Each flush merges them into the day's
+ * rows of scan_sketch under a row lock, so every instance contributes to the same daily sketches.
+ * A date range is answered by merging its daily sketches, which is exact for the union: a URL scanned
+ * on several days or by several instances is counted once in the distinct counts.
+ */
+@Service
+@RequiredArgsConstructor
+public class ScanSketchService {
+
+    private static final Logger log = LoggerFactory.getLogger(ScanSketchService.class);
+
+    private final ScanSketchRepository scanSketchRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${application.analytics.max-days:366}")
+    private int maxDays;
+
+    private final Map<LocalDate, DaySketches> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * Sketches of one day. Once a flush has taken them they are closed and recorders start new ones.
+     */
+    private static final class DaySketches {
+        final HyperLogLog hosts;
+        final HyperLogLog users;
+        final TopKSketch urls;
+        boolean closed;
+
+        DaySketches() {
+            this(new HyperLogLog(), new HyperLogLog(), new TopKSketch());
+        }
+
+        DaySketches(HyperLogLog hosts, HyperLogLog users, TopKSketch urls) {
+            this.hosts = hosts;
+            this.users = users;
+            this.urls = urls;
+        }
+
+        void merge(DaySketches other) {
+            hosts.merge(other.hosts);
+            users.merge(other.users);
+            urls.merge(other.urls);
+        }
+    }
+
+    /**
+     * Adds a scan. URLs that cannot be normalized still count towards the user.
+     */
+    public void record(Integer userId, String url) {
+        record(LocalDate.now(), userId, url);
+    }
+
+    /**
+     * Adds a scan to the given day's sketches.
+     */
+    void record(LocalDate scanDay, Integer userId, String url) {
+        String normalizedUrl = null;
+        String host = null;
+        try {
+            normalizedUrl = UrlNormalizer.normalize(url);
+            host = URI.create(normalizedUrl).getHost();
+        } catch (IllegalArgumentException e) {
+            // Counted as a user's scan only
+        }
+
+        while (true) {
+            DaySketches day = pending.computeIfAbsent(scanDay, d -> new DaySketches());
+            synchronized (day) {
+                if (day.closed) {
+                    continue;
+                }
+                day.users.add(String.valueOf(userId));
+                if (normalizedUrl != null) {
+                    day.urls.add(normalizedUrl);
+                }
+                if (host != null) {
+                    day.hosts.add(host);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Estimates for the days in [from, to], including scans of this instance not flushed yet.
+     *
+     * @throws IllegalArgumentException if the range is reversed or longer than the configured maximum
+     */
+    public ScanSketchResponse getScanSketches(LocalDate from, LocalDate to, int limit) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'.");
+        }
+        if (ChronoUnit.DAYS.between(from, to) + 1 > maxDays) {
+            throw new IllegalArgumentException("At most " + maxDays + " days can be requested at once.");
+        }
+
+        DaySketches range = new DaySketches();
+        for (ScanSketch row : scanSketchRepository.findByDayBetween(from, to)) {
+            switch (row.getKind()) {
+                case HOSTS -> range.hosts.merge(HyperLogLog.fromBytes(row.getData()));
+                case USERS -> range.users.merge(HyperLogLog.fromBytes(row.getData()));
+                case URLS -> range.urls.merge(TopKSketch.fromBytes(row.getData()));
+            }
+        }
+        pending.forEach((day, sketches) -> {
+            if (!day.isBefore(from) && !day.isAfter(to)) {
+                synchronized (sketches) {
+                    range.merge(sketches);
+                }
+            }
+        });
+
+        List<ScanSketchResponse.UrlCount> topUrls = range.urls.top(limit).stream()
+                .map(entry -> new ScanSketchResponse.UrlCount(entry.item(), entry.count()))
+                .toList();
+        return new ScanSketchResponse(from, to, range.urls.total(),
+                range.hosts.estimate(), range.users.estimate(), topUrls);
+    }
+
+    /**
+     * Merges the in-memory sketches into scan_sketch, one transaction per day.
+     */
+    @Scheduled(fixedDelayString = "${application.analytics.flush-interval-ms:60000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            for (LocalDate day : pending.keySet()) {
+                DaySketches sketches = pending.remove(day);
+                if (sketches == null) {
+                    continue;
+                }
+                synchronized (sketches) {
+                    sketches.closed = true;
+                }
+                if (sketches.users.isEmpty()) {
+                    continue;
+                }
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        mergeInto(day, ScanSketch.Kind.HOSTS, sketches.hosts.toBytes());
+                        mergeInto(day, ScanSketch.Kind.USERS, sketches.users.toBytes());
+                        mergeInto(day, ScanSketch.Kind.URLS, sketches.urls.toBytes());
+                    });
+                } catch (RuntimeException e) {
+                    // Put the scans back so the next flush retries them
+                    DaySketches current = pending.computeIfAbsent(day, d -> new DaySketches());
+                    synchronized (current) {
+                        current.merge(sketches);
+                    }
+                    log.error("Failed to flush the scan sketches of {}, will retry: {}", day, e.getMessage());
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private void mergeInto(LocalDate day, ScanSketch.Kind kind, byte[] delta) {
+        if (scanSketchRepository.insertIfAbsent(day, kind.name(), delta) == 1) {
+            return;
+        }
+        ScanSketch row = scanSketchRepository.findForUpdate(day, kind).orElseThrow();
+        row.setData(switch (kind) {
+            case HOSTS, USERS -> {
+                HyperLogLog merged = HyperLogLog.fromBytes(row.getData());
+                merged.merge(HyperLogLog.fromBytes(delta));
+                yield merged.toBytes();
+            }
+            case URLS -> {
+                TopKSketch merged = TopKSketch.fromBytes(row.getData());
+                merged.merge(TopKSketch.fromBytes(delta));
+                yield merged.toBytes();
+            }
+        });
+    }
+}
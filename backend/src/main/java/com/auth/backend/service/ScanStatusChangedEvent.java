@@ -0,0 +1,10 @@
+package com.auth.backend.service;
+
+import com.auth.backend.enums.ScanStatus;
+
+/**
+ * Published when a scan was recorded or its job moved to another status.
+ * Publishers fill in whichever of userId and email they know without a lookup.
+ */
+public record ScanStatusChangedEvent(Integer userId, String email, Integer scanId, String url, ScanStatus status) {
+}
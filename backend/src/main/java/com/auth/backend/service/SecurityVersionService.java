@@ -0,0 +1,83 @@
+package com.auth.backend.service;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import com.auth.backend.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Keeps the current security version of each user in memory so that access tokens
+ * can be checked for revocation without a database round trip on every request.
+ * A version is loaded once per user and dropped again whenever it changes.
+ *
+ * The load runs inside the cache's compute for the email, so an invalidation that arrives while a
+ * lookup is reading the old version waits for it and then drops what it loaded. The TTL bounds how
+ * long a version can be stale if an invalidation from another instance is lost.
+ */
+@Service
+@RequiredArgsConstructor
+public class SecurityVersionService {
+
+    private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${application.security.version-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${application.security.version-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    private Cache<String, Integer> versions;
+
+    @PostConstruct
+    void initCache() {
+        versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /**
+     * Returns the current security version for the user, or null if the user no longer exists.
+     */
+    public Integer getCurrentVersion(String email) {
+        // Missing users are not cached, so a re-registered email is picked up on the next lookup.
+        return versions.get(email, key -> userRepository.findSecurityVersionByEmail(key).orElse(null));
+    }
+
+    /**
+     * Checks whether a token issued with the given version is still current for the user.
+     */
+    public boolean isCurrent(String email, int tokenVersion) {
+        Integer current = getCurrentVersion(email);
+        return current != null && current == tokenVersion;
+    }
+
+    /**
+     * Drops the cached version here and on the other instances so the next check reloads it.
+     * Must be called after the change has been written to the database.
+     */
+    public void invalidate(String email) {
+        evict(email);
+        eventPublisher.publishEvent(UserChangedEvent.of(UserChangedEvent.Type.TOKENS_REVOKED, email));
+    }
+
+    /**
+     * Drops the cached version on this instance only.
+     */
+    public void evict(String email) {
+        versions.invalidate(email);
+    }
+
+    public void evictAll() {
+        versions.invalidateAll();
+    }
+}
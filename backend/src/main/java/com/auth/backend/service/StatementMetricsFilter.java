@@ -0,0 +1,72 @@
+package com.auth.backend.service;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.auth.backend.config.JdbcStatementScope;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Records how many JDBC statements each request ran and how long they took, tagged by the
+ * controller method that handled it. Runs before the security filters, so the user lookups
+ * of the authentication filter are included.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "application.jdbc.statement-metrics.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class StatementMetricsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        JdbcStatementScope scope = JdbcStatementScope.open();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            scope.close();
+            String handler = handlerName(request);
+            DistributionSummary.builder("http.server.requests.jdbc.statements")
+                    .description("JDBC statements executed per request")
+                    .tag("handler", handler)
+                    .register(meterRegistry)
+                    .record(scope.getStatementCount());
+            Timer.builder("http.server.requests.jdbc.time")
+                    .description("Time spent executing JDBC statements per request")
+                    .tag("handler", handler)
+                    .register(meterRegistry)
+                    .record(scope.getElapsedNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Controller class and method, e.g. "AdminController.getUsers"; "none" if no controller handled the request.
+     */
+    private static String handlerName(HttpServletRequest request) {
+        if (request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod method) {
+            return method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+        }
+        return "none";
+    }
+}
@@ -0,0 +1,68 @@
+package com.auth.backend.service;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timer wheel: deadlines are rounded up to a tick and hashed into a fixed ring of buckets,
+ * so scheduling is O(1) and each advance only looks at the buckets of the ticks that passed.
+ * Deadlines further out than one rotation stay in their bucket until their tick comes around.
+ *
+ * Any thread may schedule; advance must be called from one thread at a time.
+ * Items expire at most one tick late.
+ */
+final class TimerWheel<T> {
+
+    private record Timeout<T>(T item, long tick) {
+    }
+
+    private final long tickMillis;
+    private final int mask;
+    private final Queue<Timeout<T>>[] buckets;
+    private volatile long nextTick;
+
+    @SuppressWarnings("unchecked")
+    TimerWheel(long tickMillis, int wheelSize, long nowMillis) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two: " + wheelSize);
+        }
+        this.tickMillis = tickMillis;
+        this.mask = wheelSize - 1;
+        this.buckets = new Queue[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.nextTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Schedules the item to be handed to the expiry callback once the deadline has passed.
+     */
+    void schedule(T item, long deadlineMillis) {
+        long tick = (deadlineMillis + tickMillis - 1) / tickMillis;
+        // Never hash into a bucket the current advance may already have passed.
+        tick = Math.max(tick, nextTick + 1);
+        buckets[(int) (tick & mask)].add(new Timeout<>(item, tick));
+    }
+
+    /**
+     * Expires every item whose tick is at or before the current time.
+     */
+    void advance(long nowMillis, Consumer<T> onExpired) {
+        long currentTick = nowMillis / tickMillis;
+        while (nextTick <= currentTick) {
+            long tick = nextTick;
+            Iterator<Timeout<T>> timeouts = buckets[(int) (tick & mask)].iterator();
+            while (timeouts.hasNext()) {
+                Timeout<T> timeout = timeouts.next();
+                if (timeout.tick() <= tick) {
+                    timeouts.remove();
+                    onExpired.accept(timeout.item());
+                }
+            }
+            nextTick = tick + 1;
+        }
+    }
+}
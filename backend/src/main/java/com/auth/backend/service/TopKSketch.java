@@ -0,0 +1,116 @@
+package com.auth.backend.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Heavy hitters: a Count-Min sketch counts every item and a min-heap keeps the capacity items with
+ * the highest estimates seen so far. An item that falls out of the heap keeps its count in the
+ * sketch, so it re-enters with its full estimate once it is frequent again.
+ *
+ * Merging adds the sketches and re-ranks the union of both candidate sets against the merged counts.
+ * Not thread-safe.
+ */
+final class TopKSketch {
+
+    static final int DEFAULT_CAPACITY = 100;
+
+    /**
+     * An item with its estimated count, which is never below the true count.
+     */
+    record Entry(String item, long count) {
+    }
+
+    private final int capacity;
+    private final CountMinSketch counts;
+    private final Map<String, Entry> candidates = new HashMap<>();
+    private final PriorityQueue<Entry> heap = new PriorityQueue<>(Comparator.comparingLong(Entry::count));
+
+    TopKSketch() {
+        this(DEFAULT_CAPACITY, new CountMinSketch());
+    }
+
+    TopKSketch(int capacity, CountMinSketch counts) {
+        this.capacity = capacity;
+        this.counts = counts;
+    }
+
+    void add(String item) {
+        offer(item, counts.add(item, 1));
+    }
+
+    /**
+     * The limit items with the highest estimates, highest first.
+     */
+    List<Entry> top(int limit) {
+        // Heap entries hold the estimate of their last add; collisions since then may have raised it.
+        List<Entry> top = new ArrayList<>(candidates.size());
+        candidates.keySet().forEach(item -> top.add(new Entry(item, counts.estimate(item))));
+        top.sort(Comparator.comparingLong(Entry::count).reversed().thenComparing(Entry::item));
+        return top.subList(0, Math.min(limit, top.size()));
+    }
+
+    long total() {
+        return counts.total();
+    }
+
+    void merge(TopKSketch other) {
+        counts.merge(other.counts);
+        List<String> items = new ArrayList<>(candidates.keySet());
+        items.addAll(other.candidates.keySet());
+        candidates.clear();
+        heap.clear();
+        for (String item : items) {
+            if (!candidates.containsKey(item)) {
+                offer(item, counts.estimate(item));
+            }
+        }
+    }
+
+    byte[] toBytes() {
+        List<byte[]> items = candidates.keySet().stream().map(item -> item.getBytes(StandardCharsets.UTF_8)).toList();
+        int size = counts.serializedSize() + 4 + 4 + items.stream().mapToInt(item -> 4 + item.length).sum();
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        counts.writeTo(buffer);
+        buffer.putInt(capacity).putInt(items.size());
+        for (byte[] item : items) {
+            buffer.putInt(item.length).put(item);
+        }
+        return buffer.array();
+    }
+
+    static TopKSketch fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        CountMinSketch counts = CountMinSketch.readFrom(buffer);
+        TopKSketch sketch = new TopKSketch(buffer.getInt(), counts);
+        int items = buffer.getInt();
+        for (int i = 0; i < items; i++) {
+            byte[] item = new byte[buffer.getInt()];
+            buffer.get(item);
+            String candidate = new String(item, StandardCharsets.UTF_8);
+            sketch.offer(candidate, sketch.counts.estimate(candidate));
+        }
+        return sketch;
+    }
+
+    private void offer(String item, long estimate) {
+        Entry current = candidates.get(item);
+        if (current != null) {
+            heap.remove(current);
+        } else if (candidates.size() >= capacity) {
+            if (capacity == 0 || heap.peek().count() >= estimate) {
+                return;
+            }
+            candidates.remove(heap.poll().item());
+        }
+        Entry entry = new Entry(item, estimate);
+        candidates.put(item, entry);
+        heap.add(entry);
+    }
+}
@@ -0,0 +1,86 @@
+package com.auth.backend.service;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Reduces the different spellings of a page URL to one cache key: lower-case scheme and host,
+ * no default port, no trailing slash, no fragment, no tracking parameters and the remaining
+ * query parameters in a fixed order. URLs without a scheme are taken as https.
+ */
+public final class UrlNormalizer {
+
+    private static final Set<String> TRACKING_PARAMS = Set.of(
+            "gclid", "dclid", "fbclid", "msclkid", "yclid", "mc_cid", "mc_eid", "_ga", "_gl", "igshid");
+
+    private UrlNormalizer() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value is not an absolute http(s) URL
+     */
+    public static String normalize(String url) {
+        if (url == null || url.isBlank()) {
+            throw new IllegalArgumentException("URL is required");
+        }
+        String value = url.strip();
+        if (!value.contains("://")) {
+            value = "https://" + value;
+        }
+
+        URI uri;
+        try {
+            uri = new URI(value);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Invalid URL: " + url);
+        }
+        String scheme = uri.getScheme() == null ? null : uri.getScheme().toLowerCase(Locale.ROOT);
+        if (!"http".equals(scheme) && !"https".equals(scheme)) {
+            throw new IllegalArgumentException("Only http and https URLs are supported: " + url);
+        }
+        if (uri.getHost() == null) {
+            throw new IllegalArgumentException("Invalid URL: " + url);
+        }
+
+        StringBuilder normalized = new StringBuilder(value.length())
+                .append(scheme)
+                .append("://")
+                .append(uri.getHost().toLowerCase(Locale.ROOT));
+        int port = uri.getPort();
+        if (port != -1 && !(port == 80 && scheme.equals("http")) && !(port == 443 && scheme.equals("https"))) {
+            normalized.append(':').append(port);
+        }
+
+        String path = uri.getRawPath();
+        while (path != null && path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        normalized.append(path == null || path.isEmpty() ? "/" : path);
+
+        String query = normalizeQuery(uri.getRawQuery());
+        if (!query.isEmpty()) {
+            normalized.append('?').append(query);
+        }
+        return normalized.toString();
+    }
+
+    private static String normalizeQuery(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return "";
+        }
+        return Arrays.stream(rawQuery.split("&"))
+                .filter(param -> !param.isEmpty() && !isTrackingParam(param))
+                .sorted()
+                .collect(Collectors.joining("&"));
+    }
+
+    private static boolean isTrackingParam(String param) {
+        int equals = param.indexOf('=');
+        String name = (equals == -1 ? param : param.substring(0, equals)).toLowerCase(Locale.ROOT);
+        return name.startsWith("utm_") || TRACKING_PARAMS.contains(name);
+    }
+}
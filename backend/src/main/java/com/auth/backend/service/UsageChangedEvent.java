@@ -0,0 +1,11 @@
+package com.auth.backend.service;
+
+import com.auth.backend.service.LimitService.UsageStatusResponse;
+
+/**
+ * Published when a user's daily counter or limit changed, so open event streams can show it.
+ *
+ * @param usage the new status if the publisher had it at hand, null if it has to be looked up
+ */
+public record UsageChangedEvent(String email, UsageStatusResponse usage) {
+}
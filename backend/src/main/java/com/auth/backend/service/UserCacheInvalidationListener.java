@@ -0,0 +1,49 @@
+package com.auth.backend.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.auth.backend.model.User;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Drops the near-cached snapshot of a User entity that was inserted, updated or deleted.
+ * Runs after the commit when there is a transaction, so a concurrent lookup cannot cache
+ * the old row again in between.
+ *
+ * Instantiated by Hibernate through Spring; the cache is looked up lazily because the
+ * listener is created together with the EntityManagerFactory the cache depends on.
+ */
+public class UserCacheInvalidationListener {
+
+    private final ObjectProvider<UserCacheService> userCacheService;
+
+    public UserCacheInvalidationListener(ObjectProvider<UserCacheService> userCacheService) {
+        this.userCacheService = userCacheService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void userChanged(User user) {
+        String email = user.getEmail();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(email);
+                }
+            });
+        } else {
+            invalidate(email);
+        }
+    }
+
+    private void invalidate(String email) {
+        userCacheService.ifAvailable(cache -> cache.invalidate(email));
+    }
+}
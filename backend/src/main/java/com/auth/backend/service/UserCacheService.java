@@ -0,0 +1,105 @@
+package com.auth.backend.service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import com.auth.backend.dto.UserSnapshot;
+import com.auth.backend.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Near-cache of user snapshots by email and by id, so the lookup most requests start with does not
+ * need a connection from the pool.
+ *
+ * Entries are dropped when the user is written: entity saves and deletes are caught by
+ * UserCacheInvalidationListener, bulk statements call invalidate themselves. Both happen after the
+ * commit, and a load that races with an invalidation finishes before the entry is dropped, so a
+ * stale snapshot never outlives the write. Invalidations are published as UserChangedEvent so other
+ * instances drop their copy too; the TTL bounds staleness when that broadcast is disabled or an
+ * event is lost. Missing users are not cached.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserCacheService {
+
+    private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${application.user-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${application.user-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    private Cache<String, UserSnapshot> byEmail;
+    // Emails never change, so the id only has to be resolved to the email key once.
+    private Cache<Integer, String> emailById;
+    private Counter invalidationCounter;
+
+    @PostConstruct
+    void initCache() {
+        byEmail = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        emailById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byEmail, "userSnapshots");
+        meterRegistry.gauge("user_cache.hit.ratio", this, service -> service.byEmail.stats().hitRate());
+        invalidationCounter = meterRegistry.counter("user_cache.invalidations");
+    }
+
+    public Optional<UserSnapshot> findByEmail(String email) {
+        return Optional.ofNullable(byEmail.get(email, key -> userRepository.findSnapshotByEmail(key).orElse(null)));
+    }
+
+    public Optional<UserSnapshot> findById(Integer id) {
+        String email = emailById.get(id, key -> userRepository.findEmailById(key).orElse(null));
+        if (email == null) {
+            return Optional.empty();
+        }
+        // The email may have been deleted and registered again under a new id.
+        Optional<UserSnapshot> user = findByEmail(email).filter(snapshot -> snapshot.id().equals(id));
+        if (user.isEmpty()) {
+            emailById.invalidate(id);
+        }
+        return user;
+    }
+
+    /**
+     * Drops the user's snapshot here and on the other instances. Must be called after the change has
+     * been committed.
+     */
+    public void invalidate(String email) {
+        evict(email);
+        eventPublisher.publishEvent(UserChangedEvent.of(UserChangedEvent.Type.USER_CHANGED, email));
+    }
+
+    /**
+     * Drops the user's snapshot on this instance only.
+     */
+    public void evict(String email) {
+        byEmail.invalidate(email);
+        invalidationCounter.increment();
+    }
+
+    public void evictAll() {
+        byEmail.invalidateAll();
+        emailById.invalidateAll();
+        invalidationCounter.increment();
+    }
+}
@@ -0,0 +1,26 @@
+package com.auth.backend.service;
+
+import com.auth.backend.enums.AccountTier;
+
+/**
+ * Published after a change to a user that other instances have cached: the snapshot, the security
+ * version or the quota tier. The caches that publish it have already dropped their own copy, and
+ * ClusterInvalidationService forwards it to the other instances.
+ *
+ * @param tier the new tier for TIER_CHANGED, null otherwise
+ */
+public record UserChangedEvent(Type type, String email, AccountTier tier) {
+
+    public enum Type {
+        /** Profile, role, enabled flag or usage row changed. */
+        USER_CHANGED,
+        /** The security version was bumped, so tokens issued before are revoked. */
+        TOKENS_REVOKED,
+        TIER_CHANGED,
+        USER_DELETED
+    }
+
+    public static UserChangedEvent of(Type type, String email) {
+        return new UserChangedEvent(type, email, null);
+    }
+}
@@ -0,0 +1,273 @@
+package com.auth.backend.service;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.auth.backend.dto.UserSnapshot;
+import com.auth.backend.service.LimitService.UsageStatusResponse;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Pushes usage and scan status changes to the event streams users have open, so the dashboard does
+ * not have to poll for them.
+ *
+ * An open stream is an async SseEmitter and holds no thread while it is idle. Publishing never blocks:
+ * events are put into a small buffer per stream, and a virtual thread drains the buffer only while it
+ * has something to send. A stream whose buffer overflows is closed; the browser reconnects and
+ * starts again from a fresh usage snapshot. Heartbeats keep proxies from closing idle streams and
+ * find connections that went away without saying so.
+ *
+ * Events are dispatched after the commit of the change. Only streams on this instance see the
+ * changes made on it.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserEventHub {
+
+    private static final Logger log = LoggerFactory.getLogger(UserEventHub.class);
+
+    private final LimitService limitService;
+    private final UserCacheService userCacheService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.events.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${application.events.buffer-size:32}")
+    private int bufferSize;
+
+    @Value("${application.events.max-connections:10000}")
+    private int maxConnections;
+
+    @Value("${application.events.max-connections-per-user:5}")
+    private int maxConnectionsPerUser;
+
+    private final Map<String, Set<Stream>> streamsByEmail = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicLong streamSequence = new AtomicLong();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    private Counter sentCounter;
+    private Counter overflowCounter;
+    private Counter rejectedCounter;
+
+    /**
+     * Something to send: a named event with a JSON payload, or a comment when name is null.
+     */
+    private record Message(String name, Object data) {
+    }
+
+    private static final Message HEARTBEAT = new Message(null, "heartbeat");
+
+    /**
+     * One open connection. Only the thread that set sending may write to the emitter.
+     */
+    private final class Stream {
+        final long id = streamSequence.incrementAndGet();
+        final String email;
+        final SseEmitter emitter;
+        final BlockingQueue<Message> buffer = new ArrayBlockingQueue<>(bufferSize);
+        final AtomicBoolean sending = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+
+        Stream(String email, SseEmitter emitter) {
+            this.email = email;
+            this.emitter = emitter;
+        }
+    }
+
+    @PostConstruct
+    void initMetrics() {
+        meterRegistry.gauge("events.connections", connections);
+        sentCounter = meterRegistry.counter("events.sent");
+        overflowCounter = meterRegistry.counter("events.closed", "reason", "overflow");
+        rejectedCounter = meterRegistry.counter("events.rejected");
+    }
+
+    /**
+     * Opens a stream for the user that starts with the current usage. Beyond max-connections-per-user,
+     * the user's oldest stream is closed.
+     *
+     * @return empty if the instance already holds max-connections streams
+     * @throws org.springframework.security.core.userdetails.UsernameNotFoundException if the user does not exist
+     */
+    public Optional<SseEmitter> subscribe(String email) {
+        UsageStatusResponse usage = limitService.getUserUsageStatus(email);
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            rejectedCounter.increment();
+            return Optional.empty();
+        }
+
+        Stream stream = new Stream(email, new SseEmitter(timeoutMs));
+        stream.emitter.onCompletion(() -> remove(stream));
+        stream.emitter.onTimeout(() -> close(stream));
+        stream.emitter.onError(e -> remove(stream));
+        Set<Stream> streams = streamsByEmail.compute(email, (key, current) -> {
+            Set<Stream> set = current != null ? current : ConcurrentHashMap.newKeySet();
+            set.add(stream);
+            return set;
+        });
+        while (streams.size() > maxConnectionsPerUser) {
+            streams.stream().min(Comparator.comparingLong(s -> s.id)).ifPresent(this::close);
+        }
+
+        offer(stream, new Message("usage", usage));
+        return Optional.of(stream.emitter);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onUsageChanged(UsageChangedEvent event) {
+        if (!streamsByEmail.containsKey(event.email())) {
+            return;
+        }
+        try {
+            UsageStatusResponse usage = event.usage() != null ? event.usage() : limitService.getUserUsageStatus(event.email());
+            send(event.email(), new Message("usage", usage));
+        } catch (RuntimeException e) {
+            // Without a transaction this runs inside the publisher, which must not fail because of it
+            log.warn("Could not push the usage of '{}': {}", event.email(), e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onScanStatusChanged(ScanStatusChangedEvent event) {
+        if (streamsByEmail.isEmpty()) {
+            return;
+        }
+        try {
+            String email = event.email() != null ? event.email()
+                    : userCacheService.findById(event.userId()).map(UserSnapshot::email).orElse(null);
+            if (email != null) {
+                send(email, new Message("scan", Map.of(
+                        "scanId", event.scanId(),
+                        "url", event.url(),
+                        "status", event.status())));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not push the status of scan {}: {}", event.scanId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Streams outlive the token they were opened with, so they are closed when the user is deleted or
+     * their tokens are revoked.
+     */
+    @EventListener
+    void onUserChanged(UserChangedEvent event) {
+        if (event.type() != UserChangedEvent.Type.USER_DELETED && event.type() != UserChangedEvent.Type.TOKENS_REVOKED) {
+            return;
+        }
+        Set<Stream> streams = streamsByEmail.get(event.email());
+        if (streams != null) {
+            streams.forEach(this::close);
+        }
+    }
+
+    /**
+     * Sends a comment on every stream.
+     */
+    @Scheduled(fixedDelayString = "${application.events.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        streamsByEmail.values().forEach(streams -> streams.forEach(stream -> offer(stream, HEARTBEAT)));
+    }
+
+    /**
+     * Streams open on this instance.
+     */
+    public int connections() {
+        return connections.get();
+    }
+
+    @PreDestroy
+    void closeAll() {
+        streamsByEmail.values().forEach(streams -> streams.forEach(this::close));
+        senders.shutdown();
+    }
+
+    private void send(String email, Message message) {
+        Set<Stream> streams = streamsByEmail.get(email);
+        if (streams != null) {
+            streams.forEach(stream -> offer(stream, message));
+        }
+    }
+
+    private void offer(Stream stream, Message message) {
+        if (stream.closed.get()) {
+            return;
+        }
+        if (!stream.buffer.offer(message)) {
+            overflowCounter.increment();
+            log.info("Closing the event stream of '{}': the client is not keeping up.", stream.email);
+            close(stream);
+            return;
+        }
+        if (stream.sending.compareAndSet(false, true)) {
+            senders.execute(() -> drain(stream));
+        }
+    }
+
+    private void drain(Stream stream) {
+        do {
+            Message message;
+            while ((message = stream.buffer.poll()) != null) {
+                try {
+                    stream.emitter.send(message.name() == null
+                            ? SseEmitter.event().comment(String.valueOf(message.data()))
+                            : SseEmitter.event().name(message.name()).data(message.data(), MediaType.APPLICATION_JSON));
+                    sentCounter.increment();
+                } catch (IOException | IllegalStateException e) {
+                    // The client went away or the stream was completed
+                    stream.buffer.clear();
+                    remove(stream);
+                    stream.sending.set(false);
+                    return;
+                }
+            }
+            stream.sending.set(false);
+            // Pick up what was offered between the last poll and clearing the flag; its offer found the flag still set
+        } while (!stream.buffer.isEmpty() && stream.sending.compareAndSet(false, true));
+    }
+
+    private void close(Stream stream) {
+        remove(stream);
+        stream.emitter.complete();
+    }
+
+    private void remove(Stream stream) {
+        if (!stream.closed.compareAndSet(false, true)) {
+            return;
+        }
+        connections.decrementAndGet();
+        streamsByEmail.computeIfPresent(stream.email, (key, streams) -> {
+            streams.remove(stream);
+            return streams.isEmpty() ? null : streams;
+        });
+    }
+}
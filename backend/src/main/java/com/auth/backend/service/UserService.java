@@ -1,14 +1,15 @@
 package com.auth.backend.service;
 
+import java.util.List;
+
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.auth.backend.dto.UserResponse;
+import com.auth.backend.dto.UserSnapshot;
 import com.auth.backend.enums.AccountTier;
-import com.auth.backend.model.User;
-import com.auth.backend.model.UserUsage;
-import com.auth.backend.repository.UserRepository;
 import com.auth.backend.repository.UserUsageRepository;
 
 import lombok.RequiredArgsConstructor;
@@ -17,34 +18,29 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class UserService {
 
-    private final UserRepository userRepository;
+    private final UserCacheService userCacheService;
     private final UserUsageRepository userUsageRepository;
+    private final LimitService limitService;
+    private final TransactionTemplate transactionTemplate;
 
     public UserResponse getMyInfo() {
         var authentication = SecurityContextHolder.getContext().getAuthentication();
         String email = authentication.getName();
         
-        User user = userRepository.findByEmail(email)
+        return userCacheService.findByEmail(email)
+                .map(UserSnapshot::toUserResponse)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-        
-        return user.toUserResponse();
     }
 
+    /**
+     * Sets the user's tier in one upsert, which also creates a missing usage record.
+     */
     public void selectAccountTier(String email, AccountTier tier) {
-        User user = userRepository.findByEmail(email)
+        UserSnapshot user = userCacheService.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
-        UserUsage usage = user.getUserUsage();
-        if (usage == null) {
-             usage = UserUsage.builder()
-                    .user(user)
-                    .dailyRequestCount(0)
-                    .build();
-        }
-
-        usage.setAccountTier(tier);
-        usage.setHasSelectedTier(true);
-        
-        userUsageRepository.save(usage);
+        transactionTemplate.executeWithoutResult(status -> userUsageRepository.upsertTier(List.of(user.id()), tier.name()));
+        userCacheService.invalidate(email);
+        limitService.onTierSelected(email, tier);
     }
 }
\ No newline at end of file
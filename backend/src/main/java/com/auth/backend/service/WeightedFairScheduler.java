@@ -0,0 +1,236 @@
+package com.auth.backend.service;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admits a bounded number of concurrent tasks from several lanes. Tasks that cannot start at once
+ * wait in a FIFO queue per lane, and freed slots are handed out by stride scheduling: every lane has
+ * a pass value that advances by 1 / weight per dispatched task, and the waiting lane with the lowest
+ * pass goes next. While lanes are backlogged they get slots in proportion to their weights; a lane
+ * that was idle starts again at the current virtual time, so idling earns no credit.
+ *
+ * The reserved lane is outside the weighting: it has slots of its own and takes precedence for the
+ * shared slots, so its tasks start as soon as any slot it may use is free.
+ *
+ * Thread-safe. Waiting threads park on their own condition, so a dispatch wakes exactly one thread.
+ */
+final class WeightedFairScheduler<L extends Enum<L>> {
+
+    enum Outcome {
+        ADMITTED, QUEUE_FULL, TIMED_OUT
+    }
+
+    /**
+     * The outcome of an acquire, with the ticket to release when admitted.
+     */
+    record Admission(Outcome outcome, Ticket ticket) {
+
+        boolean admitted() {
+            return outcome == Outcome.ADMITTED;
+        }
+    }
+
+    /**
+     * An admitted task's claim on a slot; pass it back to release.
+     */
+    static final class Ticket {
+        private final boolean reservedSlot;
+
+        private Ticket(boolean reservedSlot) {
+            this.reservedSlot = reservedSlot;
+        }
+    }
+
+    private static final long STRIDE_UNIT = 1L << 20;
+
+    private final class Waiter {
+        final int lane;
+        final Condition granted = lock.newCondition();
+        Ticket ticket;
+
+        Waiter(int lane) {
+            this.lane = lane;
+        }
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final int reservedLane;
+    private final long[] strides;
+    private final long[] passes;
+    private final ArrayDeque<Waiter>[] queues;
+    private final int maxQueue;
+    private int freeShared;
+    private int freeReserved;
+    private int waiting;
+    private long virtualTime;
+
+    @SuppressWarnings("unchecked")
+    WeightedFairScheduler(Class<L> lanes, Map<L, Integer> weights, L reservedLane,
+            int sharedSlots, int reservedSlots, int maxQueue) {
+        L[] values = lanes.getEnumConstants();
+        this.reservedLane = reservedLane.ordinal();
+        this.strides = new long[values.length];
+        this.passes = new long[values.length];
+        this.queues = new ArrayDeque[values.length];
+        for (L lane : values) {
+            int weight = lane == reservedLane ? 1 : weights.getOrDefault(lane, 1);
+            if (weight < 1) {
+                throw new IllegalArgumentException("Weight of " + lane + " must be at least 1: " + weight);
+            }
+            strides[lane.ordinal()] = STRIDE_UNIT / weight;
+            queues[lane.ordinal()] = new ArrayDeque<>();
+        }
+        this.freeShared = sharedSlots;
+        this.freeReserved = reservedSlots;
+        this.maxQueue = maxQueue;
+    }
+
+    /**
+     * Waits until the task may start, at most the given time. Rejects at once if maxQueue tasks
+     * are already waiting.
+     */
+    Admission acquire(L lane, long timeout, TimeUnit unit) throws InterruptedException {
+        int index = lane.ordinal();
+        lock.lock();
+        try {
+            Ticket immediate = tryStart(index);
+            if (immediate != null) {
+                return new Admission(Outcome.ADMITTED, immediate);
+            }
+            if (waiting >= maxQueue) {
+                return new Admission(Outcome.QUEUE_FULL, null);
+            }
+
+            Waiter waiter = enqueue(index);
+            long nanos = unit.toNanos(timeout);
+            try {
+                while (waiter.ticket == null) {
+                    if (nanos <= 0) {
+                        remove(waiter);
+                        return new Admission(Outcome.TIMED_OUT, null);
+                    }
+                    nanos = waiter.granted.awaitNanos(nanos);
+                }
+            } catch (InterruptedException e) {
+                if (waiter.ticket != null) {
+                    release(waiter.ticket);
+                } else {
+                    remove(waiter);
+                }
+                throw e;
+            }
+            return new Admission(Outcome.ADMITTED, waiter.ticket);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Frees the ticket's slot and hands it to the next waiting task, if any may use it.
+     */
+    void release(Ticket ticket) {
+        lock.lock();
+        try {
+            if (ticket.reservedSlot) {
+                Waiter next = queues[reservedLane].poll();
+                if (next != null) {
+                    grant(next, ticket);
+                } else {
+                    freeReserved++;
+                }
+                return;
+            }
+            Waiter next = queues[reservedLane].poll();
+            if (next == null) {
+                next = pollFairly();
+            }
+            if (next != null) {
+                grant(next, ticket);
+            } else {
+                freeShared++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int waiting(L lane) {
+        lock.lock();
+        try {
+            return queues[lane.ordinal()].size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int waiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Ticket tryStart(int lane) {
+        if (lane == reservedLane) {
+            if (freeReserved > 0) {
+                freeReserved--;
+                return new Ticket(true);
+            }
+            if (freeShared > 0) {
+                freeShared--;
+                return new Ticket(false);
+            }
+            return null;
+        }
+        // Only when nobody is waiting, otherwise this task would overtake the queues
+        if (freeShared > 0 && waiting == 0) {
+            freeShared--;
+            return new Ticket(false);
+        }
+        return null;
+    }
+
+    private Waiter enqueue(int lane) {
+        ArrayDeque<Waiter> queue = queues[lane];
+        if (queue.isEmpty()) {
+            passes[lane] = Math.max(passes[lane], virtualTime);
+        }
+        Waiter waiter = new Waiter(lane);
+        queue.add(waiter);
+        waiting++;
+        return waiter;
+    }
+
+    private void remove(Waiter waiter) {
+        if (queues[waiter.lane].remove(waiter)) {
+            waiting--;
+        }
+    }
+
+    private Waiter pollFairly() {
+        int next = -1;
+        for (int lane = 0; lane < queues.length; lane++) {
+            if (lane != reservedLane && !queues[lane].isEmpty() && (next < 0 || passes[lane] < passes[next])) {
+                next = lane;
+            }
+        }
+        if (next < 0) {
+            return null;
+        }
+        virtualTime = passes[next];
+        passes[next] += strides[next];
+        return queues[next].poll();
+    }
+
+    private void grant(Waiter waiter, Ticket slot) {
+        waiting--;
+        waiter.ticket = slot;
+        waiter.granted.signal();
+    }
+}
@@ -1,7 +1,13 @@
 package com.auth.backend;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.task.AsyncTaskExecutor;
 
 @SpringBootTest
 class BackendApplicationTests {
@@ -10,4 +16,13 @@ class BackendApplicationTests {
 	void contextLoads() {
 	}
 
+	@Test
+	void asyncWorkRunsOnVirtualThreadsByDefault() throws Exception {
+		// Started the way main starts it; test contexts do not get its default properties
+		try (ConfigurableApplicationContext context = BackendApplication.create().run("--server.port=0")) {
+			AsyncTaskExecutor executor = context.getBean("applicationTaskExecutor", AsyncTaskExecutor.class);
+			assertThat(executor.submit(() -> Thread.currentThread().isVirtual()).get(5, TimeUnit.SECONDS)).isTrue();
+		}
+	}
+
 }
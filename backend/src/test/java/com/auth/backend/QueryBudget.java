@@ -0,0 +1,32 @@
+package com.auth.backend;
+
+import com.auth.backend.config.JdbcStatementScope;
+
+/**
+ * Fails a test when the code under test runs more JDBC statements than its budget allows.
+ * Only statements run on the calling thread are counted, which covers MockMvc requests.
+ */
+public final class QueryBudget {
+
+	@FunctionalInterface
+	public interface Action<T> {
+		T run() throws Exception;
+	}
+
+	private QueryBudget() {
+	}
+
+	/**
+	 * Runs the action and fails, listing the statements, if it ran more than maxStatements.
+	 */
+	public static <T> T assertAtMost(String name, int maxStatements, Action<T> action) throws Exception {
+		try (JdbcStatementScope scope = JdbcStatementScope.openCapturingSql()) {
+			T result = action.run();
+			if (scope.getStatementCount() > maxStatements) {
+				throw new AssertionError(String.format("%s ran %d statements, budget is %d:%n  %s",
+						name, scope.getStatementCount(), maxStatements, String.join("\n  ", scope.getStatements())));
+			}
+			return result;
+		}
+	}
+}
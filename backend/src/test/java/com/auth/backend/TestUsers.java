@@ -0,0 +1,42 @@
+package com.auth.backend;
+
+import com.auth.backend.enums.AccountTier;
+import com.auth.backend.enums.AuthProvider;
+import com.auth.backend.enums.Role;
+import com.auth.backend.model.User;
+import com.auth.backend.model.UserUsage;
+import com.auth.backend.repository.UserRepository;
+
+/**
+ * Creates and removes the users that integration tests run against.
+ */
+public final class TestUsers {
+
+	private TestUsers() {
+	}
+
+	/**
+	 * Saves a verified local user with an empty usage record, replacing any leftover user with the same email.
+	 */
+	public static User create(UserRepository userRepository, String email, AccountTier tier) {
+		delete(userRepository, email);
+		User user = User.builder()
+				.name("Test User")
+				.email(email)
+				.password("unused")
+				.role(Role.USER)
+				.authProvider(AuthProvider.LOCAL)
+				.enabled(true)
+				.build();
+		user.setUserUsage(UserUsage.builder()
+				.user(user)
+				.accountTier(tier)
+				.dailyRequestCount(0)
+				.build());
+		return userRepository.save(user);
+	}
+
+	public static void delete(UserRepository userRepository, String email) {
+		userRepository.findByEmail(email).ifPresent(userRepository::delete);
+	}
+}
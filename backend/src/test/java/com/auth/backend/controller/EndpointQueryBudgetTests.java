@@ -0,0 +1,108 @@
+package com.auth.backend.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import com.auth.backend.QueryBudget;
+import com.auth.backend.TestUsers;
+import com.auth.backend.enums.AccountTier;
+import com.auth.backend.enums.Role;
+import com.auth.backend.model.User;
+import com.auth.backend.repository.UserRepository;
+import com.auth.backend.service.JwtService;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Statement budgets of the main endpoints, including the authentication filter's lookups.
+ * Lower a budget when an endpoint gets cheaper; raising one needs a reason.
+ */
+@SpringBootTest(properties = "application.quota.mode=database")
+@AutoConfigureMockMvc
+class EndpointQueryBudgetTests {
+
+	private static final String EMAIL = "query-budget-test@example.com";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JwtService jwtService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private String bearer;
+
+	@BeforeEach
+	void createUser() {
+		User user = TestUsers.create(userRepository, EMAIL, AccountTier.FREE);
+		user.setRole(Role.ADMIN);
+		userRepository.save(user);
+		bearer = "Bearer " + jwtService.generateToken(user);
+	}
+
+	@AfterEach
+	void deleteUser() {
+		TestUsers.delete(userRepository, EMAIL);
+	}
+
+	// The filter's user lookup is served from the user near-cache; only the first request loads the snapshot.
+	@Test
+	void endpointsStayWithinTheirStatementBudgets() throws Exception {
+		assertBudget("GET /api/v1/users/me", 1, get("/api/v1/users/me"));
+		assertBudget("GET /api/v1/users/me", 0, get("/api/v1/users/me"));
+		assertBudget("GET /api/v1/usage/status", 1, get("/api/v1/usage/status"));
+		assertBudget("POST /api/v1/usage/check-limit", 1, post("/api/v1/usage/check-limit"));
+		// Sequence block plus insert
+		assertBudget("POST /api/v1/scans", 2, post("/api/v1/scans")
+				.contentType(MediaType.APPLICATION_JSON).content("{\"url\":\"https://example.com\"}"));
+		assertBudget("GET /api/v1/scans", 1, get("/api/v1/scans"));
+		assertBudget("GET /api/v1/users/history", 1, get("/api/v1/users/history"));
+		// Page plus count
+		assertBudget("GET /api/v1/admin/users", 2, get("/api/v1/admin/users").param("size", "20"));
+	}
+
+	@Test
+	void statementsAreExportedPerControllerMethod() throws Exception {
+		mockMvc.perform(postProcess(get("/api/v1/scans"))).andExpect(status().isOk());
+
+		DistributionSummary statements = meterRegistry.get("http.server.requests.jdbc.statements")
+				.tag("handler", "ScanHistoryController.getUserScanHistory")
+				.summary();
+		assertThat(statements.count()).isPositive();
+		assertThat(statements.max()).isGreaterThanOrEqualTo(1);
+		assertThat(meterRegistry.get("http.server.requests.jdbc.time")
+				.tag("handler", "ScanHistoryController.getUserScanHistory").timer().count()).isPositive();
+	}
+
+	private void assertBudget(String name, int maxStatements, RequestBuilder request) throws Exception {
+		QueryBudget.assertAtMost(name, maxStatements, () -> mockMvc.perform(
+				postProcess(request)).andExpect(status().is2xxSuccessful()));
+	}
+
+	private RequestBuilder postProcess(RequestBuilder request) {
+		return servletContext -> {
+			var mockRequest = request.buildRequest(servletContext);
+			mockRequest.addHeader(HttpHeaders.AUTHORIZATION, bearer);
+			return mockRequest;
+		};
+	}
+}
@@ -0,0 +1,147 @@
+package com.auth.backend.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.auth.backend.TestUsers;
+import com.auth.backend.enums.AccountTier;
+import com.auth.backend.repository.UserRepository;
+import com.auth.backend.service.ScanHistoryService;
+
+// Small chunks, so that a download takes several reads
+@SpringBootTest(properties = "application.scan-report.stream-chunk-bytes=256")
+@AutoConfigureMockMvc
+class ScanHistoryControllerTests {
+
+	private static final String EMAIL = "scan-report-test@example.com";
+	private static final String OTHER_EMAIL = "scan-report-other@example.com";
+	private static final String RESULT_HOST = "shared-result-test.example.com";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ScanHistoryService scanHistoryService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@AfterEach
+	void deleteUsers() {
+		TestUsers.delete(userRepository, EMAIL);
+		TestUsers.delete(userRepository, OTHER_EMAIL);
+		jdbcTemplate.update("delete from scan_report r where not exists "
+				+ "(select 1 from scan_history s where s.report_hash = r.content_hash) and r.original_size = ?",
+				report().length());
+		jdbcTemplate.update("delete from scan_result where normalized_url like ?", "%" + RESULT_HOST + "%");
+	}
+
+	@Test
+	void reportsAreStoredOnceAndServedCompressedOrInflated() throws Exception {
+		TestUsers.create(userRepository, EMAIL, AccountTier.FREE);
+		TestUsers.create(userRepository, OTHER_EMAIL, AccountTier.FREE);
+		Integer first = scanHistoryService.createScan(EMAIL, "https://example.com/a").getId();
+		Integer second = scanHistoryService.createScan(EMAIL, "https://example.com/b").getId();
+		String report = report();
+
+		for (Integer scanId : new Integer[] { first, second }) {
+			mockMvc.perform(put("/api/v1/scans/{id}/report", scanId).with(user(EMAIL))
+					.contentType(MediaType.APPLICATION_JSON).content(report))
+					.andExpect(status().isNoContent());
+		}
+		// Another user can neither attach nor read a report of this user's scan.
+		mockMvc.perform(put("/api/v1/scans/{id}/report", first).with(user(OTHER_EMAIL))
+				.contentType(MediaType.APPLICATION_JSON).content("{}"))
+				.andExpect(status().isNotFound());
+		mockMvc.perform(get("/api/v1/scans/{id}/report", first).with(user(OTHER_EMAIL)))
+				.andExpect(status().isNotFound());
+
+		Integer storedCopies = jdbcTemplate.queryForObject(
+				"select count(distinct report_hash) from scan_history where id in (?, ?)", Integer.class, first, second);
+		assertThat(storedCopies).isEqualTo(1);
+
+		MvcResult gzipped = download(get("/api/v1/scans/{id}/report", first).with(user(EMAIL))
+				.header(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.8"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+				.andReturn();
+		byte[] compressed = gzipped.getResponse().getContentAsByteArray();
+		assertThat(compressed.length).isLessThan(report.length() / 5).isGreaterThan(256);
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+			assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(report);
+		}
+
+		MvcResult plain = download(get("/api/v1/scans/{id}/report", second).with(user(EMAIL))
+				.header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, identity"))
+				.andExpect(status().isOk())
+				.andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+				.andReturn();
+		assertThat(plain.getResponse().getContentAsString(StandardCharsets.UTF_8)).isEqualTo(report);
+
+		mockMvc.perform(get("/api/v1/scans/{id}/report", second).with(user(EMAIL))
+				.header(HttpHeaders.IF_NONE_MATCH, gzipped.getResponse().getHeader(HttpHeaders.ETAG)))
+				.andExpect(status().isNotModified());
+	}
+
+	@Test
+	void onlyWorkersStoreSharedResults() throws Exception {
+		TestUsers.create(userRepository, EMAIL, AccountTier.FREE);
+		String body = "{\"url\": \"https://" + RESULT_HOST + "/\", \"report\": {\"score\": 1}}";
+
+		// Any user could otherwise replace the report every other user is served for the URL.
+		mockMvc.perform(put("/api/v1/scans/results").with(user(EMAIL))
+				.contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(get("/api/v1/scans/results").with(user(EMAIL)).param("url", "https://" + RESULT_HOST + "/"))
+				.andExpect(status().isNotFound());
+
+		mockMvc.perform(put("/api/v1/scans/results").with(user("agent@example.com").authorities(() -> "AGENT"))
+				.contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/api/v1/scans/results").with(user(EMAIL)).param("url", "https://" + RESULT_HOST + "/"))
+				.andExpect(status().isOk());
+	}
+
+	/**
+	 * Reports are streamed asynchronously; the body is complete after the async dispatch.
+	 */
+	private ResultActions download(MockHttpServletRequestBuilder builder) throws Exception {
+		MvcResult started = mockMvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+		return mockMvc.perform(asyncDispatch(started));
+	}
+
+	private static String report() {
+		StringBuilder report = new StringBuilder("{\"url\":\"https://example.com\",\"issues\":[");
+		for (int i = 0; i < 500; i++) {
+			report.append(i == 0 ? "" : ",")
+					.append("{\"id\":").append(i).append(",\"severity\":\"warning\",\"message\":\"Image without alt text\"}");
+		}
+		return report.append("]}").toString();
+	}
+}
@@ -0,0 +1,202 @@
+package com.auth.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.auth.backend.QueryBudget;
+import com.auth.backend.TestUsers;
+import com.auth.backend.dto.BulkUserRequest;
+import com.auth.backend.dto.UserFilter;
+import com.auth.backend.dto.UserResponse;
+import com.auth.backend.enums.AccountTier;
+import com.auth.backend.enums.Role;
+import com.auth.backend.model.ScanHistory;
+import com.auth.backend.model.User;
+import com.auth.backend.repository.ScanHistoryRepository;
+import com.auth.backend.repository.UserRepository;
+import com.auth.backend.service.AdminService.BulkResult;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest(properties = {
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"application.admin.bulk.chunk-size=7"
+})
+class AdminServiceTests {
+
+	private static final int USERS = 30;
+
+	private static final String ADMIN_EMAIL = "admin-list-test-admin@example.com";
+
+	@Autowired
+	private AdminService adminService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private ScanHistoryRepository scanHistoryRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private LocalDateTime createdFrom;
+
+	private User admin;
+
+	@BeforeEach
+	void createUsers() {
+		// The admin signed up before the listed users, so only filters from admin.getCreatedAt() match them.
+		admin = TestUsers.create(userRepository, ADMIN_EMAIL, AccountTier.FREE);
+		createdFrom = LocalDateTime.now();
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken(ADMIN_EMAIL, null, List.of()));
+		for (int i = 0; i < USERS; i++) {
+			TestUsers.create(userRepository, email(i), i % 3 == 0 ? AccountTier.PRO : AccountTier.FREE);
+		}
+	}
+
+	@AfterEach
+	void deleteUsers() {
+		SecurityContextHolder.clearContext();
+		for (int i = 0; i < USERS; i++) {
+			TestUsers.delete(userRepository, email(i));
+		}
+		TestUsers.delete(userRepository, ADMIN_EMAIL);
+	}
+
+	@Test
+	void listingRunsTheSameTwoStatementsForAnyPageSize() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		UserFilter filter = new UserFilter(null, null, null, null, createdFrom, null, null);
+
+		for (int size : new int[] { 5, 25 }) {
+			statistics.clear();
+			Page<UserResponse> page = adminService.getUsers(filter, PageRequest.of(0, size, Sort.by("email")));
+
+			assertThat(page.getContent()).hasSize(size);
+			assertThat(page.getTotalElements()).isEqualTo(USERS);
+			// One select for the page and one count, and no entity is loaded.
+			assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+			assertThat(statistics.getEntityLoadCount()).isZero();
+		}
+	}
+
+	@Test
+	void filtersAndSortingApplyToTheJoinedUsage() {
+		UserFilter proUsers = new UserFilter(null, null, AccountTier.PRO, null, createdFrom, null, null);
+
+		Page<UserResponse> page = adminService.getUsers(proUsers, PageRequest.of(0, 50, Sort.by(Sort.Direction.DESC, "email")));
+
+		assertThat(page.getTotalElements()).isEqualTo(USERS / 3);
+		assertThat(page.getContent()).allSatisfy(user -> assertThat(user.getAccountTier()).isEqualTo(AccountTier.PRO));
+		assertThat(page.getContent()).extracting(UserResponse::getEmail)
+				.isSortedAccordingTo((a, b) -> b.compareTo(a));
+
+		assertThatThrownBy(() -> adminService.getUsers(proUsers, PageRequest.of(0, 10, Sort.by("password"))))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void searchMatchesPartOfTheNameOrEmailIgnoringCase() {
+		UserFilter search = new UserFilter(null, null, null, null, createdFrom, null, "LIST-TEST-1");
+
+		Page<UserResponse> page = adminService.getUsers(search, PageRequest.of(0, 50, Sort.by("email")));
+
+		// 10 to 19; LIKE wildcards in the search are matched literally
+		assertThat(page.getContent()).extracting(UserResponse::getEmail).containsExactly(
+				IntStream.range(10, 20).mapToObj(AdminServiceTests::email).toArray(String[]::new));
+		assertThat(adminService.getUsers(new UserFilter(null, null, null, null, createdFrom, null, "list_test"),
+				PageRequest.of(0, 50)).getTotalElements()).isZero();
+	}
+
+	@Test
+	void bulkDeleteRunsThreeStatementsPerChunkAndSkipsTheAdmin() throws Exception {
+		for (int i = 0; i < USERS; i += 2) {
+			User user = userRepository.findByEmail(email(i)).orElseThrow();
+			for (int scan = 0; scan < 20; scan++) {
+				scanHistoryRepository.save(ScanHistory.builder()
+						.url("https://example.com/" + scan)
+						.createdAt(LocalDateTime.now())
+						.user(user)
+						.build());
+			}
+		}
+		BulkUserRequest request = new BulkUserRequest();
+		request.setFilter(new UserFilter(null, null, null, null, admin.getCreatedAt(), null, null));
+
+		// One select, then scans, usage and users are deleted per chunk of 7: 1 + 5 * 3 statements.
+		BulkResult result = QueryBudget.assertAtMost("bulk delete", 16, () -> adminService.deleteUsers(request));
+
+		assertThat(result).isEqualTo(new BulkResult(USERS, USERS));
+		assertThat(userRepository.findByEmail(email(0))).isEmpty();
+		assertThat(userRepository.findByEmail(ADMIN_EMAIL)).isPresent();
+		assertThat(scanHistoryRepository.findAll()).noneMatch(scan -> scan.getUrl().startsWith("https://example.com/")
+				&& scan.getUser().getEmail().startsWith("admin-list-test-"));
+	}
+
+	@Test
+	void listingTheAdminByIdIsRejected() {
+		User user = userRepository.findByEmail(email(0)).orElseThrow();
+		BulkUserRequest request = new BulkUserRequest();
+		request.setIds(List.of(user.getId(), admin.getId()));
+		request.setRole(Role.USER);
+
+		assertThatThrownBy(() -> adminService.deleteUsers(request)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> adminService.changeRole(request)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> adminService.deleteUser(admin.getId())).isInstanceOf(IllegalArgumentException.class);
+		assertThat(userRepository.findByEmail(email(0))).isPresent();
+	}
+
+	@Test
+	void roleChangeRevokesTokensOfChangedUsersOnly() {
+		List<Integer> ids = List.of(
+				userRepository.findByEmail(email(0)).orElseThrow().getId(),
+				userRepository.findByEmail(email(1)).orElseThrow().getId());
+		BulkUserRequest request = new BulkUserRequest();
+		request.setIds(ids);
+		request.setRole(Role.ADMIN);
+
+		assertThat(adminService.changeRole(request)).isEqualTo(new BulkResult(2, 2));
+		assertThat(adminService.changeRole(request)).isEqualTo(new BulkResult(2, 0));
+
+		User promoted = userRepository.findByEmail(email(0)).orElseThrow();
+		assertThat(promoted.getRole()).isEqualTo(Role.ADMIN);
+		assertThat(promoted.getSecurityVersion()).isEqualTo(1);
+	}
+
+	@Test
+	void tierChangeCountsAsTheUsersOwnSelection() {
+		BulkUserRequest request = new BulkUserRequest();
+		request.setFilter(new UserFilter(null, null, AccountTier.PRO, null, createdFrom, null, null));
+		request.setTier(AccountTier.PREMIUM);
+
+		assertThat(adminService.changeTier(request)).isEqualTo(new BulkResult(USERS / 3, USERS / 3));
+
+		User changed = userRepository.findByEmail(email(0)).orElseThrow();
+		assertThat(changed.getUserUsage().getAccountTier()).isEqualTo(AccountTier.PREMIUM);
+		assertThat(changed.getUserUsage().isHasSelectedTier()).isTrue();
+		assertThat(userRepository.findByEmail(email(1)).orElseThrow().getUserUsage().getAccountTier()).isEqualTo(AccountTier.FREE);
+	}
+
+	private static String email(int i) {
+		return String.format("admin-list-test-%02d@example.com", i);
+	}
+}
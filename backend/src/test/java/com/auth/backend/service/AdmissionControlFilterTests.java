@@ -0,0 +1,112 @@
+package com.auth.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+
+@SpringBootTest(properties = {
+		"application.admission.usage.max-concurrent=1",
+		"application.admission.queue-timeout-ms=200",
+		"application.admission.max-queue=1"
+})
+class AdmissionControlFilterTests {
+
+	@Autowired
+	private AdmissionControlFilter admissionControlFilter;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	void aFullLaneRejectsWithRetryAfterWhileOtherClassesProceed() throws Exception {
+		CountDownLatch entered = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		FilterChain blocking = (request, response) -> {
+			entered.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		};
+		double timeouts = rejected("timeout");
+
+		CompletableFuture<MockHttpServletResponse> holder = CompletableFuture.supplyAsync(() -> call("/api/v1/usage/check-limit", blocking));
+		assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+		long start = System.nanoTime();
+		MockHttpServletResponse rejected = call("/api/v1/usage/status", (request, response) -> { });
+		assertThat(rejected.getStatus()).isEqualTo(503);
+		assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+		assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isBetween(150L, 2000L);
+		assertThat(rejected("timeout")).isEqualTo(timeouts + 1);
+
+		// Another endpoint class has its own slots
+		assertThat(call("/api/v1/scans", (request, response) -> { }).getStatus()).isEqualTo(200);
+
+		release.countDown();
+		assertThat(holder.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(200);
+		assertThat(call("/api/v1/usage/status", (request, response) -> { }).getStatus()).isEqualTo(200);
+		assertThat(meterRegistry.get("admission.wait").tag("endpoint_class", "usage").tag("lane", "anonymous").timer().count()).isGreaterThanOrEqualTo(3);
+	}
+
+	@Test
+	void aRequestBeyondTheQueueBoundIsRejectedWithoutWaiting() throws Exception {
+		CountDownLatch entered = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		FilterChain blocking = (request, response) -> {
+			entered.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		};
+		double queueFull = rejected("queue_full");
+
+		CompletableFuture<MockHttpServletResponse> holder = CompletableFuture.supplyAsync(() -> call("/api/v1/usage/check-limit", blocking));
+		assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+		// Occupies the only queue place until its timeout
+		CompletableFuture<MockHttpServletResponse> queued = CompletableFuture.supplyAsync(() -> call("/api/v1/usage/status", (request, response) -> { }));
+		while (meterRegistry.get("admission.queue.waiting").tag("endpoint_class", "usage").gauge().value() < 1) {
+			Thread.sleep(1);
+		}
+
+		long start = System.nanoTime();
+		assertThat(call("/api/v1/usage/status", (request, response) -> { }).getStatus()).isEqualTo(503);
+		assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(100);
+		assertThat(rejected("queue_full")).isEqualTo(queueFull + 1);
+
+		assertThat(queued.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(503);
+		release.countDown();
+		holder.get(5, TimeUnit.SECONDS);
+	}
+
+	private MockHttpServletResponse call(String path, FilterChain chain) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		try {
+			admissionControlFilter.doFilter(request, response, chain);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+		return response;
+	}
+
+	private double rejected(String reason) {
+		var counter = meterRegistry.find("admission.rejected").tag("endpoint_class", "usage").tag("reason", reason).counter();
+		return counter != null ? counter.count() : 0;
+	}
+}
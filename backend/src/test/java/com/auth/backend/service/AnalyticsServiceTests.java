@@ -0,0 +1,109 @@
+package com.auth.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.auth.backend.QueryBudget;
+import com.auth.backend.TestUsers;
+import com.auth.backend.dto.AnalyticsResponse;
+import com.auth.backend.enums.AccountTier;
+import com.auth.backend.enums.AnalyticsMetric;
+import com.auth.backend.repository.UserRepository;
+import com.auth.backend.service.LimitService.LimitCheckResponse;
+
+@SpringBootTest
+class AnalyticsServiceTests {
+
+	private static final String EMAIL = "analytics-test@example.com";
+
+	@Autowired
+	private AnalyticsService analyticsService;
+
+	@Autowired
+	private LimitService limitService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@BeforeEach
+	void createUser() {
+		TestUsers.create(userRepository, EMAIL, AccountTier.PRO);
+	}
+
+	@AfterEach
+	void deleteUser() {
+		TestUsers.delete(userRepository, EMAIL);
+	}
+
+	@Test
+	void requestsAndScansAreCountedPerTierWhetherFlushedOrNot() {
+		Map<AnalyticsMetric, Map<String, Long>> before = today();
+
+		limitService.checkAndIncrementLimitByEmail(EMAIL);
+		analyticsService.flush();
+		limitService.authorizeScan(EMAIL, "https://example.com/analytics");
+
+		Map<AnalyticsMetric, Map<String, Long>> after = today();
+		assertThat(increase(before, after, AnalyticsMetric.REQUESTS, "PRO")).isEqualTo(2);
+		assertThat(increase(before, after, AnalyticsMetric.SCANS, "PRO")).isEqualTo(1);
+		// Only the first request of the day makes the user active.
+		assertThat(increase(before, after, AnalyticsMetric.ACTIVE_USERS, "PRO")).isEqualTo(1);
+	}
+
+	@Test
+	void refundedRequestsAreTakenBackWithoutMakingTheUserActiveAgain() {
+		Map<AnalyticsMetric, Map<String, Long>> before = today();
+
+		LimitCheckResponse reservation = limitService.reserve(EMAIL);
+		assertThat(limitService.releaseReservation(EMAIL, reservation.getReservationId())).isTrue();
+		// The count is back at 0, but the day has already started
+		limitService.checkAndIncrementLimitByEmail(EMAIL);
+
+		Map<AnalyticsMetric, Map<String, Long>> after = today();
+		assertThat(increase(before, after, AnalyticsMetric.REQUESTS, "PRO")).isEqualTo(1);
+		assertThat(increase(before, after, AnalyticsMetric.ACTIVE_USERS, "PRO")).isEqualTo(1);
+	}
+
+	@Test
+	void tierSnapshotIsServedAsTheDistribution() {
+		analyticsService.snapshotTierDistribution();
+
+		AnalyticsResponse response = analyticsService.getAnalytics(LocalDate.now(), LocalDate.now());
+
+		assertThat(response.tierDistribution()).containsKey("PRO");
+		assertThat(response.tierDistribution().get("PRO")).isEqualTo(
+				response.days().get(0).metrics().get(AnalyticsMetric.TIER_USERS).get("PRO"));
+	}
+
+	@Test
+	void aRangeIsReadWithTwoQueriesAndHasEveryDay() throws Exception {
+		LocalDate to = LocalDate.now();
+		LocalDate from = to.minusDays(99);
+
+		AnalyticsResponse response = QueryBudget.assertAtMost("analytics", 2, () -> analyticsService.getAnalytics(from, to));
+
+		assertThat(response.days()).hasSize(100);
+		assertThat(response.days().get(0).day()).isEqualTo(from);
+		assertThatThrownBy(() -> analyticsService.getAnalytics(to, from)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> analyticsService.getAnalytics(to.minusYears(2), to)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private Map<AnalyticsMetric, Map<String, Long>> today() {
+		return analyticsService.getAnalytics(LocalDate.now(), LocalDate.now()).days().get(0).metrics();
+	}
+
+	private static long increase(Map<AnalyticsMetric, Map<String, Long>> before, Map<AnalyticsMetric, Map<String, Long>> after,
+			AnalyticsMetric metric, String dimension) {
+		return after.getOrDefault(metric, Map.of()).getOrDefault(dimension, 0L)
+				- before.getOrDefault(metric, Map.of()).getOrDefault(dimension, 0L);
+	}
+}
@@ -0,0 +1,147 @@
+package com.auth.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.auth.backend.BackendApplication;
+import com.auth.backend.TestUsers;
+import com.auth.backend.enums.AccountTier;
+import com.auth.backend.model.User;
+import com.auth.backend.repository.UserRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Two application contexts against the same database stand in for two instances.
+ */
+class ClusterInvalidationServiceTests {
+
+	private static final String EMAIL = "cluster-invalidation-test@example.com";
+	private static final long TIMEOUT_MS = 5000;
+
+	private static ConfigurableApplicationContext nodeA;
+	private static ConfigurableApplicationContext nodeB;
+
+	private User user;
+
+	@BeforeAll
+	static void startNodes() {
+		nodeA = startNode();
+		nodeB = startNode();
+	}
+
+	@AfterAll
+	static void stopNodes() {
+		nodeA.close();
+		nodeB.close();
+	}
+
+	private static ConfigurableApplicationContext startNode() {
+		return new SpringApplicationBuilder(BackendApplication.class)
+				.run("--server.port=0", "--application.quota.mode=in-memory", "--application.quota.flush-interval-ms=3600000");
+	}
+
+	@BeforeEach
+	void createUser() throws InterruptedException {
+		user = TestUsers.create(nodeA.getBean(UserRepository.class), EMAIL, AccountTier.FREE);
+		// Let both listeners finish their initial resync so it cannot hide a missing notification
+		awaitTrue(() -> meterCount(nodeA, "cluster_invalidation.resyncs") >= 1
+				&& meterCount(nodeB, "cluster_invalidation.resyncs") >= 1);
+		// and let the notifications of the setup arrive before the test caches anything
+		double received;
+		do {
+			received = meterCount(nodeB, "cluster_invalidation.received");
+			Thread.sleep(200);
+		} while (meterCount(nodeB, "cluster_invalidation.received") != received);
+	}
+
+	@AfterEach
+	void deleteUser() {
+		TestUsers.delete(nodeA.getBean(UserRepository.class), EMAIL);
+		nodeA.getBean(LimitService.class).onUserDeleted(EMAIL);
+	}
+
+	@Test
+	void anEntityUpdateOnOneNodeEvictsTheSnapshotOnTheOther() throws InterruptedException {
+		UserCacheService cacheB = nodeB.getBean(UserCacheService.class);
+		assertThat(cacheB.findByEmail(EMAIL).orElseThrow().enabled()).isTrue();
+
+		user.setEnabled(false);
+		nodeA.getBean(UserRepository.class).save(user);
+
+		awaitTrue(() -> !cacheB.findByEmail(EMAIL).orElseThrow().enabled());
+		assertThat(nodeB.getBean(MeterRegistry.class).get("cluster_invalidation.lag").timer().count()).isPositive();
+	}
+
+	@Test
+	void aTokenRevocationOnOneNodeReachesTheOther() throws InterruptedException {
+		SecurityVersionService versionsB = nodeB.getBean(SecurityVersionService.class);
+		int version = versionsB.getCurrentVersion(EMAIL);
+
+		jdbc(nodeA).update("update _user set security_version = security_version + 1 where email = ?", EMAIL);
+		nodeA.getBean(SecurityVersionService.class).invalidate(EMAIL);
+
+		awaitTrue(() -> versionsB.getCurrentVersion(EMAIL) == version + 1);
+	}
+
+	@Test
+	void aTierSelectionOnOneNodeUpdatesTheQuotaCounterOnTheOther() throws InterruptedException {
+		QuotaCounterService countersB = nodeB.getBean(QuotaCounterService.class);
+		assertThat(countersB.peek(EMAIL).tier()).isEqualTo(AccountTier.FREE);
+
+		nodeA.getBean(UserService.class).selectAccountTier(EMAIL, AccountTier.PRO);
+
+		awaitTrue(() -> countersB.peek(EMAIL).tier() == AccountTier.PRO);
+		assertThat(nodeB.getBean(UserCacheService.class).findByEmail(EMAIL).orElseThrow().accountTier())
+				.isEqualTo(AccountTier.PRO);
+	}
+
+	@Test
+	void aReconnectedListenerResynchronizesWhatItMissed() throws InterruptedException {
+		UserCacheService cacheB = nodeB.getBean(UserCacheService.class);
+		QuotaCounterService countersB = nodeB.getBean(QuotaCounterService.class);
+		cacheB.findByEmail(EMAIL);
+		countersB.peek(EMAIL);
+		double resyncs = meterCount(nodeB, "cluster_invalidation.resyncs");
+
+		// Changed behind the application's back, so no notification is sent
+		jdbc(nodeA).update("update _user set enabled = false where email = ?", EMAIL);
+		jdbc(nodeA).update("update user_usage set account_tier = 'PRO' where user_id = ?", user.getId());
+		assertThat(cacheB.findByEmail(EMAIL).orElseThrow().enabled()).isTrue();
+
+		String listener = nodeB.getBean(ClusterInvalidationService.class).getListenerApplicationName();
+		assertThat(jdbc(nodeA).queryForObject(
+				"select count(pg_terminate_backend(pid)) from pg_stat_activity where application_name = ?", Long.class, listener))
+				.isEqualTo(1);
+
+		awaitTrue(() -> meterCount(nodeB, "cluster_invalidation.resyncs") > resyncs);
+		assertThat(cacheB.findByEmail(EMAIL).orElseThrow().enabled()).isFalse();
+		assertThat(countersB.peek(EMAIL).tier()).isEqualTo(AccountTier.PRO);
+	}
+
+	private static JdbcTemplate jdbc(ConfigurableApplicationContext node) {
+		return node.getBean(JdbcTemplate.class);
+	}
+
+	private static double meterCount(ConfigurableApplicationContext node, String name) {
+		return node.getBean(MeterRegistry.class).get(name).counter().count();
+	}
+
+	private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+		while (!condition.getAsBoolean()) {
+			assertThat(System.currentTimeMillis()).as("condition not met within %d ms", TIMEOUT_MS).isLessThan(deadline);
+			Thread.sleep(10);
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package com.auth.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class HyperLogLogTests {
+
+	@Test
+	void estimatesStayWithinThreeStandardErrorsOfTheExactCount() {
+		// 1.04 / sqrt(2^14) = 0.81%
+		double maxError = 3 * 0.0081;
+		Random random = new Random(42);
+		HyperLogLog sketch = new HyperLogLog();
+		Set<String> exact = new HashSet<>();
+
+		for (int checkpoint : new int[] { 10, 100, 1_000, 10_000, 100_000, 500_000 }) {
+			while (exact.size() < checkpoint) {
+				String host = "host-" + random.nextInt(1_000_000) + ".example.com";
+				exact.add(host);
+				sketch.add(host);
+				// Repeats must not change the estimate.
+				sketch.add(host);
+			}
+			assertThat((double) sketch.estimate()).as("%d distinct", checkpoint)
+					.isCloseTo(checkpoint, within(Math.max(1, checkpoint * maxError)));
+		}
+	}
+
+	@Test
+	void mergedSketchesMatchTheSketchOfTheUnion() {
+		HyperLogLog monday = new HyperLogLog();
+		HyperLogLog tuesday = new HyperLogLog();
+		HyperLogLog both = new HyperLogLog();
+		for (int i = 0; i < 60_000; i++) {
+			monday.add("user-" + i);
+			both.add("user-" + i);
+		}
+		// Half of Tuesday's users already scanned on Monday.
+		for (int i = 30_000; i < 90_000; i++) {
+			tuesday.add("user-" + i);
+			both.add("user-" + i);
+		}
+
+		HyperLogLog week = HyperLogLog.fromBytes(monday.toBytes());
+		week.merge(HyperLogLog.fromBytes(tuesday.toBytes()));
+
+		assertThat(week.toBytes()).isEqualTo(both.toBytes());
+		assertThat((double) week.estimate()).isCloseTo(90_000, within(90_000 * 3 * 0.0081));
+	}
+
+	@Test
+	void sizeDoesNotGrowWithTheNumberOfItems() {
+		HyperLogLog sketch = new HyperLogLog();
+		int empty = sketch.toBytes().length;
+		for (int i = 0; i < 1_000_000; i++) {
+			sketch.add("https://site-" + i + ".example.com/");
+		}
+
+		// A HashSet of the same million strings takes well over 50 MB.
+		assertThat(empty).isEqualTo(2 + 16 * 1024);
+		assertThat(sketch.toBytes()).hasSize(empty);
+	}
+}
@@ -0,0 +1,89 @@
+package com.auth.backend.service;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import com.auth.backend.QueryBudget;
+import com.auth.backend.TestUsers;
+import com.auth.backend.enums.AccountTier;
+import com.auth.backend.model.User;
+import com.auth.backend.repository.UserRepository;
+
+@SpringBootTest(properties = "application.security.jwt.stateless-authentication=true")
+@AutoConfigureMockMvc
+class JwtAuthenticationFilterTests {
+
+	private static final String EMAIL = "stateless-auth-test@example.com";
+	private static final String ADMIN_EMAIL = "stateless-auth-admin@example.com";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JwtService jwtService;
+
+	@Autowired
+	private AdminService adminService;
+
+	@Autowired
+	private SecurityVersionService securityVersionService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@AfterEach
+	void deleteUser() {
+		SecurityContextHolder.clearContext();
+		TestUsers.delete(userRepository, EMAIL);
+		// Deleting through the admin API drops the cached version too; the next test starts again at 0
+		securityVersionService.evict(EMAIL);
+	}
+
+	@Test
+	void requestsAreAuthenticatedFromTheClaimsAlone() throws Exception {
+		User user = TestUsers.create(userRepository, EMAIL, AccountTier.FREE);
+		String token = jwtService.generateToken(user);
+
+		// The first request loads the security version and the user snapshot; later ones need no statement.
+		secure(token).andExpect(status().isOk());
+		QueryBudget.assertAtMost("claims-only authentication", 0, () -> secure(token).andExpect(status().isOk()));
+
+		secure("not-a-token").andExpect(status().isUnauthorized());
+	}
+
+	@Test
+	void promotingAndDemotingRevokeEarlierTokens() throws Exception {
+		User user = TestUsers.create(userRepository, EMAIL, AccountTier.FREE);
+		String userToken = jwtService.generateToken(user);
+		secure(userToken).andExpect(status().isOk());
+
+		adminService.promoteUser(user.getId());
+		secure(userToken).andExpect(status().isUnauthorized());
+		String adminToken = jwtService.generateToken(userRepository.findByEmail(EMAIL).orElseThrow());
+		secure(adminToken).andExpect(status().isOk());
+
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken(ADMIN_EMAIL, null, List.of()));
+		adminService.demoteUser(user.getId());
+		SecurityContextHolder.clearContext();
+		secure(adminToken).andExpect(status().isUnauthorized());
+		secure(jwtService.generateToken(userRepository.findByEmail(EMAIL).orElseThrow())).andExpect(status().isOk());
+	}
+
+	private ResultActions secure(String token) throws Exception {
+		return mockMvc.perform(get("/api/secure").header(HttpHeaders.AUTHORIZATION, "Bearer " + token));
+	}
+}
@@ -0,0 +1,196 @@
+package com.auth.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.auth.backend.TestUsers;
+import com.auth.backend.enums.AccountTier;
+import com.auth.backend.model.User;
+import com.auth.backend.model.UserUsage;
+import com.auth.backend.repository.ScanHistoryRepository;
+import com.auth.backend.repository.UserRepository;
+import com.auth.backend.repository.UserUsageRepository;
+import com.auth.backend.service.LimitService.LimitCheckResponse;
+
+@SpringBootTest(properties = {
+		"application.quota.mode=database",
+		"application.quota.reservation-ttl-ms=1000",
+		"spring.datasource.hikari.maximum-pool-size=10"
+})
+class LimitServiceTests {
+
+	private static final String EMAIL = "limit-service-test@example.com";
+	private static final int THREADS = 16;
+	private static final int ATTEMPTS_PER_THREAD = 10;
+
+	@Autowired
+	private LimitService limitService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private UserUsageRepository userUsageRepository;
+
+	@Autowired
+	private ScanHistoryRepository scanHistoryRepository;
+
+	@Autowired
+	private ScanHistoryService scanHistoryService;
+
+	@AfterEach
+	void deleteUser() {
+		TestUsers.delete(userRepository, EMAIL);
+	}
+
+	@Test
+	void concurrentChecksCountEveryRequestExactlyOnce() throws Exception {
+		TestUsers.create(userRepository, EMAIL, AccountTier.PRO);
+		int limit = LimitService.getLimitForTier(AccountTier.PRO);
+
+		List<LimitCheckResponse> allowed = checkConcurrently();
+
+		// Every allowed request saw its own count, so no increment was lost or duplicated.
+		Set<Object> counts = ConcurrentHashMap.newKeySet();
+		allowed.forEach(response -> counts.add(response.getUsage().get("current")));
+		assertThat(allowed).hasSize(limit);
+		assertThat(counts).hasSize(limit);
+		assertThat(storedUsage().getDailyRequestCount()).isEqualTo(limit);
+	}
+
+	@Test
+	void onlyOneRequestPassesWhenOneIsLeft() throws Exception {
+		User user = TestUsers.create(userRepository, EMAIL, AccountTier.FREE);
+		int limit = LimitService.getLimitForTier(AccountTier.FREE);
+		UserUsage usage = user.getUserUsage();
+		usage.setDailyRequestCount(limit - 1);
+		usage.setLastRequestDate(LocalDate.now());
+		userUsageRepository.save(usage);
+
+		List<LimitCheckResponse> allowed = checkConcurrently();
+
+		assertThat(allowed).hasSize(1);
+		assertThat(allowed.get(0).getUsage()).containsEntry("current", limit);
+		assertThat(storedUsage().getDailyRequestCount()).isEqualTo(limit);
+
+		LimitCheckResponse denied = limitService.checkAndIncrementLimitByEmail(EMAIL);
+		assertThat(denied.getHttpStatus()).isEqualTo(429);
+		assertThat(denied.getUsage()).containsEntry("current", limit);
+	}
+
+	@Test
+	void firstRequestOfANewDayStartsFromOne() {
+		User user = TestUsers.create(userRepository, EMAIL, AccountTier.FREE);
+		UserUsage usage = user.getUserUsage();
+		usage.setDailyRequestCount(LimitService.getLimitForTier(AccountTier.FREE));
+		usage.setLastRequestDate(LocalDate.now().minusDays(1));
+		userUsageRepository.save(usage);
+
+		LimitCheckResponse response = limitService.checkAndIncrementLimitByEmail(EMAIL);
+
+		assertThat(response.isAllowed()).isTrue();
+		assertThat(response.getUsage()).containsEntry("current", 1);
+		assertThat(storedUsage().getLastRequestDate()).isEqualTo(LocalDate.now());
+	}
+
+	@Test
+	void releasedReservationsAreRefundedAndCommittedOnesAreNot() {
+		TestUsers.create(userRepository, EMAIL, AccountTier.FREE);
+
+		LimitCheckResponse released = limitService.reserve(EMAIL);
+		LimitCheckResponse committed = limitService.reserve(EMAIL);
+		assertThat(storedUsage().getDailyRequestCount()).isEqualTo(2);
+
+		assertThat(limitService.releaseReservation(EMAIL, released.getReservationId())).isTrue();
+		assertThat(limitService.commitReservation(EMAIL, committed.getReservationId())).isTrue();
+		assertThat(storedUsage().getDailyRequestCount()).isEqualTo(1);
+
+		// Each reservation can only be settled once, and only by its owner.
+		assertThat(limitService.releaseReservation(EMAIL, released.getReservationId())).isFalse();
+		assertThat(limitService.releaseReservation(EMAIL, committed.getReservationId())).isFalse();
+		LimitCheckResponse other = limitService.reserve(EMAIL);
+		assertThat(limitService.releaseReservation("someone-else@example.com", other.getReservationId())).isFalse();
+		assertThat(storedUsage().getDailyRequestCount()).isEqualTo(2);
+	}
+
+	@Test
+	void abandonedReservationsAreReleasedAfterTheirTtl() throws Exception {
+		TestUsers.create(userRepository, EMAIL, AccountTier.FREE);
+
+		LimitCheckResponse reservation = limitService.reserve(EMAIL);
+		assertThat(storedUsage().getDailyRequestCount()).isEqualTo(1);
+
+		Thread.sleep(2500);
+		limitService.expireReservations();
+
+		assertThat(storedUsage().getDailyRequestCount()).isZero();
+		assertThat(limitService.commitReservation(EMAIL, reservation.getReservationId())).isFalse();
+	}
+
+	@Test
+	void authorizedScansAreCountedAndRecordedTogether() {
+		TestUsers.create(userRepository, EMAIL, AccountTier.FREE);
+		int limit = LimitService.getLimitForTier(AccountTier.FREE);
+
+		for (int i = 1; i <= limit; i++) {
+			String url = "https://example.com/" + i;
+			LimitCheckResponse response = limitService.authorizeScan(EMAIL, url);
+			assertThat(response.isAllowed()).isTrue();
+			assertThat(response.getUsage()).containsEntry("current", i);
+			assertThat(scanHistoryRepository.findById(response.getScanId()))
+					.hasValueSatisfying(scan -> assertThat(scan.getUrl()).isEqualTo(url));
+		}
+
+		LimitCheckResponse denied = limitService.authorizeScan(EMAIL, "https://example.com/denied");
+		assertThat(denied.isAllowed()).isFalse();
+		assertThat(denied.getScanId()).isNull();
+		assertThat(scanHistoryService.getScanHistory(EMAIL, null, null).items()).hasSize(limit);
+		assertThat(storedUsage().getDailyRequestCount()).isEqualTo(limit);
+	}
+
+	private List<LimitCheckResponse> checkConcurrently() throws Exception {
+		List<LimitCheckResponse> allowed = new ArrayList<>();
+		CountDownLatch start = new CountDownLatch(1);
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		List<Future<List<LimitCheckResponse>>> futures = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			futures.add(executor.submit(() -> {
+				List<LimitCheckResponse> responses = new ArrayList<>();
+				start.await();
+				for (int attempt = 0; attempt < ATTEMPTS_PER_THREAD; attempt++) {
+					LimitCheckResponse response = limitService.checkAndIncrementLimitByEmail(EMAIL);
+					if (response.isAllowed()) {
+						responses.add(response);
+					}
+				}
+				return responses;
+			}));
+		}
+		start.countDown();
+		for (Future<List<LimitCheckResponse>> future : futures) {
+			allowed.addAll(future.get());
+		}
+		executor.shutdown();
+		return allowed;
+	}
+
+	private UserUsage storedUsage() {
+		User user = userRepository.findByEmail(EMAIL).orElseThrow();
+		return userUsageRepository.findByUser(user).orElseThrow();
+	}
+}
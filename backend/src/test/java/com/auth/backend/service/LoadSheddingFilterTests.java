@@ -0,0 +1,149 @@
+package com.auth.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.auth.backend.service.LoadSheddingFilter.Level;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest(properties = {
+		"spring.datasource.hikari.maximum-pool-size=1",
+		"application.cluster.invalidation.enabled=false",
+		"application.load-shedding.sample-interval-ms=3600000",
+		"application.load-shedding.elevated.pending-threads=1",
+		"application.load-shedding.elevated.acquire-p95-ms=100",
+		"application.load-shedding.saturated.pending-threads=3",
+		"application.load-shedding.saturated.acquire-p99-ms=60000"
+})
+class LoadSheddingFilterTests {
+
+	@Autowired
+	private LoadSheddingFilter loadSheddingFilter;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	void waitingThreadsShedLowPriorityFirstAndNeverTheCriticalPaths() throws Exception {
+		HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+		List<CompletableFuture<Void>> waiters = new ArrayList<>();
+		try (Connection held = dataSource.getConnection()) {
+			waiters.add(waitForConnection());
+			awaitPending(pool, 1);
+			loadSheddingFilter.sample();
+			assertThat(loadSheddingFilter.getLevel()).isEqualTo(Level.ELEVATED);
+			double rejected = rejected("low", "elevated");
+
+			MockHttpServletResponse history = call("GET", "/api/v1/users/history");
+			assertThat(history.getStatus()).isEqualTo(503);
+			assertThat(history.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+			assertThat(call("GET", "/api/v1/admin/users").getStatus()).isEqualTo(503);
+			assertThat(rejected("low", "elevated")).isEqualTo(rejected + 2);
+			// Same path prefix, but not a listing
+			assertThat(call("POST", "/api/v1/admin/users/bulk/delete").getStatus()).isEqualTo(200);
+			assertThat(call("GET", "/api/v1/users/me").getStatus()).isEqualTo(200);
+			assertThat(call("POST", "/api/v1/usage/check-limit").getStatus()).isEqualTo(200);
+			// An owner polling a job is a low-priority read, a worker's heartbeat is critical
+			assertThat(call("GET", "/api/v1/scans/jobs/7").getStatus()).isEqualTo(503);
+			assertThat(call("POST", "/api/v1/scans/jobs/7/heartbeat").getStatus()).isEqualTo(200);
+
+			waiters.add(waitForConnection());
+			waiters.add(waitForConnection());
+			awaitPending(pool, 3);
+			loadSheddingFilter.sample();
+			assertThat(loadSheddingFilter.getLevel()).isEqualTo(Level.SATURATED);
+
+			assertThat(call("GET", "/api/v1/users/me").getStatus()).isEqualTo(503);
+			assertThat(call("POST", "/api/v1/usage/check-limit").getStatus()).isEqualTo(200);
+			assertThat(call("POST", "/api/v1/usage/reservations/7/commit").getStatus()).isEqualTo(200);
+			assertThat(call("POST", "/api/v1/auth/authenticate").getStatus()).isEqualTo(200);
+			// Workers that cannot send heartbeats or results would have their jobs expire and run again
+			assertThat(call("POST", "/api/v1/scans/jobs/7/heartbeat").getStatus()).isEqualTo(200);
+			assertThat(call("POST", "/api/v1/scans/jobs/7/complete").getStatus()).isEqualTo(200);
+			assertThat(call("POST", "/api/v1/scans/jobs/claim").getStatus()).isEqualTo(200);
+			assertThat(call("POST", "/api/v1/scans/jobs/7/fail").getStatus()).isEqualTo(200);
+			// Queuing a scan is ordinary user traffic
+			assertThat(call("POST", "/api/v1/scans/jobs").getStatus()).isEqualTo(503);
+			assertThat(call("GET", "/actuator/health").getStatus()).isEqualTo(200);
+		}
+		for (CompletableFuture<Void> waiter : waiters) {
+			waiter.get(10, TimeUnit.SECONDS);
+		}
+
+		loadSheddingFilter.sample();
+		assertThat(loadSheddingFilter.getLevel()).isEqualTo(Level.NORMAL);
+		assertThat(call("GET", "/api/v1/users/history").getStatus()).isEqualTo(200);
+	}
+
+	@Test
+	void slowAcquisitionsShedWhileThePoolIsBusyButNotOnceItIsIdle() throws Exception {
+		try (Connection held = dataSource.getConnection()) {
+			CompletableFuture<Void> waiter = waitForConnection();
+			awaitPending(dataSource.unwrap(HikariDataSource.class), 1);
+			Thread.sleep(150);
+			held.close();
+			waiter.get(10, TimeUnit.SECONDS);
+		}
+		// The slow acquisition only counts while the pool is fully in use
+		loadSheddingFilter.sample();
+		assertThat(loadSheddingFilter.getLevel()).isEqualTo(Level.NORMAL);
+
+		try (Connection held = dataSource.getConnection()) {
+			loadSheddingFilter.sample();
+			assertThat(loadSheddingFilter.getLevel()).isEqualTo(Level.ELEVATED);
+			assertThat(call("GET", "/api/v1/admin/analytics/scans").getStatus()).isEqualTo(503);
+		}
+		loadSheddingFilter.sample();
+		assertThat(loadSheddingFilter.getLevel()).isEqualTo(Level.NORMAL);
+	}
+
+	private CompletableFuture<Void> waitForConnection() {
+		return CompletableFuture.runAsync(() -> {
+			try (Connection connection = dataSource.getConnection()) {
+				connection.isValid(1);
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+	}
+
+	private static void awaitPending(HikariDataSource pool, int threads) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (pool.getHikariPoolMXBean().getThreadsAwaitingConnection() < threads) {
+			assertThat(System.currentTimeMillis()).isLessThan(deadline);
+			Thread.sleep(5);
+		}
+	}
+
+	private MockHttpServletResponse call(String method, String path) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		loadSheddingFilter.doFilter(request, response, new MockFilterChain());
+		return response;
+	}
+
+	private double rejected(String priority, String level) {
+		var counter = meterRegistry.find("load_shedding.rejected").tag("priority", priority).tag("level", level).counter();
+		return counter != null ? counter.count() : 0;
+	}
+}
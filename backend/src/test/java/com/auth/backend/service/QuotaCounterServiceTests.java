@@ -0,0 +1,134 @@
+package com.auth.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.auth.backend.TestUsers;
+import com.auth.backend.enums.AccountTier;
+import com.auth.backend.model.User;
+import com.auth.backend.model.UserUsage;
+import com.auth.backend.repository.UserRepository;
+import com.auth.backend.repository.UserUsageRepository;
+import com.auth.backend.service.QuotaCounterService.QuotaCounter;
+import com.auth.backend.service.QuotaCounterService.QuotaDecision;
+
+@SpringBootTest(properties = {
+		"application.quota.mode=in-memory",
+		"application.quota.flush-interval-ms=3600000"
+})
+class QuotaCounterServiceTests {
+
+	private static final String EMAIL = "quota-counter-test@example.com";
+	private static final int THREADS = 32;
+	private static final int ATTEMPTS_PER_THREAD = 200;
+
+	@Autowired
+	private LimitService limitService;
+
+	@Autowired
+	private QuotaCounterService quotaCounterService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private UserUsageRepository userUsageRepository;
+
+	@BeforeEach
+	void createUser() {
+		TestUsers.create(userRepository, EMAIL, AccountTier.FREE);
+	}
+
+	@AfterEach
+	void deleteUser() {
+		TestUsers.delete(userRepository, EMAIL);
+		limitService.onUserDeleted(EMAIL);
+	}
+
+	@Test
+	void concurrentChecksNeverExceedTheLimit() throws Exception {
+		int limit = LimitService.getLimitForTier(AccountTier.FREE);
+		AtomicInteger allowed = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				for (int attempt = 0; attempt < ATTEMPTS_PER_THREAD; attempt++) {
+					if (limitService.checkAndIncrementLimitByEmail(EMAIL).isAllowed()) {
+						allowed.incrementAndGet();
+					}
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+
+		assertThat(allowed.get()).isEqualTo(limit);
+		assertThat(limitService.getUserUsageStatus(EMAIL).getDailyCount()).isEqualTo(limit);
+
+		quotaCounterService.flush();
+		User user = userRepository.findByEmail(EMAIL).orElseThrow();
+		UserUsage usage = userUsageRepository.findByUser(user).orElseThrow();
+		assertThat(usage.getDailyRequestCount()).isEqualTo(limit);
+		assertThat(usage.getLastRequestDate()).isEqualTo(LocalDate.now());
+	}
+
+	@Test
+	void aScanThatCannotBeRecordedGivesItsUnitBackToTheDayItWasCountedOn() {
+		limitService.checkAndIncrementLimitByEmail(EMAIL);
+		// Longer than the url column, so recording the scan fails after the counter was incremented
+		assertThatThrownBy(() -> limitService.authorizeScan(EMAIL, "https://example.com/" + "x".repeat(300)))
+				.isInstanceOf(RuntimeException.class);
+		assertThat(limitService.getUserUsageStatus(EMAIL).getDailyCount()).isEqualTo(1);
+
+		assertThat(quotaCounterService.tryAcquire(EMAIL).day()).isEqualTo(LocalDate.now());
+		// A unit counted yesterday is not taken off today's counter
+		quotaCounterService.refund(EMAIL, LocalDate.now().minusDays(1));
+		assertThat(quotaCounterService.peek(EMAIL).count()).isEqualTo(2);
+	}
+
+	@Test
+	void onlyTheRequestThatStartsTheDayIsItsFirst() {
+		QuotaDecision first = quotaCounterService.tryAcquire(EMAIL);
+		assertThat(first.firstOfDay()).isTrue();
+		assertThat(quotaCounterService.refund(EMAIL, first.day())).isTrue();
+
+		// Back at 0 after the refund, but the day has already started
+		QuotaDecision next = quotaCounterService.tryAcquire(EMAIL);
+		assertThat(next.count()).isEqualTo(1);
+		assertThat(next.firstOfDay()).isFalse();
+	}
+
+	@Test
+	void counterStartsOverOnANewDay() {
+		QuotaCounter counter = new QuotaCounter(1, AccountTier.FREE, false);
+		long today = LocalDate.now().toEpochDay();
+
+		assertThat(counter.tryIncrement(1, today)).isEqualTo(1);
+		assertThat(counter.tryIncrement(1, today)).isEqualTo(-1);
+		assertThat(counter.tryIncrement(1, today + 1)).isEqualTo(1);
+		assertThat(counter.getCount(today + 1)).isEqualTo(1);
+	}
+}
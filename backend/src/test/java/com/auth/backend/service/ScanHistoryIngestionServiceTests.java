@@ -0,0 +1,141 @@
+package com.auth.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.auth.backend.TestUsers;
+import com.auth.backend.enums.AccountTier;
+import com.auth.backend.model.User;
+import com.auth.backend.repository.UserRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest(properties = {
+		"application.scan-history.ingestion.mode=batched",
+		"application.scan-history.ingestion.batch-size=64",
+		// Long enough that only the batch size or the shutdown drain can trigger a write
+		"application.scan-history.ingestion.flush-interval-ms=60000",
+		"spring.datasource.hikari.maximum-pool-size=10"
+})
+class ScanHistoryIngestionServiceTests {
+
+	private static final String EMAIL = "scan-ingestion-test@example.com";
+	private static final int THREADS = 10;
+	private static final int SCANS_PER_THREAD = 50;
+
+	@Autowired
+	private ScanHistoryIngestionService ingestionService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@MockitoSpyBean
+	private TransactionTemplate transactionTemplate;
+
+	@AfterEach
+	void deleteUser() {
+		TestUsers.delete(userRepository, EMAIL);
+	}
+
+	@Test
+	void batchesAreRetriedWhileTheDatabaseIsUnavailableAndOnlyBadRecordsAreDropped() throws Exception {
+		User user = TestUsers.create(userRepository, EMAIL, AccountTier.FREE);
+		AtomicInteger outages = new AtomicInteger(2);
+		doAnswer(invocation -> {
+			if (Thread.currentThread().getName().equals("scan-history-writer") && outages.getAndDecrement() > 0) {
+				throw new CannotCreateTransactionException("Connection is not available, request timed out");
+			}
+			return invocation.callRealMethod();
+		}).when(transactionTemplate).execute(any());
+		double retriesBefore = meterRegistry.get("scan_history.ingestion.retries").counter().count();
+		double failedBefore = failed();
+
+		// One full batch: 63 good records and one whose URL does not fit the column
+		for (int scan = 0; scan < 63; scan++) {
+			assertThat(ingestionService.submit(EMAIL, "https://example.com/retry/" + scan, LocalDateTime.now())).isTrue();
+		}
+		assertThat(ingestionService.submit(EMAIL, "https://example.com/" + "x".repeat(300), LocalDateTime.now())).isTrue();
+
+		// The bad record is written last, so the batch is done once it has been dropped
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (failed() - failedBefore < 1 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(50);
+		}
+
+		Integer written = jdbcTemplate.queryForObject(
+				"select count(*) from scan_history where user_id = ?", Integer.class, user.getId());
+		assertThat(written).isEqualTo(63);
+		assertThat(meterRegistry.get("scan_history.ingestion.retries").counter().count() - retriesBefore).isEqualTo(2);
+		assertThat(failed() - failedBefore).isEqualTo(1);
+	}
+
+	@Test
+	// Stops the writer of this context
+	@DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+	void everyAcceptedRecordIsWrittenOnceByShutdown() throws Exception {
+		User user = TestUsers.create(userRepository, EMAIL, AccountTier.FREE);
+		CountDownLatch start = new CountDownLatch(1);
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		List<Future<Integer>> futures = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			int thread = i;
+			futures.add(executor.submit(() -> {
+				int accepted = 0;
+				start.await();
+				for (int scan = 0; scan < SCANS_PER_THREAD; scan++) {
+					String url = "https://example.com/" + thread + "/" + scan;
+					if (ingestionService.submit(EMAIL, url, LocalDateTime.now())) {
+						accepted++;
+					}
+				}
+				return accepted;
+			}));
+		}
+		start.countDown();
+		int accepted = 0;
+		for (Future<Integer> future : futures) {
+			accepted += future.get();
+		}
+		executor.shutdown();
+
+		// The remainder that never filled a batch is only written by the shutdown drain.
+		ingestionService.stop();
+		assertThat(ingestionService.submit(EMAIL, "https://example.com/late", LocalDateTime.now())).isFalse();
+
+		assertThat(accepted).isEqualTo(THREADS * SCANS_PER_THREAD);
+		List<Integer> ids = jdbcTemplate.queryForList(
+				"select id from scan_history where user_id = ?", Integer.class, user.getId());
+		assertThat(ids).hasSize(accepted).doesNotHaveDuplicates();
+	}
+
+	private double failed() {
+		return meterRegistry.get("scan_history.ingestion.records").tag("outcome", "failed").counter().count();
+	}
+}
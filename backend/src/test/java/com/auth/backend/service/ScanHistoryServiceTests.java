@@ -0,0 +1,90 @@
+package com.auth.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.auth.backend.TestUsers;
+import com.auth.backend.dto.ScanHistoryDto;
+import com.auth.backend.enums.AccountTier;
+import com.auth.backend.model.User;
+import com.auth.backend.repository.UserRepository;
+import com.auth.backend.service.ScanHistoryService.ScanHistoryPage;
+
+@SpringBootTest
+class ScanHistoryServiceTests {
+
+	private static final String EMAIL = "scan-history-test@example.com";
+	private static final int SCANS = 25;
+
+	@Autowired
+	private ScanHistoryService scanHistoryService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void createScans() {
+		User user = TestUsers.create(userRepository, EMAIL, AccountTier.FREE);
+		LocalDateTime base = LocalDateTime.of(2025, 1, 1, 12, 0);
+		for (int i = 0; i < SCANS; i++) {
+			// Every three scans share a timestamp, so the id has to break ties.
+			jdbcTemplate.update("insert into scan_history (id, url, created_at, user_id) values (nextval('scan_history_seq'), ?, ?, ?)",
+					"https://example.com/" + i, Timestamp.valueOf(base.plusMinutes(i / 3)), user.getId());
+		}
+	}
+
+	@AfterEach
+	void deleteUser() {
+		TestUsers.delete(userRepository, EMAIL);
+	}
+
+	@Test
+	void pagesCoverEveryScanOnceNewestFirst() {
+		List<ScanHistoryDto> seen = new ArrayList<>();
+		String cursor = null;
+		int pages = 0;
+		do {
+			ScanHistoryPage page = scanHistoryService.getScanHistory(EMAIL, cursor, 10);
+			seen.addAll(page.items());
+			cursor = page.nextCursor();
+			pages++;
+		} while (cursor != null);
+
+		assertThat(pages).isEqualTo(3);
+		assertThat(seen).hasSize(SCANS);
+		assertThat(seen).extracting(ScanHistoryDto::getId).doesNotHaveDuplicates();
+		for (int i = 1; i < seen.size(); i++) {
+			ScanHistoryDto previous = seen.get(i - 1);
+			ScanHistoryDto current = seen.get(i);
+			assertThat(current.getCreatedAt()).isBeforeOrEqualTo(previous.getCreatedAt());
+			if (current.getCreatedAt().isEqual(previous.getCreatedAt())) {
+				assertThat(current.getId()).isGreaterThan(previous.getId());
+			}
+		}
+	}
+
+	@Test
+	void defaultPageIsBoundedAndInvalidCursorsAreRejected() {
+		ScanHistoryPage firstPage = scanHistoryService.getScanHistory(EMAIL, null, null);
+		assertThat(firstPage.items()).hasSize(20);
+		assertThat(firstPage.nextCursor()).isNotNull();
+
+		assertThatThrownBy(() -> scanHistoryService.getScanHistory(EMAIL, "not-a-cursor", null))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,199 @@
+package com.auth.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.auth.backend.TestUsers;
+import com.auth.backend.enums.AccountTier;
+import com.auth.backend.enums.ScanStatus;
+import com.auth.backend.repository.UserRepository;
+import com.auth.backend.service.ScanJobService.ScanJob;
+
+@SpringBootTest(properties = {
+		"application.scan-jobs.visibility-timeout-ms=1000",
+		"application.scan-jobs.max-attempts=2"
+})
+@AutoConfigureMockMvc
+class ScanJobServiceTests {
+
+	private static final String FREE_EMAIL = "scan-job-free@example.com";
+	private static final String PRO_EMAIL = "scan-job-pro@example.com";
+	private static final String REPORT = "{\"score\": 97, \"source\": \"scan-job-test\"}";
+
+	@Autowired
+	private ScanJobService scanJobService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void drainQueue() {
+		// Jobs left behind by an aborted run would be claimed first
+		jdbcTemplate.update("update scan_history set status = 'FAILED', worker_id = null, visible_until = null "
+				+ "where status in ('QUEUED', 'RUNNING')");
+	}
+
+	@AfterEach
+	void deleteUsers() {
+		TestUsers.delete(userRepository, FREE_EMAIL);
+		TestUsers.delete(userRepository, PRO_EMAIL);
+		jdbcTemplate.update("delete from scan_report r where not exists "
+				+ "(select 1 from scan_history s where s.report_hash = r.content_hash) and r.original_size = ?",
+				REPORT.length());
+	}
+
+	@Test
+	void jobsAreDispatchedInWeightedFairOrderBetweenUsers() {
+		TestUsers.create(userRepository, FREE_EMAIL, AccountTier.FREE);
+		TestUsers.create(userRepository, PRO_EMAIL, AccountTier.PRO);
+		enqueue(FREE_EMAIL, 4);
+		enqueue(PRO_EMAIL, 8);
+
+		// Turns: PRO 0.2, 0.4, 0.6, 0.8, 1.0, ... and FREE 1, 2, 3, 4; ties go to the older job.
+		List<ScanJob> first = scanJobService.claim("worker-1", 6);
+		assertThat(first).extracting(ScanJob::email).containsExactly(
+				PRO_EMAIL, PRO_EMAIL, PRO_EMAIL, PRO_EMAIL, FREE_EMAIL, PRO_EMAIL);
+		assertThat(first).allMatch(job -> job.status() == ScanStatus.RUNNING && job.attempts() == 1);
+
+		// Running jobs count towards the turns: PRO is at 1.2, 1.4, 1.6 next, FREE at 2.
+		List<ScanJob> second = scanJobService.claim("worker-1", 4);
+		assertThat(second).extracting(ScanJob::email).containsExactly(PRO_EMAIL, PRO_EMAIL, PRO_EMAIL, FREE_EMAIL);
+	}
+
+	@Test
+	void concurrentWorkersNeverClaimTheSameJob() throws Exception {
+		TestUsers.create(userRepository, PRO_EMAIL, AccountTier.PRO);
+		enqueue(PRO_EMAIL, 20);
+
+		Set<Integer> completed = ConcurrentHashMap.newKeySet();
+		List<Integer> claimed = Collections.synchronizedList(new ArrayList<>());
+		ExecutorService workers = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> results = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				String workerId = "stub-worker-" + i;
+				results.add(workers.submit(() -> {
+					List<ScanJob> jobs;
+					while (!(jobs = scanJobService.claim(workerId, 3)).isEmpty()) {
+						for (ScanJob job : jobs) {
+							claimed.add(job.id());
+							if (scanJobService.complete(job.id(), workerId, null)) {
+								completed.add(job.id());
+							}
+						}
+					}
+					return null;
+				}));
+			}
+			for (Future<?> result : results) {
+				result.get();
+			}
+		} finally {
+			workers.shutdown();
+		}
+
+		assertThat(claimed).hasSize(20).doesNotHaveDuplicates();
+		assertThat(completed).hasSize(20);
+	}
+
+	@Test
+	void expiredClaimsAreQueuedAgainUntilAttemptsRunOut() throws Exception {
+		TestUsers.create(userRepository, FREE_EMAIL, AccountTier.FREE);
+		Integer jobId = enqueue(FREE_EMAIL, 1).get(0);
+
+		assertThat(scanJobService.claim("crashing-worker", 1)).extracting(ScanJob::id).containsExactly(jobId);
+		Thread.sleep(1200);
+		assertThat(scanJobService.heartbeat(jobId, "crashing-worker")).isEmpty();
+		scanJobService.requeueExpired();
+		assertThat(scanJobService.findJob(FREE_EMAIL, jobId).orElseThrow().status()).isEqualTo(ScanStatus.QUEUED);
+
+		// A worker that sends heartbeats keeps the job past the timeout.
+		ScanJob retried = scanJobService.claim("slow-worker", 1).get(0);
+		assertThat(retried.attempts()).isEqualTo(2);
+		for (int i = 0; i < 3; i++) {
+			Thread.sleep(500);
+			assertThat(scanJobService.heartbeat(jobId, "slow-worker")).isPresent();
+			scanJobService.requeueExpired();
+		}
+		assertThat(scanJobService.findJob(FREE_EMAIL, jobId).orElseThrow().status()).isEqualTo(ScanStatus.RUNNING);
+
+		// Once it stops, the job has used up its attempts and fails.
+		Thread.sleep(1200);
+		scanJobService.requeueExpired();
+		assertThat(scanJobService.findJob(FREE_EMAIL, jobId).orElseThrow().status()).isEqualTo(ScanStatus.FAILED);
+		assertThat(scanJobService.claim("slow-worker", 1)).isEmpty();
+	}
+
+	@Test
+	void onlyWorkersClaimJobsAndTheirReportsReachTheOwner() throws Exception {
+		TestUsers.create(userRepository, FREE_EMAIL, AccountTier.FREE);
+		mockMvc.perform(post("/api/v1/scans/jobs").with(user(FREE_EMAIL))
+				.contentType(MediaType.APPLICATION_JSON).content("{\"url\": \"https://example.com/job\"}"))
+				.andExpect(status().isAccepted());
+
+		mockMvc.perform(post("/api/v1/scans/jobs/claim").with(user(FREE_EMAIL)).param("workerId", "w"))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(post("/api/v1/scans/jobs/claim").with(user("agent@example.com").authorities(() -> "AGENT"))
+				.param("workerId", "agent-1"))
+				.andExpect(status().isOk());
+
+		ScanJob job = jdbcTemplate.queryForList("select s.id from scan_history s join _user u on u.id = s.user_id "
+				+ "where u.email = ?", Integer.class, FREE_EMAIL).stream()
+				.map(id -> scanJobService.findJob(FREE_EMAIL, id).orElseThrow())
+				.findFirst().orElseThrow();
+		assertThat(job.status()).isEqualTo(ScanStatus.RUNNING);
+
+		mockMvc.perform(post("/api/v1/scans/jobs/{id}/complete", job.id()).with(user("agent@example.com").authorities(() -> "AGENT"))
+				.param("workerId", "agent-1")
+				.contentType(MediaType.APPLICATION_JSON).content(REPORT))
+				.andExpect(status().isOk());
+		MvcResult download = mockMvc.perform(get("/api/v1/scans/{id}/report", job.id()).with(user(FREE_EMAIL)))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		String report = mockMvc.perform(asyncDispatch(download))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+		assertThat(report).contains("scan-job-test");
+		assertThat(scanJobService.findJob(FREE_EMAIL, job.id()).orElseThrow().status()).isEqualTo(ScanStatus.COMPLETED);
+	}
+
+	private List<Integer> enqueue(String email, int jobs) {
+		List<Integer> ids = new ArrayList<>();
+		for (int i = 0; i < jobs; i++) {
+			ids.add(scanJobService.enqueue(email, "https://example.com/" + email + "/" + i).getScanId());
+		}
+		return ids;
+	}
+}
@@ -0,0 +1,124 @@
+package com.auth.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.auth.backend.TestUsers;
+import com.auth.backend.enums.AccountTier;
+import com.auth.backend.repository.UserRepository;
+import com.auth.backend.service.ScanLeaseService.LeaseResponse;
+
+@SpringBootTest(properties = "application.scan-lease.ttl-ms=1000")
+class ScanLeaseServiceTests {
+
+	private static final String FREE_EMAIL = "scan-lease-free@example.com";
+	private static final String PRO_EMAIL = "scan-lease-pro@example.com";
+	private static final int THREADS = 16;
+
+	@Autowired
+	private ScanLeaseService scanLeaseService;
+
+	@Autowired
+	private LimitService limitService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@AfterEach
+	void deleteUsers() {
+		for (String email : List.of(FREE_EMAIL, PRO_EMAIL)) {
+			TestUsers.delete(userRepository, email);
+			// Drops the leases left behind, as deleting the user through the admin API does
+			limitService.onUserDeleted(email);
+		}
+	}
+
+	@Test
+	void concurrentAcquiresNeverExceedTheTierLimit() throws Exception {
+		TestUsers.create(userRepository, FREE_EMAIL, AccountTier.FREE);
+		TestUsers.create(userRepository, PRO_EMAIL, AccountTier.PRO);
+
+		assertThat(acquireConcurrently(FREE_EMAIL)).isEqualTo(1);
+		assertThat(acquireConcurrently(PRO_EMAIL)).isEqualTo(5);
+		assertThat(scanLeaseService.activeLeases(FREE_EMAIL)).isEqualTo(1);
+		assertThat(scanLeaseService.activeLeases(PRO_EMAIL)).isEqualTo(5);
+
+		LeaseResponse denied = scanLeaseService.acquire(FREE_EMAIL);
+		assertThat(denied.isAllowed()).isFalse();
+		assertThat(denied.getActive()).isEqualTo(1);
+		assertThat(denied.getMaxConcurrent()).isEqualTo(1);
+	}
+
+	@Test
+	void releasedLeasesFreeTheirSlotOnlyOnce() {
+		TestUsers.create(userRepository, FREE_EMAIL, AccountTier.FREE);
+
+		LeaseResponse lease = scanLeaseService.acquire(FREE_EMAIL);
+		assertThat(lease.isAllowed()).isTrue();
+
+		// Only the owner can release, and only once.
+		assertThat(scanLeaseService.release("someone-else@example.com", lease.getLeaseId())).isFalse();
+		assertThat(scanLeaseService.release(FREE_EMAIL, lease.getLeaseId())).isTrue();
+		assertThat(scanLeaseService.release(FREE_EMAIL, lease.getLeaseId())).isFalse();
+		assertThat(scanLeaseService.heartbeat(FREE_EMAIL, lease.getLeaseId())).isNull();
+
+		LeaseResponse next = scanLeaseService.acquire(FREE_EMAIL);
+		assertThat(next.isAllowed()).isTrue();
+		assertThat(scanLeaseService.release(FREE_EMAIL, next.getLeaseId())).isTrue();
+	}
+
+	@Test
+	void leasesExpireWithoutHeartbeatsAndLiveOnWithThem() throws Exception {
+		TestUsers.create(userRepository, PRO_EMAIL, AccountTier.PRO);
+
+		LeaseResponse abandoned = scanLeaseService.acquire(PRO_EMAIL);
+		LeaseResponse running = scanLeaseService.acquire(PRO_EMAIL);
+
+		// The scheduled expiry runs every 500 ms; the abandoned lease is gone after at most two ticks past its TTL
+		for (int i = 0; i < 6; i++) {
+			Thread.sleep(400);
+			assertThat(scanLeaseService.heartbeat(PRO_EMAIL, running.getLeaseId())).isNotNull();
+		}
+
+		assertThat(scanLeaseService.heartbeat(PRO_EMAIL, abandoned.getLeaseId())).isNull();
+		assertThat(scanLeaseService.release(PRO_EMAIL, abandoned.getLeaseId())).isFalse();
+		assertThat(scanLeaseService.activeLeases(PRO_EMAIL)).isEqualTo(1);
+		assertThat(scanLeaseService.release(PRO_EMAIL, running.getLeaseId())).isTrue();
+		assertThat(scanLeaseService.activeLeases(PRO_EMAIL)).isZero();
+	}
+
+	private int acquireConcurrently(String email) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<LeaseResponse>> results = new ArrayList<>();
+			for (int i = 0; i < THREADS; i++) {
+				results.add(executor.submit(() -> {
+					start.await();
+					return scanLeaseService.acquire(email);
+				}));
+			}
+			start.countDown();
+			int granted = 0;
+			for (Future<LeaseResponse> result : results) {
+				if (result.get().isAllowed()) {
+					granted++;
+				}
+			}
+			return granted;
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package com.auth.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.auth.backend.QueryBudget;
+import com.auth.backend.TestUsers;
+import com.auth.backend.enums.AccountTier;
+import com.auth.backend.repository.ScanResultRepository;
+import com.auth.backend.repository.UserRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest
+class ScanResultCacheServiceTests {
+
+	private static final String FREE_EMAIL = "scan-cache-free@example.com";
+	private static final String PRO_EMAIL = "scan-cache-pro@example.com";
+	// Each test uses its own URL, because results outlive the rows in this instance's memory
+	private static final String URL = "https://scan-cache-test.example.com/pricing";
+	private static final String OLD_URL = "https://scan-cache-test.example.com/about";
+
+	@Autowired
+	private ScanResultCacheService scanResultCache;
+
+	@Autowired
+	private ScanResultRepository scanResultRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@AfterEach
+	void cleanUp() {
+		jdbcTemplate.update("delete from scan_result where normalized_url in (?, ?)",
+				UrlNormalizer.normalize(URL), UrlNormalizer.normalize(OLD_URL));
+		TestUsers.delete(userRepository, FREE_EMAIL);
+		TestUsers.delete(userRepository, PRO_EMAIL);
+	}
+
+	@Test
+	void storedReportIsServedForOtherSpellingsOfTheUrl() throws Exception {
+		TestUsers.create(userRepository, FREE_EMAIL, AccountTier.FREE);
+		String report = "{\"score\":87}";
+		double servedBefore = meterRegistry.get("scan_cache.served").counter().count();
+
+		scanResultCache.store(URL + "/?utm_campaign=launch", report);
+
+		assertThat(scanResultCache.findFreshResult(FREE_EMAIL, "HTTPS://Scan-Cache-Test.example.com/pricing#faq"))
+				.hasValueSatisfying(result -> assertThat(result.report()).isEqualTo(report));
+		assertThat(scanResultCache.findFreshResult(FREE_EMAIL, "https://scan-cache-test.example.com/other")).isEmpty();
+		assertThat(meterRegistry.get("scan_cache.served").counter().count() - servedBefore).isEqualTo(report.length());
+
+		// The tier comes from the user near-cache and the report from memory
+		assertThat(QueryBudget.assertAtMost("cached scan result", 0, () -> scanResultCache.findFreshResult(FREE_EMAIL, URL)))
+				.isPresent();
+	}
+
+	@Test
+	void freshnessDependsOnTheTierOfTheReader() {
+		TestUsers.create(userRepository, FREE_EMAIL, AccountTier.FREE);
+		TestUsers.create(userRepository, PRO_EMAIL, AccountTier.PRO);
+		// Written by another instance two hours ago, so it is not in this instance's memory.
+		scanResultRepository.upsert(UrlNormalizer.normalize(OLD_URL), "{\"score\":50}", LocalDateTime.now().minusHours(2));
+
+		assertThat(scanResultCache.findFreshResult(PRO_EMAIL, OLD_URL)).isEmpty();
+		assertThat(scanResultCache.findFreshResult(FREE_EMAIL, OLD_URL)).isPresent();
+
+		scanResultCache.store(OLD_URL, "{\"score\":90}");
+		assertThat(scanResultCache.findFreshResult(PRO_EMAIL, OLD_URL))
+				.hasValueSatisfying(result -> assertThat(result.report()).isEqualTo("{\"score\":90}"));
+	}
+}
@@ -0,0 +1,65 @@
+package com.auth.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.auth.backend.dto.ScanSketchResponse;
+
+@SpringBootTest
+class ScanSketchServiceTests {
+
+	private static final int HOSTS = 5000;
+	// Three standard errors of a precision-14 HyperLogLog
+	private static final double HOST_ERROR = 3 * 1.04 / Math.sqrt(1 << 14);
+	private static final double URL_ERROR = Math.E / CountMinSketch.DEFAULT_WIDTH;
+
+	// A day of its own, so that neither earlier runs nor the scans of other tests end up in its sketches
+	private final LocalDate day = LocalDate.of(1990, 1, 1).plusDays(ThreadLocalRandom.current().nextInt(3650));
+
+	@Autowired
+	private ScanSketchService scanSketchService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@AfterEach
+	void deleteSketches() {
+		scanSketchService.flush();
+		jdbcTemplate.update("delete from scan_sketch where day = ?", day);
+	}
+
+	@Test
+	void flushedAndPendingScansAddUpAcrossFlushes() {
+		for (int i = 0; i < HOSTS; i++) {
+			scanSketchService.record(day, i % 2 + 1, "https://sketch-" + i + ".example.com/a");
+		}
+		for (int i = 0; i < 10; i++) {
+			scanSketchService.record(day, 1, "https://sketch-0.example.com/a");
+		}
+		scanSketchService.flush();
+		// Merged into the rows the first flush wrote
+		scanSketchService.record(day, 3, "https://sketch-0.example.com/a");
+		scanSketchService.record(day, 3, "https://sketch-" + HOSTS + ".example.com/");
+		scanSketchService.flush();
+		scanSketchService.record(day, 4, "not a url");
+
+		ScanSketchResponse sketches = scanSketchService.getScanSketches(day, day, 1);
+		assertThat(sketches.scans()).isEqualTo(HOSTS + 12);
+		assertThat((double) sketches.uniqueHosts()).isCloseTo(HOSTS + 1, within((HOSTS + 1) * HOST_ERROR));
+		assertThat((double) sketches.uniqueUsers()).isCloseTo(4, within(0.5));
+		assertThat(sketches.topUrls()).singleElement().satisfies(top -> {
+			assertThat(top.url()).isEqualTo("https://sketch-0.example.com/a");
+			// Count-Min never undercounts and overcounts by at most e / width of all scans
+			assertThat(top.count()).isBetween(12L, 12 + (long) Math.ceil(URL_ERROR * sketches.scans()));
+		});
+	}
+}
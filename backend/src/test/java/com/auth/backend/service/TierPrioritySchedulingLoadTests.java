@@ -0,0 +1,138 @@
+package com.auth.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.auth.backend.enums.AccountTier;
+import com.auth.backend.enums.AuthProvider;
+import com.auth.backend.enums.Role;
+import com.auth.backend.model.User;
+import com.auth.backend.model.UserUsage;
+
+/**
+ * Load generator: closed-loop FREE clients saturate the check-limit slots while a few PRO clients
+ * and an admin keep calling the same endpoint. The filter chain stands in for the database work of the request.
+ *
+ * Every call notes how many requests were dispatched before it arrived and before it was dispatched
+ * itself, so the assertions are about queue positions rather than timings.
+ */
+@SpringBootTest(properties = {
+		"application.admission.usage.max-concurrent=" + TierPrioritySchedulingLoadTests.MAX_CONCURRENT,
+		"application.admission.queue-timeout-ms=30000",
+		"application.admission.max-queue=1000"
+})
+class TierPrioritySchedulingLoadTests {
+
+	static final int MAX_CONCURRENT = 2;
+
+	private static final long SERVICE_MS = 4;
+	private static final int PRO_CLIENTS = 2;
+	private static final int FREE_CLIENTS = 40;
+	private static final int REQUESTS_PER_PRO_CLIENT = 100;
+
+	private final AtomicLong dispatched = new AtomicLong();
+
+	@Autowired
+	private AdmissionControlFilter admissionControlFilter;
+
+	@Test
+	void proRequestsOvertakeTheFreeQueueWhileFreeTrafficSaturatesTheService() throws Exception {
+		AtomicBoolean saturating = new AtomicBoolean(true);
+		List<Long> free = Collections.synchronizedList(new ArrayList<>());
+		List<Long> pro;
+		List<Long> admin = new ArrayList<>();
+		try (ExecutorService freeClients = Executors.newVirtualThreadPerTaskExecutor()) {
+			List<Future<?>> running = new ArrayList<>();
+			for (int i = 0; i < FREE_CLIENTS; i++) {
+				running.add(freeClients.submit(() -> {
+					while (saturating.get()) {
+						free.add(overtakenBy(AccountTier.FREE, Role.USER));
+					}
+					return null;
+				}));
+			}
+			// Let the FREE queue build up first
+			Thread.sleep(200);
+			pro = runProClients();
+			for (int i = 0; i < 20; i++) {
+				admin.add(overtakenBy(AccountTier.FREE, Role.ADMIN));
+			}
+			saturating.set(false);
+			for (Future<?> client : running) {
+				client.get();
+			}
+		}
+
+		// A PRO request only waits for the slots that are running or already handed out when it arrives
+		assertThat(percentile(pro, 1.0)).isLessThanOrEqualTo(2 * MAX_CONCURRENT);
+		// while FREE requests queue behind each other
+		assertThat(percentile(free, 0.50)).isGreaterThanOrEqualTo(FREE_CLIENTS / 2);
+		// Admins have a reserved slot of their own
+		assertThat(percentile(admin, 1.0)).isLessThanOrEqualTo(2 * MAX_CONCURRENT);
+	}
+
+	private List<Long> runProClients() throws Exception {
+		List<Long> overtaken = Collections.synchronizedList(new ArrayList<>());
+		try (ExecutorService proClients = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < PRO_CLIENTS; i++) {
+				proClients.submit(() -> {
+					for (int j = 0; j < REQUESTS_PER_PRO_CLIENT; j++) {
+						overtaken.add(overtakenBy(AccountTier.PRO, Role.USER));
+					}
+					return null;
+				});
+			}
+		}
+		return overtaken;
+	}
+
+	/**
+	 * Makes a call and returns how many other requests were dispatched between its arrival and its own dispatch.
+	 */
+	private long overtakenBy(AccountTier tier, Role role) throws Exception {
+		User user = User.builder().email(tier + "-load@example.com").role(role).authProvider(AuthProvider.LOCAL).build();
+		user.setUserUsage(UserUsage.builder().user(user).accountTier(tier).build());
+		SecurityContextHolder.getContext().setAuthentication(
+				UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities()));
+		try {
+			MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/usage/check-limit");
+			MockHttpServletResponse response = new MockHttpServletResponse();
+			long arrival = dispatched.get();
+			AtomicLong dispatch = new AtomicLong();
+			admissionControlFilter.doFilter(request, response, (req, res) -> {
+				dispatch.set(dispatched.getAndIncrement());
+				try {
+					Thread.sleep(SERVICE_MS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+			assertThat(response.getStatus()).isEqualTo(200);
+			return dispatch.get() - arrival;
+		} finally {
+			SecurityContextHolder.clearContext();
+		}
+	}
+
+	private static long percentile(List<Long> values, double percentile) {
+		List<Long> sorted = new ArrayList<>(values);
+		Collections.sort(sorted);
+		return sorted.get((int) Math.ceil(percentile * sorted.size()) - 1);
+	}
+}
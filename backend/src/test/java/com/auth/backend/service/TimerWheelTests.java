@@ -0,0 +1,32 @@
+package com.auth.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TimerWheelTests {
+
+	@Test
+	void itemsExpireOnTheirTickEvenAfterFullRotations() {
+		TimerWheel<String> wheel = new TimerWheel<>(1000, 8, 0);
+		List<String> expired = new ArrayList<>();
+		wheel.schedule("soon", 2_500);
+		wheel.schedule("after-two-rotations", 18_000);
+
+		wheel.advance(2_999, expired::add);
+		assertThat(expired).isEmpty();
+
+		wheel.advance(3_000, expired::add);
+		assertThat(expired).containsExactly("soon");
+
+		// Bucket 2 comes around at 10s, but the second item belongs to a later rotation.
+		wheel.advance(17_999, expired::add);
+		assertThat(expired).containsExactly("soon");
+
+		wheel.advance(18_000, expired::add);
+		assertThat(expired).containsExactly("soon", "after-two-rotations");
+	}
+}
@@ -0,0 +1,89 @@
+package com.auth.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TopKSketchTests {
+
+	private static final int URLS = 20_000;
+	private static final int SCANS = 300_000;
+
+	@Test
+	void findsTheExactTopUrlsOfAZipfWorkloadWithBoundedOverestimates() {
+		Map<String, Long> exact = new HashMap<>();
+		TopKSketch sketch = new TopKSketch();
+		zipf(new Random(7), SCANS).forEach(url -> {
+			exact.merge(url, 1L, Long::sum);
+			sketch.add(url);
+		});
+
+		List<String> exactTop = exact.entrySet().stream()
+				.sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+				.limit(10)
+				.map(Map.Entry::getKey)
+				.toList();
+		List<TopKSketch.Entry> top = sketch.top(10);
+
+		assertThat(top).extracting(TopKSketch.Entry::item).containsExactlyInAnyOrderElementsOf(exactTop);
+		// e / width of all scans: 2.72 / 2048 * 300k = 398
+		long maxOverestimate = Math.round(Math.E / CountMinSketch.DEFAULT_WIDTH * SCANS);
+		assertThat(top).allSatisfy(entry -> assertThat(entry.count())
+				.isBetween(exact.get(entry.item()), exact.get(entry.item()) + maxOverestimate));
+		assertThat(sketch.total()).isEqualTo(SCANS);
+	}
+
+	@Test
+	void mergingDailySketchesEqualsCountingTheWholeRange() {
+		Random random = new Random(11);
+		TopKSketch whole = new TopKSketch();
+		TopKSketch range = new TopKSketch();
+		for (int day = 0; day < 7; day++) {
+			TopKSketch daily = new TopKSketch();
+			zipf(random, SCANS / 7).forEach(url -> {
+				daily.add(url);
+				whole.add(url);
+			});
+			range.merge(TopKSketch.fromBytes(daily.toBytes()));
+		}
+
+		assertThat(range.total()).isEqualTo(whole.total());
+		assertThat(range.top(10)).isEqualTo(whole.top(10));
+	}
+
+	@Test
+	void sizeIsFixedByTheSketchShape() {
+		TopKSketch sketch = new TopKSketch();
+		zipf(new Random(3), SCANS).forEach(sketch::add);
+
+		// 5 x 2048 counters plus at most 100 candidate URLs
+		int counters = 8 * CountMinSketch.DEFAULT_WIDTH * CountMinSketch.DEFAULT_DEPTH;
+		assertThat(sketch.toBytes().length).isBetween(counters, counters + 100 * 64);
+	}
+
+	/**
+	 * URLs whose scan counts follow Zipf's law with exponent 1, like real traffic.
+	 */
+	private static List<String> zipf(Random random, int scans) {
+		double[] cumulative = new double[URLS];
+		double sum = 0;
+		for (int rank = 1; rank <= URLS; rank++) {
+			sum += 1.0 / rank;
+			cumulative[rank - 1] = sum;
+		}
+		double total = sum;
+		return random.doubles(scans)
+				.mapToObj(u -> {
+					int index = Arrays.binarySearch(cumulative, u * total);
+					int rank = index >= 0 ? index : -index - 1;
+					return "https://site-" + rank + ".example.com/";
+				})
+				.toList();
+	}
+}
@@ -0,0 +1,38 @@
+package com.auth.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+class UrlNormalizerTests {
+
+	@Test
+	void spellingsOfTheSamePageShareOneKey() {
+		String expected = "https://example.com/blog?page=2&q=seo";
+
+		assertThat(UrlNormalizer.normalize("https://example.com/blog?page=2&q=seo")).isEqualTo(expected);
+		assertThat(UrlNormalizer.normalize("  HTTPS://Example.COM:443/blog/?q=seo&page=2#top ")).isEqualTo(expected);
+		assertThat(UrlNormalizer.normalize("example.com/blog?utm_source=x&q=seo&gclid=1&page=2")).isEqualTo(expected);
+		assertThat(UrlNormalizer.normalize("https://example.com")).isEqualTo("https://example.com/");
+		assertThat(UrlNormalizer.normalize("http://example.com:8080/")).isEqualTo("http://example.com:8080/");
+	}
+
+	@Test
+	void pathCaseAndSchemeStayDistinct() {
+		assertThat(UrlNormalizer.normalize("https://example.com/Blog"))
+				.isNotEqualTo(UrlNormalizer.normalize("https://example.com/blog"));
+		assertThat(UrlNormalizer.normalize("http://example.com/"))
+				.isNotEqualTo(UrlNormalizer.normalize("https://example.com/"));
+	}
+
+	@Test
+	void nonWebUrlsAreRejected() {
+		assertThatThrownBy(() -> UrlNormalizer.normalize("ftp://example.com/file"))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> UrlNormalizer.normalize("https://exa mple.com"))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> UrlNormalizer.normalize(" "))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,91 @@
+package com.auth.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.auth.backend.QueryBudget;
+import com.auth.backend.TestUsers;
+import com.auth.backend.dto.UserSnapshot;
+import com.auth.backend.enums.AccountTier;
+import com.auth.backend.enums.Role;
+import com.auth.backend.model.User;
+import com.auth.backend.repository.UserRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest
+class UserCacheServiceTests {
+
+	private static final String EMAIL = "user-cache-test@example.com";
+
+	@Autowired
+	private UserCacheService userCacheService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private User user;
+
+	@BeforeEach
+	void createUser() {
+		user = TestUsers.create(userRepository, EMAIL, AccountTier.FREE);
+	}
+
+	@AfterEach
+	void deleteUser() {
+		TestUsers.delete(userRepository, EMAIL);
+	}
+
+	@Test
+	void repeatedLookupsByEmailAndIdRunNoStatements() throws Exception {
+		double hits = meterRegistry.get("cache.gets").tag("cache", "userSnapshots").tag("result", "hit").functionCounter().count();
+		QueryBudget.assertAtMost("first lookup", 1, () -> userCacheService.findByEmail(EMAIL));
+
+		UserSnapshot snapshot = QueryBudget.assertAtMost("cached lookup", 0, () -> userCacheService.findByEmail(EMAIL)).orElseThrow();
+		assertThat(snapshot.id()).isEqualTo(user.getId());
+		assertThat(snapshot.accountTier()).isEqualTo(AccountTier.FREE);
+
+		QueryBudget.assertAtMost("first lookup by id", 1, () -> userCacheService.findById(user.getId()));
+		assertThat(QueryBudget.assertAtMost("cached lookup by id", 0, () -> userCacheService.findById(user.getId())))
+				.contains(snapshot);
+		assertThat(meterRegistry.get("cache.gets").tag("cache", "userSnapshots").tag("result", "hit").functionCounter().count())
+				.isEqualTo(hits + 3);
+	}
+
+	@Test
+	void entityWritesAndTierSelectionDropTheSnapshot() {
+		userCacheService.findByEmail(EMAIL);
+
+		user.setRole(Role.ADMIN);
+		user.setSecurityVersion(user.getSecurityVersion() + 1);
+		userRepository.save(user);
+		assertThat(userCacheService.findByEmail(EMAIL).orElseThrow().role()).isEqualTo(Role.ADMIN);
+
+		userService.selectAccountTier(EMAIL, AccountTier.PRO);
+		UserSnapshot snapshot = userCacheService.findByEmail(EMAIL).orElseThrow();
+		assertThat(snapshot.accountTier()).isEqualTo(AccountTier.PRO);
+		assertThat(snapshot.hasSelectedTier()).isTrue();
+	}
+
+	@Test
+	void aDeletedUsersIdDoesNotResolveToTheNewOwnerOfTheEmail() {
+		Integer oldId = user.getId();
+		assertThat(userCacheService.findById(oldId)).isPresent();
+
+		User reRegistered = TestUsers.create(userRepository, EMAIL, AccountTier.PREMIUM);
+
+		assertThat(userCacheService.findById(oldId)).isEmpty();
+		assertThat(userCacheService.findByEmail(EMAIL).orElseThrow().id()).isEqualTo(reRegistered.getId());
+	}
+}
@@ -0,0 +1,134 @@
+package com.auth.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.auth.backend.TestUsers;
+import com.auth.backend.enums.AccountTier;
+import com.auth.backend.repository.UserRepository;
+import com.auth.backend.service.ScanJobService.ScanJob;
+
+@SpringBootTest(properties = {
+		"application.events.heartbeat-interval-ms=200",
+		"application.events.max-connections-per-user=2"
+})
+@AutoConfigureMockMvc
+class UserEventHubTests {
+
+	private static final String EMAIL = "user-events@example.com";
+
+	@Autowired
+	private UserEventHub userEventHub;
+
+	@Autowired
+	private LimitService limitService;
+
+	@Autowired
+	private ScanJobService scanJobService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void createUser() {
+		TestUsers.create(userRepository, EMAIL, AccountTier.FREE);
+		// Jobs left behind by other tests would be claimed instead of ours
+		jdbcTemplate.update("update scan_history set status = 'FAILED', worker_id = null, visible_until = null "
+				+ "where status in ('QUEUED', 'RUNNING')");
+	}
+
+	@AfterEach
+	void deleteUser() {
+		TestUsers.delete(userRepository, EMAIL);
+		// Closes the streams left open, as deleting the user through the admin API does
+		limitService.onUserDeleted(EMAIL);
+	}
+
+	@Test
+	void usageAndScanChangesArePushedToTheOpenStream() throws Exception {
+		MvcResult stream = open();
+		awaitContent(stream, "event:usage", "\"dailyCount\":0");
+
+		limitService.checkAndIncrementLimitByEmail(EMAIL);
+		awaitContent(stream, "\"dailyCount\":1");
+
+		Integer jobId = scanJobService.enqueue(EMAIL, "https://example.com/events").getScanId();
+		awaitContent(stream, "event:scan", "\"status\":\"QUEUED\"", "\"dailyCount\":2");
+
+		ScanJob job = scanJobService.claim("events-worker", 1).get(0);
+		assertThat(job.id()).isEqualTo(jobId);
+		awaitContent(stream, "\"status\":\"RUNNING\"");
+
+		assertThat(scanJobService.complete(jobId, "events-worker", null)).isTrue();
+		awaitContent(stream, "\"status\":\"COMPLETED\"", "\"scanId\":" + jobId);
+
+		// Idle streams get heartbeat comments
+		awaitContent(stream, ":heartbeat");
+	}
+
+	@Test
+	void openingTooManyStreamsClosesTheOldest() throws Exception {
+		int before = userEventHub.connections();
+		MvcResult oldest = open();
+		open();
+		assertThat(userEventHub.connections()).isEqualTo(before + 2);
+
+		open();
+		assertThat(userEventHub.connections()).isEqualTo(before + 2);
+		// The oldest stream's request completes, the others stay open
+		oldest.getAsyncResult(2000);
+
+		limitService.onUserDeleted(EMAIL);
+		assertThat(userEventHub.connections()).isEqualTo(before);
+	}
+
+	private MvcResult open() throws Exception {
+		return mockMvc.perform(get("/api/v1/events").with(user(EMAIL)))
+				.andExpect(status().isOk())
+				.andExpect(request().asyncStarted())
+				.andReturn();
+	}
+
+	private static void awaitContent(MvcResult stream, String... fragments) throws Exception {
+		long deadline = System.currentTimeMillis() + 5000;
+		String content;
+		do {
+			content = stream.getResponse().getContentAsString(StandardCharsets.UTF_8);
+			if (containsAll(content, fragments)) {
+				return;
+			}
+			Thread.sleep(20);
+		} while (System.currentTimeMillis() < deadline);
+		assertThat(content).contains(fragments);
+	}
+
+	private static boolean containsAll(String content, String... fragments) {
+		for (String fragment : fragments) {
+			if (!content.contains(fragment)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
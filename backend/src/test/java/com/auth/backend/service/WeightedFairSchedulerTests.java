@@ -0,0 +1,125 @@
+package com.auth.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.auth.backend.service.WeightedFairScheduler.Admission;
+import com.auth.backend.service.WeightedFairScheduler.Outcome;
+
+class WeightedFairSchedulerTests {
+
+	enum Lane {
+		RESERVED, HEAVY, LIGHT
+	}
+
+	// A thread per task: waiters block in acquire, which the common pool would not make up for
+	private final ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor();
+
+	@AfterEach
+	void stopThreads() {
+		threads.shutdownNow();
+	}
+
+	@Test
+	void backloggedLanesAreServedInProportionToTheirWeights() throws Exception {
+		WeightedFairScheduler<Lane> scheduler = new WeightedFairScheduler<>(
+				Lane.class, Map.of(Lane.HEAVY, 3, Lane.LIGHT, 1), Lane.RESERVED, 1, 0, 1000);
+		Admission running = scheduler.acquire(Lane.LIGHT, 1, TimeUnit.SECONDS);
+
+		List<Lane> order = Collections.synchronizedList(new ArrayList<>());
+		List<CompletableFuture<Void>> tasks = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			Lane lane = i % 2 == 0 ? Lane.HEAVY : Lane.LIGHT;
+			tasks.add(CompletableFuture.runAsync(() -> {
+				try {
+					Admission admission = scheduler.acquire(lane, 10, TimeUnit.SECONDS);
+					order.add(lane);
+					scheduler.release(admission.ticket());
+				} catch (InterruptedException e) {
+					throw new IllegalStateException(e);
+				}
+			}, threads));
+		}
+		awaitWaiting(scheduler, 40);
+		scheduler.release(running.ticket());
+		CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+		// While both lanes are backlogged (the first 20 HEAVY tasks), HEAVY gets three of every four slots
+		List<Lane> contended = order.subList(0, 24);
+		assertThat(Collections.frequency(contended, Lane.HEAVY)).isEqualTo(18);
+		assertThat(Collections.frequency(contended, Lane.LIGHT)).isEqualTo(6);
+	}
+
+	@Test
+	void theReservedLaneHasItsOwnSlotsAndGoesFirst() throws Exception {
+		WeightedFairScheduler<Lane> scheduler = new WeightedFairScheduler<>(
+				Lane.class, Map.of(), Lane.RESERVED, 1, 1, 10);
+		Admission shared = scheduler.acquire(Lane.HEAVY, 1, TimeUnit.SECONDS);
+		assertThat(scheduler.acquire(Lane.LIGHT, 10, TimeUnit.MILLISECONDS).outcome()).isEqualTo(Outcome.TIMED_OUT);
+
+		Admission reserved = scheduler.acquire(Lane.RESERVED, 10, TimeUnit.MILLISECONDS);
+		assertThat(reserved.admitted()).isTrue();
+
+		CompletableFuture<Admission> light = CompletableFuture.supplyAsync(() -> acquire(scheduler, Lane.LIGHT), threads);
+		CompletableFuture<Admission> secondReserved = CompletableFuture.supplyAsync(
+				() -> acquire(scheduler, Lane.RESERVED), threads);
+		awaitWaiting(scheduler, 2);
+		// The freed shared slot goes to the reserved lane although LIGHT queued first
+		scheduler.release(shared.ticket());
+		assertThat(secondReserved.get(5, TimeUnit.SECONDS).admitted()).isTrue();
+		assertThat(light).isNotDone();
+
+		// A freed reserved slot is never given to another lane
+		scheduler.release(reserved.ticket());
+		Thread.sleep(50);
+		assertThat(light).isNotDone();
+		scheduler.release(secondReserved.get().ticket());
+		assertThat(light.get(5, TimeUnit.SECONDS).admitted()).isTrue();
+	}
+
+	@Test
+	void aFullQueueRejectsAtOnceAndTimedOutWaitersLeaveIt() throws Exception {
+		WeightedFairScheduler<Lane> scheduler = new WeightedFairScheduler<>(
+				Lane.class, Map.of(), Lane.RESERVED, 1, 0, 1);
+		Admission running = scheduler.acquire(Lane.HEAVY, 1, TimeUnit.SECONDS);
+		CompletableFuture<Admission> queued = CompletableFuture.supplyAsync(() -> acquire(scheduler, Lane.LIGHT), threads);
+		awaitWaiting(scheduler, 1);
+
+		assertThat(scheduler.acquire(Lane.HEAVY, 1, TimeUnit.SECONDS).outcome()).isEqualTo(Outcome.QUEUE_FULL);
+		scheduler.release(running.ticket());
+		Admission admitted = queued.get(5, TimeUnit.SECONDS);
+		assertThat(admitted.admitted()).isTrue();
+
+		assertThat(scheduler.acquire(Lane.HEAVY, 20, TimeUnit.MILLISECONDS).outcome()).isEqualTo(Outcome.TIMED_OUT);
+		assertThat(scheduler.waiting()).isZero();
+		scheduler.release(admitted.ticket());
+		assertThat(scheduler.acquire(Lane.HEAVY, 0, TimeUnit.MILLISECONDS).admitted()).isTrue();
+	}
+
+	private static Admission acquire(WeightedFairScheduler<Lane> scheduler, Lane lane) {
+		try {
+			return scheduler.acquire(lane, 5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void awaitWaiting(WeightedFairScheduler<Lane> scheduler, int waiters) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (scheduler.waiting() < waiters) {
+			assertThat(System.currentTimeMillis()).as("%d waiters within 5 s", waiters).isLessThan(deadline);
+			Thread.sleep(1);
+		}
+	}
+}
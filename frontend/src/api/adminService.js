@@ -1,9 +1,15 @@
 import { API } from "@/api/auth.js"; 
 
-export const fetchAllUsers = async () => {
+// One page of users; the backend filters, sorts and pages, and X-Total-Count holds the number of matches
+export const fetchUsers = async ({ page = 0, size = 10, sort = "createdAt,desc", search } = {}) => {
   try {
-    const response = await API.get("/admin/users");
-    return response.data;
+    const response = await API.get("/admin/users", {
+      params: { page, size, sort, search: search || undefined },
+    });
+    return {
+      users: response.data,
+      total: Number(response.headers["x-total-count"] ?? response.data.length),
+    };
   } catch (error) {
     throw error.response?.data || { message: "Failed to fetch users" };
   }
@@ -1,4 +1,4 @@
-import React, { useEffect, useState, useMemo } from "react";
+import React, { useCallback, useEffect, useState } from "react";
 import { Button } from "@/components/ui/button";
 import { Input } from "@/components/ui/input";
 import { Card, CardContent, CardHeader, CardTitle } from "@/components/ui/card";
@@ -26,7 +26,7 @@ import { cn } from "@/lib/utils";
 
 // ✅ Correct import path for API functions
 import {
-  fetchAllUsers,
+  fetchUsers,
   promoteUser,
   demoteUser,
   deleteUser,
@@ -34,62 +34,54 @@ import {
 
 const UserManagement = () => {
   const [users, setUsers] = useState([]);
+  const [totalUsers, setTotalUsers] = useState(0);
   const [searchTerm, setSearchTerm] = useState("");
+  const [search, setSearch] = useState("");
   const [sortField, setSortField] = useState("createdAt");
   const [sortDirection, setSortDirection] = useState("desc");
   const [currentPage, setCurrentPage] = useState(1);
   const [loading, setLoading] = useState(false);
   const itemsPerPage = 10;
 
-  // ✅ Fetch all users
+  // Search once the admin stops typing, starting again from the first page
   useEffect(() => {
-    const loadUsers = async () => {
-      try {
-        setLoading(true);
-        const data = await fetchAllUsers();
-        setUsers(data);
-      } catch (err) {
-        console.error("Failed to load users:", err);
-      } finally {
-        setLoading(false);
-      }
-    };
-    loadUsers();
-  }, []);
-
-  // ✅ Filter + Sort
-  const filteredAndSortedUsers = useMemo(() => {
-    let filtered = users.filter(
-      (user) =>
-        user.name?.toLowerCase().includes(searchTerm.toLowerCase()) ||
-        user.email?.toLowerCase().includes(searchTerm.toLowerCase())
-    );
+    const timeout = setTimeout(() => {
+      setSearch(searchTerm.trim());
+      setCurrentPage(1);
+    }, 300);
+    return () => clearTimeout(timeout);
+  }, [searchTerm]);
 
-    filtered.sort((a, b) => {
-      let aValue = a[sortField];
-      let bValue = b[sortField];
-      if (sortField === "createdAt") {
-        aValue = new Date(aValue);
-        bValue = new Date(bValue);
-      }
-      return sortDirection === "asc"
-        ? aValue > bValue
-          ? 1
-          : -1
-        : aValue < bValue
-        ? 1
-        : -1;
-    });
+  // ✅ Fetch the current page; the backend searches, sorts and pages
+  const loadUsers = useCallback(async () => {
+    try {
+      setLoading(true);
+      const data = await fetchUsers({
+        page: currentPage - 1,
+        size: itemsPerPage,
+        sort: `${sortField},${sortDirection}`,
+        search,
+      });
+      setUsers(data.users);
+      setTotalUsers(data.total);
+    } catch (err) {
+      console.error("Failed to load users:", err);
+    } finally {
+      setLoading(false);
+    }
+  }, [currentPage, sortField, sortDirection, search]);
 
-    return filtered;
-  }, [users, searchTerm, sortField, sortDirection]);
+  useEffect(() => {
+    loadUsers();
+  }, [loadUsers]);
 
-  const totalPages = Math.ceil(filteredAndSortedUsers.length / itemsPerPage);
+  const totalPages = Math.max(1, Math.ceil(totalUsers / itemsPerPage));
   const startIndex = (currentPage - 1) * itemsPerPage;
-  const paginatedUsers = filteredAndSortedUsers.slice(
-    startIndex,
-    startIndex + itemsPerPage
-  );
+
+  const handleSort = (field) => {
+    setSortField(field);
+    setCurrentPage(1);
+  };
 
   const handlePromote = async (id) => {
     await promoteUser(id);
@@ -109,7 +101,12 @@ const UserManagement = () => {
 
   const handleDelete = async (id) => {
     await deleteUser(id);
-    setUsers((prev) => prev.filter((u) => u.id !== id));
+    // Step back when the last user of the last page was deleted, otherwise refill the page
+    if (users.length === 1 && currentPage > 1) {
+      setCurrentPage((p) => p - 1);
+    } else {
+      loadUsers();
+    }
   };
 
   const SortIcon = ({ field }) =>
@@ -127,7 +124,7 @@ const UserManagement = () => {
         <div className="flex justify-between items-center">
           <h1 className="text-3xl font-bold">User Management</h1>
           <p className="text-muted-foreground">
-            Total: {filteredAndSortedUsers.length}
+            Total: {totalUsers}
           </p>
         </div>
 
@@ -153,6 +150,7 @@ const UserManagement = () => {
                   setSearchTerm("");
                   setSortField("createdAt");
                   setSortDirection("desc");
+                  setCurrentPage(1);
                 }}
               >
                 Clear
@@ -169,7 +167,7 @@ const UserManagement = () => {
           <CardContent>
             {loading ? (
               <p className="text-center text-muted-foreground">Loading...</p>
-            ) : paginatedUsers.length === 0 ? (
+            ) : users.length === 0 ? (
               <p className="text-center text-muted-foreground">
                 No users found
               </p>
@@ -181,7 +179,7 @@ const UserManagement = () => {
                       <th className="p-3 cursor-pointer">#</th>
                       <th
                         className="p-3 cursor-pointer"
-                        onClick={() => setSortField("name")}
+                        onClick={() => handleSort("name")}
                       >
                         Name <SortIcon field="name" />
                       </th>
@@ -191,7 +189,7 @@ const UserManagement = () => {
                       <th className="p-3">Credits</th>
                       <th
                         className="p-3 cursor-pointer"
-                        onClick={() => setSortField("createdAt")}
+                        onClick={() => handleSort("createdAt")}
                       >
                         Joined <SortIcon field="createdAt" />
                       </th>
@@ -199,7 +197,7 @@ const UserManagement = () => {
                     </tr>
                   </thead>
                   <tbody>
-                    {paginatedUsers.map((user, index) => (
+                    {users.map((user, index) => (
                       <tr
                         key={user.id}
                         className={cn(